@@ -0,0 +1,177 @@
+-- =====================================================================
+-- findBooks 执行计划对比基准
+-- 对比旧版通配查询（已从 BookRepository 删除的 findBooks / countBooks）与
+-- BookQueryBuilder 生成的专用语句在百万级图书目录上的执行计划与耗时。
+-- “新版”语句均为 BookQueryBuilder.select / count 的实际输出，仅把命名参数
+-- （:categoryId、:limit、:offset、:afterKey、:afterId）替换为字面量或会话变量；
+-- 修改 BookQueryBuilder 后需同步更新本脚本。
+--
+-- 运行方式（MySQL 8.0.18+，需支持 EXPLAIN ANALYZE）：
+--   mysql -uroot -p < benchmark/find_books_plans.sql > bench_output.txt
+-- 脚本只在独立的 library_store_bench 库中建表造数，不影响业务库。
+-- =====================================================================
+
+DROP DATABASE IF EXISTS library_store_bench;
+CREATE DATABASE library_store_bench DEFAULT CHARACTER SET utf8mb4;
+USE library_store_bench;
+
+CREATE TABLE books (
+    id             BIGINT AUTO_INCREMENT PRIMARY KEY,
+    isbn           VARCHAR(20)    NOT NULL UNIQUE,
+    title          VARCHAR(200)   NOT NULL,
+    author         VARCHAR(100)   NOT NULL,
+    publisher      VARCHAR(100)   NOT NULL,
+    publish_date   DATETIME(6),
+    category_id    BIGINT         NOT NULL,
+    original_price DECIMAL(10, 2) NOT NULL,
+    selling_price  DECIMAL(10, 2) NOT NULL,
+    cover_image    VARCHAR(255)   NOT NULL,
+    rating         DECIMAL(3, 2) DEFAULT 0,
+    popularity     INT            NOT NULL DEFAULT 0,
+    updated_at     DATETIME(6)
+) ENGINE = InnoDB;
+
+CREATE TABLE book_categories (
+    book_id     BIGINT NOT NULL,
+    category_id BIGINT NOT NULL,
+    PRIMARY KEY (book_id, category_id),
+    KEY idx_book_categories_category (category_id, book_id)
+) ENGINE = InnoDB;
+
+-- 与 CategoryClosure 实体一致：每对(祖先, 后代)一行，含分类自身
+CREATE TABLE category_closure (
+    id            BIGINT AUTO_INCREMENT PRIMARY KEY,
+    ancestor_id   BIGINT NOT NULL,
+    descendant_id BIGINT NOT NULL,
+    depth         INT    NOT NULL,
+    UNIQUE KEY uk_category_closure (ancestor_id, descendant_id),
+    KEY idx_category_closure_descendant (descendant_id)
+) ENGINE = InnoDB;
+
+-- ---------------------------------------------------------------------
+-- 造数：100万本图书，50个分类（1~10为顶级分类，11~50挂在其下），每本书1~2个分类
+-- ---------------------------------------------------------------------
+SET SESSION cte_max_recursion_depth = 1000000;
+
+INSERT INTO books (isbn, title, author, publisher, publish_date, category_id,
+                   original_price, selling_price, cover_image, rating, popularity, updated_at)
+WITH RECURSIVE seq (n) AS (
+    SELECT 1
+    UNION ALL
+    SELECT n + 1 FROM seq WHERE n < 1000000
+)
+SELECT CONCAT('978', LPAD(n, 10, '0')),
+       CONCAT('图书标题 ', n, ' 第', n % 97, '卷'),
+       CONCAT('作者', n % 20000),
+       CONCAT('出版社', n % 300),
+       IF(n % 50 = 0, NULL, TIMESTAMP('2000-01-01') + INTERVAL (n * 7919) % 8000 DAY),
+       1 + n % 50,
+       20 + (n * 31) % 200,
+       10 + (n * 17) % 180,
+       CONCAT('/images/', n, '.jpg'),
+       ((n * 13) % 500) / 100,
+       (n * 7907) % 100000,
+       NOW(6)
+FROM seq;
+
+INSERT INTO book_categories (book_id, category_id)
+SELECT id, category_id FROM books;
+INSERT IGNORE INTO book_categories (book_id, category_id)
+SELECT id, 1 + (category_id + 7) % 50 FROM books WHERE id % 3 = 0;
+
+INSERT INTO category_closure (ancestor_id, descendant_id, depth)
+WITH RECURSIVE cat (n) AS (
+    SELECT 1
+    UNION ALL
+    SELECT n + 1 FROM cat WHERE n < 50
+)
+SELECT n, n, 0 FROM cat
+UNION ALL
+SELECT 1 + n % 10, n, 1 FROM cat WHERE n > 10;
+
+-- 与 Book 实体 @Index 声明一致的联合索引（旧版语句同样可用，保证对比公平）
+ALTER TABLE books ADD INDEX idx_books_popularity_id (popularity DESC, id),
+                  ADD INDEX idx_books_publish_date_id (publish_date DESC, id),
+                  ADD INDEX idx_books_selling_price_id (selling_price, id);
+
+ANALYZE TABLE books, book_categories, category_closure;
+
+-- ---------------------------------------------------------------------
+-- 场景1：无筛选，按人气排序，第1页
+-- ---------------------------------------------------------------------
+SELECT '场景1 旧版：通配条件 + GROUP BY + ORDER BY CASE' AS scenario;
+EXPLAIN ANALYZE
+SELECT b.id, b.title, b.author, b.cover_image, b.selling_price, b.original_price, b.rating
+FROM books b
+LEFT JOIN book_categories bc ON b.id = bc.book_id
+WHERE (NULL IS NULL OR b.title LIKE CONCAT('%', NULL, '%') OR b.author LIKE CONCAT('%', NULL, '%'))
+  AND (NULL IS NULL OR bc.category_id = NULL)
+GROUP BY b.id
+ORDER BY CASE WHEN 'recommended' = 'recommended' THEN b.popularity END DESC,
+         CASE WHEN 'recommended' = 'newest' THEN b.publish_date END DESC,
+         CASE WHEN 'recommended' = 'price_asc' THEN b.selling_price END ASC,
+         CASE WHEN 'recommended' = 'price_desc' THEN b.selling_price END DESC
+LIMIT 10 OFFSET 0;
+
+SELECT '场景1 新版：无分类不连接，ORDER BY 命中 (popularity DESC, id) 索引' AS scenario;
+EXPLAIN ANALYZE
+SELECT b.id, b.title, b.author, b.cover_image, b.selling_price, b.original_price, b.rating, b.popularity, b.publish_date FROM books b ORDER BY b.popularity DESC, b.id LIMIT 10;
+
+-- ---------------------------------------------------------------------
+-- 场景2：分类筛选，按价格升序，第1页
+-- 分类7为顶级分类：旧版只匹配直接归属的图书，新版经 category_closure 包含子分类中的图书
+-- ---------------------------------------------------------------------
+SELECT '场景2 旧版' AS scenario;
+EXPLAIN ANALYZE
+SELECT b.id, b.title, b.author, b.cover_image, b.selling_price, b.original_price, b.rating
+FROM books b
+LEFT JOIN book_categories bc ON b.id = bc.book_id
+WHERE (NULL IS NULL OR b.title LIKE CONCAT('%', NULL, '%') OR b.author LIKE CONCAT('%', NULL, '%'))
+  AND (7 IS NULL OR bc.category_id = 7)
+GROUP BY b.id
+ORDER BY CASE WHEN 'price_asc' = 'recommended' THEN b.popularity END DESC,
+         CASE WHEN 'price_asc' = 'newest' THEN b.publish_date END DESC,
+         CASE WHEN 'price_asc' = 'price_asc' THEN b.selling_price END ASC,
+         CASE WHEN 'price_asc' = 'price_desc' THEN b.selling_price END DESC
+LIMIT 10 OFFSET 0;
+
+SELECT '场景2 新版：经 category_closure 的半连接代替 GROUP BY' AS scenario;
+EXPLAIN ANALYZE
+SELECT b.id, b.title, b.author, b.cover_image, b.selling_price, b.original_price, b.rating, b.popularity, b.publish_date FROM books b WHERE b.id IN (SELECT bc.book_id FROM book_categories bc JOIN category_closure cc ON cc.descendant_id = bc.category_id WHERE cc.ancestor_id = 7) ORDER BY b.selling_price, b.id LIMIT 10;
+
+-- ---------------------------------------------------------------------
+-- 场景3：分类总数统计
+-- ---------------------------------------------------------------------
+SELECT '场景3 旧版：COUNT(DISTINCT) + LEFT JOIN' AS scenario;
+EXPLAIN ANALYZE
+SELECT COUNT(DISTINCT b.id)
+FROM books b
+LEFT JOIN book_categories bc ON b.id = bc.book_id
+WHERE (NULL IS NULL OR b.title LIKE CONCAT('%', NULL, '%') OR b.author LIKE CONCAT('%', NULL, '%'))
+  AND (7 IS NULL OR bc.category_id = 7);
+
+SELECT '场景3 新版：半连接 COUNT(*)' AS scenario;
+EXPLAIN ANALYZE
+SELECT COUNT(*) FROM books b WHERE b.id IN (SELECT bc.book_id FROM book_categories bc JOIN category_closure cc ON cc.descendant_id = bc.category_id WHERE cc.ancestor_id = 7);
+
+-- ---------------------------------------------------------------------
+-- 场景4：深分页（第5000页）——偏移分页 vs 游标分页
+-- ---------------------------------------------------------------------
+SELECT '场景4 新版偏移分页：OFFSET 49990' AS scenario;
+EXPLAIN ANALYZE
+SELECT b.id, b.title, b.author, b.cover_image, b.selling_price, b.original_price, b.rating, b.popularity, b.publish_date FROM books b ORDER BY b.publish_date DESC, b.id LIMIT 10 OFFSET 49990;
+
+SELECT '场景4 游标分页：从上一页最后位置继续' AS scenario;
+SELECT publish_date, id INTO @after_date, @after_id
+FROM books ORDER BY publish_date DESC, id LIMIT 1 OFFSET 49989;
+EXPLAIN ANALYZE
+SELECT b.id, b.title, b.author, b.cover_image, b.selling_price, b.original_price, b.rating, b.popularity, b.publish_date FROM books b WHERE (b.publish_date < @after_date OR (b.publish_date = @after_date AND b.id > @after_id) OR b.publish_date IS NULL) ORDER BY b.publish_date DESC, b.id LIMIT 10;
+
+-- ---------------------------------------------------------------------
+-- 场景5：按人气的游标分页（popularity 为非空列，条件直接比较排序列，可沿索引继续扫描）
+-- ---------------------------------------------------------------------
+SELECT '场景5 游标分页：人气值降序' AS scenario;
+SELECT popularity, id INTO @after_popularity, @after_id
+FROM books ORDER BY popularity DESC, id LIMIT 1 OFFSET 49989;
+EXPLAIN ANALYZE
+SELECT b.id, b.title, b.author, b.cover_image, b.selling_price, b.original_price, b.rating, b.popularity, b.publish_date FROM books b WHERE (b.popularity < @after_popularity OR (b.popularity = @after_popularity AND b.id > @after_id)) ORDER BY b.popularity DESC, b.id LIMIT 10;
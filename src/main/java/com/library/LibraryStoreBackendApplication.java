@@ -2,10 +2,12 @@ package com.library;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 
 @SpringBootApplication
 @EnableWebMvc
+@EnableScheduling
 public class LibraryStoreBackendApplication {
     public static void main(String[] args) {
         SpringApplication.run(LibraryStoreBackendApplication.class, args);
@@ -0,0 +1,183 @@
+package com.library.activity;
+
+import com.library.model.dto.ViewCounterStatsDTO;
+import com.library.repository.PopularityRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 图书浏览计数
+ * 每本书一个LongAdder（内部按线程分散到多个计数槽，热门图书的并发浏览不争用同一个变量），
+ * 浏览请求只做内存累加；后台任务定期取出各书的增量，按图书ID排序后批量累加到books.view_count及当日的book_view_daily（供人气值计算）。
+ * 计数的图书数有上限，达到上限后新图书的浏览直接丢弃并计入统计；写库失败时把增量放回，放不回的同样计入丢失。
+ * 一个周期内没有浏览的图书移出计数表，其计数槽保留到下一周期再清算一次，使移除时正在进行的并发累加也能写入；
+ * 应用关闭时最后写库一次
+ */
+@Slf4j
+@Component
+public class BookViewCounter {
+
+    private static final int WRITE_BATCH_SIZE = 1000;
+
+    private final PopularityRepository popularityRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBooks;
+
+    private final ConcurrentHashMap<Long, LongAdder> cells = new ConcurrentHashMap<>();
+    // 上一周期移出计数表的槽，本周期再清算一次
+    private Map<Long, LongAdder> retired = new HashMap<>();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder droppedFull = new LongAdder();
+    private final LongAdder droppedFailed = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private volatile long lastFlushMillis;
+
+    public BookViewCounter(PopularityRepository popularityRepository,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${view-counter.max-books:100000}") int maxBooks) {
+        this.popularityRepository = popularityRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxBooks = maxBooks;
+    }
+
+    /**
+     * 记录一次浏览
+     */
+    public void increment(long bookId) {
+        LongAdder cell = cells.get(bookId);
+        if (cell == null) {
+            if (cells.size() >= maxBooks) {
+                droppedFull.increment();
+                return;
+            }
+            cell = cells.computeIfAbsent(bookId, id -> new LongAdder());
+        }
+        cell.increment();
+        recorded.increment();
+    }
+
+    /**
+     * 定期写库
+     */
+    @Scheduled(fixedDelayString = "${view-counter.flush-ms:10000}",
+            initialDelayString = "${view-counter.flush-ms:10000}")
+    public synchronized void flush() {
+        long start = System.currentTimeMillis();
+        TreeMap<Long, Long> deltas = drain();
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(deltas.entrySet());
+        LocalDate viewDate = LocalDate.now();
+        int written = 0;
+        try {
+            for (; written < entries.size(); written += WRITE_BATCH_SIZE) {
+                List<Map.Entry<Long, Long>> chunk = entries.subList(written,
+                        Math.min(written + WRITE_BATCH_SIZE, entries.size()));
+                SqlParameterSource[] batch = chunk.stream()
+                        .map(entry -> new MapSqlParameterSource()
+                                .addValue("id", entry.getKey())
+                                .addValue("viewDate", viewDate)
+                                .addValue("views", entry.getValue()))
+                        .toArray(SqlParameterSource[]::new);
+                transactionTemplate.executeWithoutResult(status -> {
+                    popularityRepository.addViewCounts(batch);
+                    popularityRepository.addDailyViews(batch);
+                });
+                chunk.forEach(entry -> flushed.add(entry.getValue()));
+            }
+        } catch (RuntimeException e) {
+            // 数据库异常时不再继续，未写入的增量放回计数表等待下一周期
+            failedFlushes.increment();
+            long requeued = 0;
+            for (Map.Entry<Long, Long> entry : entries.subList(written, entries.size())) {
+                requeued += requeue(entry.getKey(), entry.getValue());
+            }
+            log.warn("浏览次数写入失败，已放回{}次浏览: {}", requeued, e.getMessage());
+        }
+        lastFlushMillis = System.currentTimeMillis() - start;
+    }
+
+    /**
+     * 关闭前最后写库一次，仍未写入的计入丢失
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        flush();
+        long remaining = 0;
+        for (LongAdder cell : cells.values()) {
+            remaining += cell.sumThenReset();
+        }
+        if (remaining > 0) {
+            droppedFailed.add(remaining);
+            log.warn("应用关闭时仍有{}次浏览未能写入", remaining);
+        }
+    }
+
+    public ViewCounterStatsDTO stats() {
+        long pending = 0;
+        for (LongAdder cell : cells.values()) {
+            pending += cell.sum();
+        }
+        return new ViewCounterStatsDTO(recorded.sum(), flushed.sum(), pending, cells.size(),
+                droppedFull.sum(), droppedFailed.sum(), failedFlushes.sum(), lastFlushMillis);
+    }
+
+    /**
+     * 取出全部增量（sumThenReset逐槽原子清零，并发累加不会丢失）；本周期无增量的图书移出计数表
+     */
+    private TreeMap<Long, Long> drain() {
+        TreeMap<Long, Long> deltas = new TreeMap<>();
+        Map<Long, LongAdder> previous = retired;
+        retired = new HashMap<>();
+        for (Map.Entry<Long, LongAdder> entry : cells.entrySet()) {
+            long views = entry.getValue().sumThenReset();
+            if (views > 0) {
+                deltas.merge(entry.getKey(), views, Long::sum);
+            } else if (cells.remove(entry.getKey(), entry.getValue())) {
+                retired.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<Long, LongAdder> entry : previous.entrySet()) {
+            long views = entry.getValue().sumThenReset();
+            if (views > 0) {
+                deltas.merge(entry.getKey(), views, Long::sum);
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * 把写库失败的增量放回计数表
+     * @return 放回的浏览次数
+     */
+    private long requeue(long bookId, long views) {
+        LongAdder cell = cells.get(bookId);
+        if (cell == null && cells.size() >= maxBooks) {
+            droppedFailed.add(views);
+            return 0;
+        }
+        if (cell == null) {
+            cell = cells.computeIfAbsent(bookId, id -> new LongAdder());
+        }
+        cell.add(views);
+        return views;
+    }
+}
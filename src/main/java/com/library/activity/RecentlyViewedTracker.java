@@ -0,0 +1,293 @@
+package com.library.activity;
+
+import com.library.repository.RecentlyViewedRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户最近浏览
+ * 每个活跃用户一个固定容量的环形缓冲区（重复浏览的图书移到最前），浏览请求只修改内存；
+ * 新增浏览同时记入待写队列，由后台任务批量upsert到recently_viewed并裁剪到容量以内。
+ * 内存中的用户数有上限（按最近访问淘汰），长时间不活跃的用户在写库后移出内存；
+ * 用户不在内存中或首次读取时，从数据库加载历史并与内存中的新浏览合并
+ */
+@Slf4j
+@Component
+public class RecentlyViewedTracker {
+
+    private static final int WRITE_BATCH_SIZE = 1000;
+
+    private final RecentlyViewedRepository recentlyViewedRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int capacity;
+    private final int maxUsers;
+    private final long idleMillis;
+
+    // 用户ID -> 浏览历史（按访问顺序，最久未访问的在前）
+    private final LinkedHashMap<Long, History> histories;
+    // 有待写浏览的用户；被淘汰出histories的用户在写库前仍保留在这里
+    private final Map<Long, History> dirty = new HashMap<>();
+
+    /**
+     * 单个用户的浏览历史
+     */
+    private static final class History {
+        final long[] bookIds;
+        final long[] viewedAt;
+        int head = -1; // 最新一条所在槽位
+        int size;
+        boolean loaded; // 是否已与数据库中的历史合并
+        long lastAccess;
+        // 待写入的浏览：图书ID -> 浏览时间（按写入顺序，超出容量时丢弃最早的）
+        final LinkedHashMap<Long, Long> pending = new LinkedHashMap<>();
+
+        History(int capacity) {
+            bookIds = new long[capacity];
+            viewedAt = new long[capacity];
+        }
+
+        /**
+         * 第i新的记录所在槽位
+         */
+        int slot(int i) {
+            return Math.floorMod(head - i, bookIds.length);
+        }
+
+        void add(long bookId, long time) {
+            for (int i = 0; i < size; i++) {
+                if (bookIds[slot(i)] == bookId) {
+                    remove(i);
+                    break;
+                }
+            }
+            head = (head + 1) % bookIds.length;
+            bookIds[head] = bookId;
+            viewedAt[head] = time;
+            size = Math.min(size + 1, bookIds.length);
+        }
+
+        /**
+         * 删除第i新的记录，更旧的记录依次前移
+         */
+        private void remove(int i) {
+            for (int j = i; j < size - 1; j++) {
+                bookIds[slot(j)] = bookIds[slot(j + 1)];
+                viewedAt[slot(j)] = viewedAt[slot(j + 1)];
+            }
+            size--;
+        }
+
+        void addPending(long bookId, long time) {
+            pending.remove(bookId);
+            pending.put(bookId, time);
+            if (pending.size() > bookIds.length) {
+                Iterator<Long> eldest = pending.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+
+        /**
+         * 合并数据库中的历史：同一本书取较晚的时间，按时间重排后保留最新的capacity条
+         */
+        void merge(long[] storedIds, long[] storedTimes) {
+            Map<Long, Long> latest = new HashMap<>();
+            for (int i = 0; i < storedIds.length; i++) {
+                latest.merge(storedIds[i], storedTimes[i], Math::max);
+            }
+            for (int i = 0; i < size; i++) {
+                latest.merge(bookIds[slot(i)], viewedAt[slot(i)], Math::max);
+            }
+            List<Map.Entry<Long, Long>> entries = new ArrayList<>(latest.entrySet());
+            entries.sort((a, b) -> Long.compare(a.getValue(), b.getValue()));
+            head = -1;
+            size = 0;
+            for (int i = Math.max(0, entries.size() - bookIds.length); i < entries.size(); i++) {
+                add(entries.get(i).getKey(), entries.get(i).getValue());
+            }
+        }
+
+        List<Long> newest(int limit) {
+            List<Long> result = new ArrayList<>(Math.min(limit, size));
+            for (int i = 0; i < size && i < limit; i++) {
+                result.add(bookIds[slot(i)]);
+            }
+            return result;
+        }
+    }
+
+    public RecentlyViewedTracker(RecentlyViewedRepository recentlyViewedRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${recent.capacity:20}") int capacity,
+                                 @Value("${recent.max-users:50000}") int maxUsers,
+                                 @Value("${recent.idle-ms:1800000}") long idleMillis) {
+        this.recentlyViewedRepository = recentlyViewedRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.capacity = capacity;
+        this.maxUsers = maxUsers;
+        this.idleMillis = idleMillis;
+        this.histories = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, History> eldest) {
+                return size() > RecentlyViewedTracker.this.maxUsers;
+            }
+        };
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 记录一次浏览（只修改内存）
+     */
+    public synchronized void record(long userId, long bookId) {
+        long now = System.currentTimeMillis();
+        History history = historyOf(userId, now);
+        history.add(bookId, now);
+        history.addPending(bookId, now);
+        dirty.put(userId, history);
+    }
+
+    /**
+     * 用户最近浏览的图书ID，最新的在前
+     */
+    public List<Long> recent(long userId, int limit) {
+        synchronized (this) {
+            History history = histories.get(userId);
+            if (history != null && history.loaded) {
+                history.lastAccess = System.currentTimeMillis();
+                return history.newest(limit);
+            }
+        }
+        // 在锁外读库，随后与期间产生的新浏览合并
+        List<Map<String, Object>> rows = recentlyViewedRepository.findRecent(userId, capacity);
+        long[] storedIds = new long[rows.size()];
+        long[] storedTimes = new long[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            storedIds[i] = ((Number) rows.get(i).get("book_id")).longValue();
+            storedTimes[i] = toMillis(rows.get(i).get("viewed_at"));
+        }
+        synchronized (this) {
+            History history = historyOf(userId, System.currentTimeMillis());
+            if (!history.loaded) {
+                history.merge(storedIds, storedTimes);
+                history.loaded = true;
+            }
+            return history.newest(limit);
+        }
+    }
+
+    /**
+     * 定期写库：取出全部待写浏览后批量upsert并裁剪，再移出长时间不活跃的用户
+     */
+    @Scheduled(fixedDelayString = "${recent.flush-ms:10000}", initialDelayString = "${recent.flush-ms:10000}")
+    public void flush() {
+        List<SqlParameterSource> upserts = new ArrayList<>();
+        List<SqlParameterSource> trims = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<Long, History> entry : dirty.entrySet()) {
+                for (Map.Entry<Long, Long> view : entry.getValue().pending.entrySet()) {
+                    upserts.add(new MapSqlParameterSource()
+                            .addValue("userId", entry.getKey())
+                            .addValue("bookId", view.getKey())
+                            .addValue("viewedAt", toLocalDateTime(view.getValue())));
+                }
+                entry.getValue().pending.clear();
+                trims.add(new MapSqlParameterSource()
+                        .addValue("userId", entry.getKey())
+                        .addValue("keep", capacity));
+            }
+            dirty.clear();
+            evictIdle(System.currentTimeMillis());
+        }
+        if (upserts.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            for (int from = 0; from < upserts.size(); from += WRITE_BATCH_SIZE) {
+                SqlParameterSource[] batch = upserts.subList(from, Math.min(from + WRITE_BATCH_SIZE, upserts.size()))
+                        .toArray(new SqlParameterSource[0]);
+                transactionTemplate.executeWithoutResult(status -> recentlyViewedRepository.upsertViews(batch));
+            }
+            for (int from = 0; from < trims.size(); from += WRITE_BATCH_SIZE) {
+                SqlParameterSource[] batch = trims.subList(from, Math.min(from + WRITE_BATCH_SIZE, trims.size()))
+                        .toArray(new SqlParameterSource[0]);
+                transactionTemplate.executeWithoutResult(status -> recentlyViewedRepository.trimViews(batch));
+            }
+        } catch (RuntimeException e) {
+            // 最近浏览允许少量丢失，不重试以免积压
+            log.warn("最近浏览写入失败，丢弃{}条记录: {}", upserts.size(), e.getMessage());
+            return;
+        }
+        log.debug("最近浏览已写入: 用户数={}, 记录数={}, 耗时{}ms",
+                trims.size(), upserts.size(), System.currentTimeMillis() - start);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 取用户的浏览历史（不存在时新建）；已被淘汰但尚未写库的历史重新放回
+     */
+    private History historyOf(long userId, long now) {
+        History history = histories.get(userId);
+        if (history == null) {
+            history = dirty.get(userId);
+            if (history == null) {
+                history = new History(capacity);
+            }
+            histories.put(userId, history);
+        }
+        history.lastAccess = now;
+        return history;
+    }
+
+    /**
+     * histories按访问顺序排列，从最久未访问的开始移除，遇到活跃用户即停止
+     */
+    private void evictIdle(long now) {
+        Iterator<History> iterator = histories.values().iterator();
+        while (iterator.hasNext()) {
+            History history = iterator.next();
+            if (now - history.lastAccess < idleMillis) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    private static long toMillis(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.getTime();
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        return 0L;
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,112 @@
+package com.library.carousel;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.model.dto.CarouselDTO;
+import com.library.model.dto.response.ApiResponse;
+import com.library.model.dto.response.SerializedResponse;
+import com.library.model.entity.Carousel;
+import org.springframework.util.DigestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 轮播图快照（不可变）
+ * 启用的轮播图列表及预先序列化的响应体，附带响应体摘要（强ETag）和最后修改时间（Last-Modified），登记到ResourceVersions。
+ * 删除轮播图不会推高最大updated_at，因此最后修改时间取最大updated_at与快照构建时间中的较大者（快照只在数据变化时重建）。
+ * 快照内的DTO为共享对象，调用方只读
+ */
+public final class CarouselSnapshot {
+
+    static final String LIST_MESSAGE = "轮播图列表获取成功";
+
+    private static final DateTimeFormatter DATETIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final long version;
+    private final String marker;
+    private final List<CarouselDTO> carousels;
+    private final SerializedResponse listResponse;
+    private final String digest;
+    private final long lastModified;
+
+    private CarouselSnapshot(long version, String marker, List<CarouselDTO> carousels,
+                             SerializedResponse listResponse, String digest, long lastModified) {
+        this.version = version;
+        this.marker = marker;
+        this.carousels = carousels;
+        this.listResponse = listResponse;
+        this.digest = digest;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * 由启用的轮播图（已按排序序号排序）构建快照
+     * @param marker 构建时读取的变更标记
+     */
+    static CarouselSnapshot build(List<Carousel> enabled, long version, String marker, ObjectMapper objectMapper)
+            throws JsonProcessingException {
+        List<CarouselDTO> carousels = new ArrayList<>(enabled.size());
+        for (Carousel carousel : enabled) {
+            carousels.add(toDTO(carousel));
+        }
+        long lastModified = enabled.stream()
+                .map(Carousel::getUpdatedAt)
+                .filter(updatedAt -> updatedAt != null)
+                .max(LocalDateTime::compareTo)
+                .map(updatedAt -> updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                .orElse(0L);
+        lastModified = Math.max(lastModified, System.currentTimeMillis() / 1000 * 1000);
+        byte[] body = objectMapper.writeValueAsBytes(new ApiResponse<>(true, LIST_MESSAGE, carousels));
+        return new CarouselSnapshot(version, marker, Collections.unmodifiableList(carousels),
+                new SerializedResponse(body), DigestUtils.md5DigestAsHex(body), lastModified);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 列表响应体的MD5摘要
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * 构建快照时的变更标记，用于判断数据是否变化
+     */
+    String getMarker() {
+        return marker;
+    }
+
+    public List<CarouselDTO> getCarousels() {
+        return carousels;
+    }
+
+    public SerializedResponse getListResponse() {
+        return listResponse;
+    }
+
+    private static CarouselDTO toDTO(Carousel carousel) {
+        CarouselDTO dto = new CarouselDTO();
+        dto.setId(carousel.getId());
+        dto.setImageUrl(carousel.getImageUrl());
+        dto.setTitle(carousel.getTitle());
+        dto.setDescription(carousel.getDescription());
+        dto.setLink(carousel.getLink());
+        dto.setButtonText(carousel.getButtonText());
+        dto.setSortOrder(carousel.getSortOrder());
+        dto.setCreatedAt(carousel.getCreatedAt() != null ? carousel.getCreatedAt().format(DATETIME_FORMAT) : null);
+        dto.setUpdatedAt(carousel.getUpdatedAt() != null ? carousel.getUpdatedAt().format(DATETIME_FORMAT) : null);
+        return dto;
+    }
+}
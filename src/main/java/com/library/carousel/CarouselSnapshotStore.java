@@ -0,0 +1,93 @@
+package com.library.carousel;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.model.entity.Carousel;
+import com.library.repository.CarouselRepository;
+import com.library.web.ResourceVersions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 轮播图快照持有者
+ * 定期只读取变更标记（记录数、最大updated_at），与当前快照不同时才加载轮播图并重建；
+ * 写入轮播图的代码可调用invalidate()立即重建。读请求只读取volatile引用，稳定状态下不访问数据库
+ */
+@Slf4j
+@Component
+public class CarouselSnapshotStore {
+
+    private final CarouselRepository carouselRepository;
+    private final ObjectMapper objectMapper;
+    private final ResourceVersions resourceVersions;
+
+    private volatile CarouselSnapshot snapshot;
+
+    public CarouselSnapshotStore(CarouselRepository carouselRepository, ObjectMapper objectMapper,
+                                 ResourceVersions resourceVersions) {
+        this.carouselRepository = carouselRepository;
+        this.objectMapper = objectMapper;
+        this.resourceVersions = resourceVersions;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    /**
+     * 检查变更标记，变化时重建快照
+     */
+    @Scheduled(fixedDelayString = "${carousel.snapshot.check-ms:30000}",
+            initialDelayString = "${carousel.snapshot.check-ms:30000}")
+    public synchronized void refresh() {
+        String marker = readMarker();
+        CarouselSnapshot current = snapshot;
+        if (current != null && marker.equals(current.getMarker())) {
+            return;
+        }
+        rebuild(marker, current);
+    }
+
+    /**
+     * 轮播图写入后调用：不比对变更标记，直接重建
+     */
+    public synchronized void invalidate() {
+        rebuild(readMarker(), snapshot);
+    }
+
+    /**
+     * 当前快照；首次加载完成前被访问时同步构建
+     */
+    public CarouselSnapshot current() {
+        CarouselSnapshot current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private void rebuild(String marker, CarouselSnapshot current) {
+        List<Carousel> enabled = carouselRepository.findEnabledForDisplay();
+        try {
+            snapshot = CarouselSnapshot.build(enabled, current != null ? current.getVersion() + 1 : 1L,
+                    marker, objectMapper);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("轮播图快照序列化失败", e);
+        }
+        resourceVersions.update(ResourceVersions.CAROUSELS, snapshot.getDigest(), snapshot.getLastModified());
+        log.info("轮播图快照已重建: 版本={}, 轮播图数={}", snapshot.getVersion(), enabled.size());
+    }
+
+    private String readMarker() {
+        List<Object[]> rows = carouselRepository.findChangeMarker();
+        Object[] row = rows.isEmpty() ? new Object[2] : rows.get(0);
+        return row[0] + "|" + row[1];
+    }
+}
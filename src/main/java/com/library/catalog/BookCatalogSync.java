@@ -0,0 +1,257 @@
+package com.library.catalog;
+
+import com.library.category.CategoryHierarchy;
+import com.library.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 图书目录同步器
+ * 启动时按主键分段全量加载books表，之后按(updated_at, id)键集轮询增量变更，
+ * 并将数据推送给所有CatalogListener（搜索索引等内存结构）。
+ * 每轮增量同步后比对图书ID集合指纹（记录数与ID之和），发现删除时立即全量重新加载，使各监听器移除已删除的图书。
+ * 图书的分类按分类闭包扩展为包含全部祖先分类，分类层级变化后在下一轮轮询时全量重新加载
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookCatalogSync {
+
+    private static final int CHUNK_SIZE = 2000;
+
+    private final BookRepository bookRepository;
+    private final List<CatalogListener> listeners;
+    private final CategoryHierarchy categoryHierarchy;
+
+    private volatile boolean loaded = false;
+    // 增量同步水位：已处理的最后一条记录的(updated_at, id)
+    private LocalDateTime watermark;
+    private long watermarkId;
+    // 已加载的图书ID：全量加载时的有序数组，加上之后增量同步中新增的ID
+    private long[] loadedIds = new long[0];
+    private Set<Long> addedIds = new HashSet<>();
+    private long idSum;
+    // 本次全量加载所依据的分类层级版本
+    private long hierarchyVersion;
+
+    /**
+     * 应用启动完成后执行首次全量加载
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reloadAll();
+    }
+
+    /**
+     * 全量加载图书目录并通知所有监听器
+     */
+    public synchronized void reloadAll() {
+        long start = System.currentTimeMillis();
+        hierarchyVersion = categoryHierarchy.version();
+        List<CatalogBook> books = new ArrayList<>();
+        LocalDateTime maxUpdatedAt = null;
+        long maxUpdatedId = 0L;
+        long afterId = 0L;
+
+        while (true) {
+            List<Map<String, Object>> rows = bookRepository.findCatalogRowsAfter(afterId, CHUNK_SIZE);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<CatalogBook> chunk = convertRows(rows);
+            long fromId = chunk.get(0).getId();
+            long toId = chunk.get(chunk.size() - 1).getId();
+            attachCategories(chunk, bookRepository.findBookCategoryRowsBetween(fromId, toId));
+
+            for (CatalogBook book : chunk) {
+                LocalDateTime updatedAt = book.getUpdatedAt();
+                // 分段按ID升序读取，同一updated_at取最大ID
+                if (updatedAt != null && (maxUpdatedAt == null || !updatedAt.isBefore(maxUpdatedAt))) {
+                    maxUpdatedAt = updatedAt;
+                    maxUpdatedId = book.getId();
+                }
+            }
+            books.addAll(chunk);
+            afterId = toId;
+            if (rows.size() < CHUNK_SIZE) {
+                break;
+            }
+        }
+
+        for (CatalogListener listener : listeners) {
+            listener.onCatalogReload(books);
+        }
+        watermark = maxUpdatedAt != null ? maxUpdatedAt : LocalDateTime.now();
+        watermarkId = maxUpdatedAt != null ? maxUpdatedId : Long.MAX_VALUE;
+        loadedIds = new long[books.size()];
+        idSum = 0L;
+        for (int i = 0; i < loadedIds.length; i++) {
+            loadedIds[i] = books.get(i).getId();
+            idSum += loadedIds[i];
+        }
+        addedIds = new HashSet<>();
+        loaded = true;
+        log.info("图书目录全量加载完成: {}本, 耗时{}ms", books.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 定时增量同步：按(updated_at, id)键集分批拉取水位之后修改过的图书并推送给监听器，再检查是否有图书被删除
+     */
+    @Scheduled(fixedDelayString = "${catalog.sync.interval-ms:30000}",
+            initialDelayString = "${catalog.sync.interval-ms:30000}")
+    public synchronized void syncChanges() {
+        if (!loaded) {
+            return;
+        }
+        if (categoryHierarchy.version() != hierarchyVersion) {
+            reloadAll();
+            return;
+        }
+        while (true) {
+            List<Map<String, Object>> rows = bookRepository.findCatalogRowsChangedAfter(watermark, watermarkId, CHUNK_SIZE);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<CatalogBook> changed = convertRows(rows);
+            CatalogBook last = changed.get(changed.size() - 1);
+            publishChanges(changed);
+            watermark = last.getUpdatedAt();
+            watermarkId = last.getId();
+            if (rows.size() < CHUNK_SIZE) {
+                break;
+            }
+        }
+        if (hasDeletedBooks()) {
+            log.info("检测到图书被删除，重新全量加载目录");
+            reloadAll();
+        }
+    }
+
+    /**
+     * 定时全量校准：处理分类关联变化、提交晚于水位的修改等增量同步无法感知的变更
+     */
+    @Scheduled(fixedDelayString = "${catalog.sync.full-reload-ms:3600000}",
+            initialDelayString = "${catalog.sync.full-reload-ms:3600000}")
+    public void scheduledReload() {
+        if (loaded) {
+            reloadAll();
+        }
+    }
+
+    /**
+     * 立即刷新指定图书（写操作提交后调用，无需等待下一轮轮询）
+     */
+    public synchronized void refreshBooks(Collection<Long> bookIds) {
+        if (!loaded || bookIds == null || bookIds.isEmpty()) {
+            return;
+        }
+        List<CatalogBook> changed = convertRows(bookRepository.findCatalogRowsByIds(bookIds));
+        if (!changed.isEmpty()) {
+            publishChanges(changed);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 比对数据库与已加载图书的ID集合指纹（记录数与ID之和），不一致说明有图书被删除
+     */
+    private boolean hasDeletedBooks() {
+        List<Map<String, Object>> rows = bookRepository.findIdFingerprint();
+        if (rows.isEmpty()) {
+            return false;
+        }
+        long total = ((Number) rows.get(0).get("total")).longValue();
+        long sum = ((Number) rows.get(0).get("id_sum")).longValue();
+        return total != loadedIds.length + addedIds.size() || sum != idSum;
+    }
+
+    /**
+     * 补充分类关联后推送增量变更，并记录新增的图书ID
+     */
+    private void publishChanges(List<CatalogBook> changed) {
+        List<Long> ids = new ArrayList<>(changed.size());
+        for (CatalogBook book : changed) {
+            ids.add(book.getId());
+            if (Arrays.binarySearch(loadedIds, book.getId()) < 0 && addedIds.add(book.getId())) {
+                idSum += book.getId();
+            }
+        }
+        attachCategories(changed, bookRepository.findBookCategoryRowsByBookIds(ids));
+        for (CatalogListener listener : listeners) {
+            listener.onBooksChanged(changed);
+        }
+    }
+
+    /**
+     * 将book_categories关联记录合并到对应图书，并扩展为包含全部祖先分类
+     */
+    private void attachCategories(List<CatalogBook> books, List<Map<String, Object>> categoryRows) {
+        Map<Long, List<Long>> categoriesByBook = new HashMap<>();
+        for (Map<String, Object> row : categoryRows) {
+            Long bookId = ((Number) row.get("book_id")).longValue();
+            Long categoryId = ((Number) row.get("category_id")).longValue();
+            categoriesByBook.computeIfAbsent(bookId, k -> new ArrayList<>()).add(categoryId);
+        }
+        for (CatalogBook book : books) {
+            List<Long> categoryIds = categoriesByBook.get(book.getId());
+            if (categoryIds != null) {
+                book.setCategoryIds(categoryHierarchy.expand(
+                        categoryIds.stream().mapToLong(Long::longValue).distinct().sorted().toArray()));
+            }
+        }
+    }
+
+    private List<CatalogBook> convertRows(List<Map<String, Object>> rows) {
+        List<CatalogBook> books = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            books.add(convertRow(row));
+        }
+        return books;
+    }
+
+    /**
+     * 转换数据库结果为目录快照项
+     */
+    private CatalogBook convertRow(Map<String, Object> row) {
+        CatalogBook book = new CatalogBook();
+        book.setId(((Number) row.get("id")).longValue());
+        book.setIsbn((String) row.get("isbn"));
+        book.setTitle((String) row.get("title"));
+        book.setSubtitle((String) row.get("subtitle"));
+        book.setAuthor((String) row.get("author"));
+        book.setTranslator((String) row.get("translator"));
+        book.setPublisher((String) row.get("publisher"));
+        book.setLanguage((String) row.get("language"));
+        book.setCategoryId(row.get("category_id") != null ? ((Number) row.get("category_id")).longValue() : null);
+        book.setCoverImage((String) row.get("cover_image"));
+        book.setSellingPrice(RowValues.parseBigDecimal(row.get("selling_price")));
+        book.setOriginalPrice(RowValues.parseBigDecimal(row.get("original_price")));
+        book.setRating(RowValues.parseBigDecimal(row.get("rating")));
+        book.setPopularity(RowValues.parseInt(row.get("popularity")));
+        book.setSalesVolume(RowValues.parseInt(row.get("sales_volume")));
+        book.setStockQuantity(RowValues.parseInt(row.get("stock_quantity")));
+        book.setPublishDate(RowValues.parseDateTime(row.get("publish_date")));
+        book.setIsHot(RowValues.parseBoolean(row.get("is_hot")));
+        book.setIsNew(RowValues.parseBoolean(row.get("is_new")));
+        book.setIsRecommended(RowValues.parseBoolean(row.get("is_recommended")));
+        book.setUpdatedAt(RowValues.parseDateTime(row.get("updated_at")));
+        return book;
+    }
+}
@@ -0,0 +1,122 @@
+package com.library.catalog;
+
+import com.library.exception.ApiError;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * 图书列表游标（键集分页）
+ * 记录上一页最后一本书的排序键与图书ID（作为并列时的次序），
+ * 编码为不透明的Base64字符串返回给客户端，下一页从该位置之后继续读取
+ */
+public final class BookCursor {
+
+    private static final String SEPARATOR = ":";
+    private static final String NULL_KEY = "n";
+
+    private final BookSortOrder sort;
+    private final Long key; // 排序键：人气值/出版时间(微秒)/售价(分)，出版日期为空时为null
+    private final long id;
+
+    public BookCursor(BookSortOrder sort, Long key, long id) {
+        this.sort = sort;
+        this.key = key;
+        this.id = id;
+    }
+
+    /**
+     * 根据排序方式从图书字段构建游标
+     */
+    public static BookCursor of(BookSortOrder sort, long id, Integer popularity,
+                                LocalDateTime publishDate, BigDecimal sellingPrice) {
+        switch (sort) {
+            case NEWEST:
+                return new BookCursor(sort, publishDate != null ? toEpochMicros(publishDate) : null, id);
+            case PRICE_ASC:
+            case PRICE_DESC:
+                return new BookCursor(sort, RowValues.toCents(sellingPrice), id);
+            default:
+                return new BookCursor(sort, (long) (popularity != null ? popularity : 0), id);
+        }
+    }
+
+    /**
+     * 编码为URL安全的不透明字符串
+     */
+    public String encode() {
+        String raw = sort.getParam() + SEPARATOR + (key != null ? key.toString() : NULL_KEY) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析客户端传回的游标，并校验与本次请求的排序方式一致
+     */
+    public static BookCursor decode(String cursor, BookSortOrder expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR);
+            if (parts.length != 3) {
+                throw new ApiError(400, "无效的分页游标");
+            }
+            BookSortOrder sort = BookSortOrder.fromParam(parts[0]);
+            if (sort != expectedSort || !sort.getParam().equals(parts[0])) {
+                throw new ApiError(400, "分页游标与排序方式不匹配");
+            }
+            Long key = NULL_KEY.equals(parts[1]) ? null : Long.valueOf(parts[1]);
+            if (key == null && sort != BookSortOrder.NEWEST) {
+                throw new ApiError(400, "无效的分页游标");
+            }
+            return new BookCursor(sort, key, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new ApiError(400, "无效的分页游标");
+        }
+    }
+
+    public BookSortOrder getSort() {
+        return sort;
+    }
+
+    public Long getKey() {
+        return key;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * 游标中的人气值
+     */
+    public Integer getPopularity() {
+        return key != null ? key.intValue() : null;
+    }
+
+    /**
+     * 游标中的出版时间（为空表示上一页停在无出版日期的图书中）
+     */
+    public LocalDateTime getPublishDate() {
+        if (key == null) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(key, 1_000_000L),
+                (int) Math.floorMod(key, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+
+    /**
+     * 游标中的售价（元）
+     */
+    public BigDecimal getSellingPrice() {
+        return key != null ? RowValues.fromCents(key) : null;
+    }
+
+    /**
+     * 时间转换为UTC微秒数，与数据库DATETIME(6)精度一致
+     */
+    public static long toEpochMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1000;
+    }
+}
@@ -0,0 +1,180 @@
+package com.library.catalog;
+
+import com.library.model.dto.CacheStatsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 图书详情响应缓存
+ * 缓存详情响应中不常变化的部分（标题、简介、价格计算结果、相关推荐）序列化后的JSON字节，
+ * 不含库存相关字段且去掉了结尾的"}}"；响应时由render拼接实时库存，避免每次重新查询和序列化。
+ * 按缓存字节总数做LRU淘汰并设置过期时间；图书本身或其相关推荐中的任一图书发生变化时失效
+ */
+@Component
+public class BookDetailCache implements CatalogListener {
+
+    private final long maxBytes;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // 被依赖的图书ID -> 依赖它的详情缓存
+    private final Map<Long, Set<Long>> dependentsByBookId = new HashMap<>();
+    private long totalBytes;
+
+    // 统计计数（均在同步块内更新）
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    private static final class Entry {
+        final byte[] head;
+        final long[] dependsOn;
+        final long expiresAt;
+
+        Entry(byte[] head, long[] dependsOn, long expiresAt) {
+            this.head = head;
+            this.dependsOn = dependsOn;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public BookDetailCache(@Value("${book.detail-cache.max-bytes:16777216}") long maxBytes,
+                           @Value("${book.detail-cache.ttl-ms:600000}") long ttlMillis) {
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 拼接实时库存，得到完整响应体
+     * @param head 缓存的静态部分（data对象未闭合）
+     */
+    public static byte[] render(byte[] head, int stock) {
+        byte[] tail = (",\"stock\":" + stock + ",\"isAvailable\":" + (stock > 0) + "}}")
+                .getBytes(StandardCharsets.US_ASCII);
+        byte[] body = Arrays.copyOf(head, head.length + tail.length);
+        System.arraycopy(tail, 0, body, head.length, tail.length);
+        return body;
+    }
+
+    public synchronized Optional<byte[]> get(long bookId) {
+        Entry entry = entries.get(bookId);
+        if (entry == null) {
+            misses++;
+            return Optional.empty();
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            remove(bookId, entry);
+            expirations++;
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+        return Optional.of(entry.head);
+    }
+
+    /**
+     * 写入缓存
+     * @param dependsOn 详情内容引用到的其它图书（相关推荐），它们变化时一并失效
+     */
+    public synchronized void put(long bookId, byte[] head, List<Long> dependsOn) {
+        // 单条超过总容量的不缓存
+        if (head.length > maxBytes) {
+            return;
+        }
+        Entry previous = entries.get(bookId);
+        if (previous != null) {
+            remove(bookId, previous);
+        }
+        long[] dependencies = dependsOn.stream().mapToLong(Long::longValue).filter(id -> id != bookId).toArray();
+        entries.put(bookId, new Entry(head, dependencies, System.currentTimeMillis() + ttlMillis));
+        totalBytes += head.length;
+        dependentsByBookId.computeIfAbsent(bookId, k -> new HashSet<>()).add(bookId);
+        for (long dependency : dependencies) {
+            dependentsByBookId.computeIfAbsent(dependency, k -> new HashSet<>()).add(bookId);
+        }
+        // 超出字节容量时淘汰最久未访问的条目
+        Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<Long, Entry> victim = eldest.next();
+            eldest.remove();
+            unlink(victim.getKey(), victim.getValue());
+            evictions++;
+        }
+    }
+
+    /**
+     * 全量重新加载时（可能有图书被删除或调整分类）清空全部缓存
+     */
+    @Override
+    public synchronized void onCatalogReload(List<CatalogBook> books) {
+        invalidations += entries.size();
+        entries.clear();
+        dependentsByBookId.clear();
+        totalBytes = 0;
+    }
+
+    /**
+     * 图书变更时失效该图书及引用了它的详情
+     */
+    @Override
+    public synchronized void onBooksChanged(List<CatalogBook> books) {
+        for (CatalogBook book : books) {
+            Set<Long> dependents = dependentsByBookId.remove(book.getId());
+            if (dependents == null) {
+                continue;
+            }
+            for (Long dependent : dependents) {
+                Entry entry = entries.remove(dependent);
+                if (entry != null) {
+                    unlink(dependent, entry);
+                    invalidations++;
+                }
+            }
+        }
+    }
+
+    public synchronized CacheStatsDTO stats() {
+        long requests = hits + misses;
+        return new CacheStatsDTO(hits, misses, requests > 0 ? (double) hits / requests : 0.0,
+                evictions, expirations, invalidations, entries.size());
+    }
+
+    private void remove(long bookId, Entry entry) {
+        entries.remove(bookId);
+        unlink(bookId, entry);
+    }
+
+    /**
+     * 扣减占用字节并从反向索引中移除该条目的引用
+     */
+    private void unlink(long bookId, Entry entry) {
+        totalBytes -= entry.head.length;
+        unlinkDependency(bookId, bookId);
+        for (long dependency : entry.dependsOn) {
+            unlinkDependency(dependency, bookId);
+        }
+    }
+
+    private void unlinkDependency(long dependency, long bookId) {
+        Set<Long> dependents = dependentsByBookId.get(dependency);
+        if (dependents != null) {
+            dependents.remove(bookId);
+            if (dependents.isEmpty()) {
+                dependentsByBookId.remove(dependency);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.library.catalog;
+
+/**
+ * 图书列表排序方式
+ * param为接口sort参数的取值；SQL排序由BookQueryBuilder生成，内存排序由CatalogSnapshot的各排序下标数组提供
+ */
+public enum BookSortOrder {
+    RECOMMENDED("recommended"), // 按人气值降序
+    NEWEST("newest"),           // 按出版日期降序
+    PRICE_ASC("price_asc"),     // 按售价升序
+    PRICE_DESC("price_desc");   // 按售价降序
+
+    private final String param;
+
+    BookSortOrder(String param) {
+        this.param = param;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    /**
+     * 解析请求参数，未知取值按默认的recommended处理
+     */
+    public static BookSortOrder fromParam(String param) {
+        for (BookSortOrder order : values()) {
+            if (order.param.equalsIgnoreCase(param)) {
+                return order;
+            }
+        }
+        return RECOMMENDED;
+    }
+}
@@ -0,0 +1,37 @@
+package com.library.catalog;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 图书目录快照项
+ * 由BookCatalogSync从books表批量加载，供各类内存索引（搜索、排序、分面等）使用，
+ * 只包含列表展示与检索相关的字段，不含简介等大文本
+ */
+@Data
+public class CatalogBook {
+    private Long id;
+    private String isbn;
+    private String title;
+    private String subtitle;
+    private String author;
+    private String translator;
+    private String publisher;
+    private String language;
+    private Long categoryId; // books.category_id（主分类）
+    private long[] categoryIds = new long[0]; // book_categories中关联的全部分类及其祖先分类（升序）
+    private String coverImage;
+    private BigDecimal sellingPrice;
+    private BigDecimal originalPrice;
+    private BigDecimal rating;
+    private Integer popularity;
+    private Integer salesVolume;
+    private Integer stockQuantity;
+    private LocalDateTime publishDate;
+    private Boolean isHot;
+    private Boolean isNew;
+    private Boolean isRecommended;
+    private LocalDateTime updatedAt;
+}
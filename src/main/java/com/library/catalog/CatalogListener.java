@@ -0,0 +1,23 @@
+package com.library.catalog;
+
+import java.util.List;
+
+/**
+ * 图书目录变更监听接口
+ * 内存索引实现此接口并注册为Spring Bean后，由BookCatalogSync统一推送全量与增量数据，
+ * 避免每个索引各自扫描books表
+ */
+public interface CatalogListener {
+
+    /**
+     * 全量加载完成（启动时及定期全量校准时调用）
+     * @param books 当前全部图书
+     */
+    void onCatalogReload(List<CatalogBook> books);
+
+    /**
+     * 图书新增或修改（按updated_at增量同步时调用）
+     * @param books 发生变化的图书（最新数据）
+     */
+    void onBooksChanged(List<CatalogBook> books);
+}
@@ -0,0 +1,641 @@
+package com.library.catalog;
+
+import com.library.model.dto.BookListItemDTO;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntBinaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * 图书目录列式快照（不可变）
+ * 列表展示所需字段按列存放在原始类型数组中（价格以分存储），书名/作者/封面存为去重字符串表的下标。
+ * 全部图书及每个分类都预先按四种排序方式排好下标排列，任意一页都只是数组切片，O(limit)。
+ * 增量变更通过patch生成新快照（写时复制，仅重排受影响的分类与排序），由CatalogSnapshotStore整体替换：
+ * 取值未变的列数组与前一版快照共享，新增图书写入数组尾部的预留容量（旧快照只读取自身size以内的下标）；
+ * 字符串表只追加不重建，改名等遗留的无用字符串累积到一定数量后整表压缩
+ */
+public final class CatalogSnapshot {
+
+    // 金额/评分为NULL时的占位值（售价为非空列，排序时防御性地按0处理）
+    private static final long NULL_CENTS = Long.MIN_VALUE;
+    private static final BookSortOrder[] SORTS = BookSortOrder.values();
+    // 字符串表中无用字符串的容忍量：超过上次压缩时条目数的一倍再加此值时整表压缩
+    private static final int STRING_TABLE_SLACK = 1024;
+
+    public static final CatalogSnapshot EMPTY = build(Collections.emptyList(), 0L);
+
+    private final long version;
+    private final int size;
+    private final long[] ids;
+    private final int[] popularity;
+    private final long[] publishEpoch;   // UTC微秒，无出版日期为Long.MIN_VALUE
+    private final long[] priceCents;
+    private final long[] originalPriceCents;
+    private final long[] ratingHundredths;
+    private final int[] titleRefs;
+    private final int[] authorRefs;
+    private final int[] coverRefs;
+    private final String[] titles;
+    private final String[] authors;
+    private final String[] covers;
+    private final long[][] categoryIds;
+    private final StringTable titleTable;
+    private final StringTable authorTable;
+    private final StringTable coverTable;
+
+    private final int[] idOrder;                      // 按图书ID升序排列的下标，用于二分查找
+    private final int[][] allOrders;                  // 全部图书：排序方式序号 -> 下标排列
+    private final Map<Long, int[][]> categoryOrders;  // 分类ID -> 排序方式序号 -> 下标排列
+
+    private CatalogSnapshot(long version, Builder builder, int[] idOrder,
+                            int[][] allOrders, Map<Long, int[][]> categoryOrders) {
+        this.version = version;
+        this.size = builder.size;
+        this.ids = builder.ids;
+        this.popularity = builder.popularity;
+        this.publishEpoch = builder.publishEpoch;
+        this.priceCents = builder.priceCents;
+        this.originalPriceCents = builder.originalPriceCents;
+        this.ratingHundredths = builder.ratingHundredths;
+        this.titleRefs = builder.titleRefs;
+        this.authorRefs = builder.authorRefs;
+        this.coverRefs = builder.coverRefs;
+        this.titles = builder.titles.values();
+        this.authors = builder.authors.values();
+        this.covers = builder.covers.values();
+        this.categoryIds = builder.categoryIds;
+        this.titleTable = builder.titles;
+        this.authorTable = builder.authors;
+        this.coverTable = builder.covers;
+        this.idOrder = idOrder;
+        this.allOrders = allOrders;
+        this.categoryOrders = categoryOrders;
+    }
+
+    /**
+     * 由全量目录构建快照
+     */
+    public static CatalogSnapshot build(List<CatalogBook> books, long version) {
+        Builder builder = new Builder(books.size());
+        for (CatalogBook book : books) {
+            builder.set(builder.size++, book);
+        }
+        builder.titles.markCompacted();
+        builder.authors.markCompacted();
+        builder.covers.markCompacted();
+        int[] positions = IntStream.range(0, builder.size).toArray();
+        int[] idOrder = sortPositions(positions, (a, b) -> Long.compare(builder.ids[a], builder.ids[b]));
+
+        int[][] allOrders = builder.sortAll(positions);
+        Map<Long, List<Integer>> grouped = new HashMap<>();
+        for (int pos = 0; pos < builder.size; pos++) {
+            for (long categoryId : builder.categoryIds[pos]) {
+                grouped.computeIfAbsent(categoryId, k -> new ArrayList<>()).add(pos);
+            }
+        }
+        Map<Long, int[][]> categoryOrders = new HashMap<>();
+        grouped.forEach((categoryId, members) -> categoryOrders.put(
+                categoryId, builder.sortAll(members.stream().mapToInt(Integer::intValue).toArray())));
+        return new CatalogSnapshot(version, builder, idOrder, allOrders, categoryOrders);
+    }
+
+    /**
+     * 应用增量变更，返回新快照（当前快照保持不变，正在读取的请求不受影响）
+     * 只有排序键或分类归属发生变化的图书才会触发对应排列的重排，仅库存等字段变化时排列直接复用；
+     * 新快照与当前快照共享未变化的列数组和字符串表，因此只能在最新快照上调用（由CatalogSnapshotStore串行保证）
+     */
+    public CatalogSnapshot patch(List<CatalogBook> changed, long newVersion) {
+        // 同一批次中同一本书只保留最后一次变更
+        Map<Long, CatalogBook> latest = new HashMap<>();
+        for (CatalogBook book : changed) {
+            latest.put(book.getId(), book);
+        }
+        List<CatalogBook> inserts = new ArrayList<>();
+        for (CatalogBook book : latest.values()) {
+            if (positionOf(book.getId()) < 0) {
+                inserts.add(book);
+            }
+        }
+        inserts.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+
+        Builder builder = new Builder(this, size + inserts.size());
+        List<Integer> changedList = new ArrayList<>();
+        for (CatalogBook book : latest.values()) {
+            int pos = positionOf(book.getId());
+            if (pos >= 0) {
+                builder.set(pos, book);
+                changedList.add(pos);
+            }
+        }
+        for (CatalogBook book : inserts) {
+            int pos = builder.size++;
+            builder.set(pos, book);
+            changedList.add(pos);
+        }
+        builder.compactStrings();
+        int[] changedPositions = changedList.stream().mapToInt(Integer::intValue).toArray();
+
+        // ID顺序：新增ID均大于现有最大ID时直接追加，否则重新排序
+        int[] newIdOrder;
+        long maxId = size > 0 ? ids[idOrder[size - 1]] : Long.MIN_VALUE;
+        if (inserts.isEmpty() || inserts.get(0).getId() > maxId) {
+            newIdOrder = Arrays.copyOf(idOrder, builder.size);
+            for (int i = size; i < builder.size; i++) {
+                newIdOrder[i] = i;
+            }
+        } else {
+            newIdOrder = sortPositions(IntStream.range(0, builder.size).toArray(),
+                    (a, b) -> Long.compare(builder.ids[a], builder.ids[b]));
+        }
+
+        // 各排序方式下排序键发生变化的图书（新增图书视为全部变化）
+        boolean[][] keyChanged = new boolean[SORTS.length][changedPositions.length];
+        Set<Long> affectedCategories = new HashSet<>();
+        for (int i = 0; i < changedPositions.length; i++) {
+            int pos = changedPositions[i];
+            for (BookSortOrder sort : SORTS) {
+                keyChanged[sort.ordinal()][i] = pos >= size || sortKey(sort, pos) != builder.sortKey(sort, pos);
+            }
+            for (long categoryId : builder.categoryIds[pos]) {
+                affectedCategories.add(categoryId);
+            }
+            if (pos < size) {
+                for (long categoryId : categoryIds[pos]) {
+                    affectedCategories.add(categoryId);
+                }
+            }
+        }
+
+        Reorderer reorderer = new Reorderer(builder, changedPositions, keyChanged);
+        int[][] newAllOrders = new int[SORTS.length][];
+        for (BookSortOrder sort : SORTS) {
+            newAllOrders[sort.ordinal()] = reorderer.reorder(
+                    allOrders[sort.ordinal()], sort, pos -> pos < size, pos -> true);
+        }
+
+        Map<Long, int[][]> newCategoryOrders = new HashMap<>(categoryOrders);
+        for (long categoryId : affectedCategories) {
+            int[][] old = categoryOrders.get(categoryId);
+            int[][] updated = new int[SORTS.length][];
+            for (BookSortOrder sort : SORTS) {
+                updated[sort.ordinal()] = reorderer.reorder(
+                        old != null ? old[sort.ordinal()] : new int[0], sort,
+                        pos -> pos < size && Arrays.binarySearch(categoryIds[pos], categoryId) >= 0,
+                        pos -> Arrays.binarySearch(builder.categoryIds[pos], categoryId) >= 0);
+            }
+            if (updated[0].length > 0) {
+                newCategoryOrders.put(categoryId, updated);
+            } else {
+                newCategoryOrders.remove(categoryId);
+            }
+        }
+
+        return new CatalogSnapshot(newVersion, builder, newIdOrder, newAllOrders, newCategoryOrders);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 按图书ID查找下标，不存在返回-1
+     */
+    public int positionOf(long bookId) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = ids[idOrder[mid]];
+            if (midId < bookId) {
+                low = mid + 1;
+            } else if (midId > bookId) {
+                high = mid - 1;
+            } else {
+                return idOrder[mid];
+            }
+        }
+        return -1;
+    }
+
+    public long bookIdAt(int pos) {
+        return ids[pos];
+    }
+
+    public int popularityAt(int pos) {
+        return popularity[pos];
+    }
+
+    /**
+     * 下标对应的图书是否属于该分类或其子分类，下标为负时返回false
+     */
+    public boolean inCategory(int pos, long categoryId) {
+        return pos >= 0 && Arrays.binarySearch(categoryIds[pos], categoryId) >= 0;
+    }
+
+    /**
+     * 热门图书（人气值降序）
+     */
+    public List<BookListItemDTO> hotBooks(int limit) {
+        return page(null, BookSortOrder.RECOMMENDED, 0, limit);
+    }
+
+    /**
+     * 新书上架（出版日期降序）
+     */
+    public List<BookListItemDTO> newBooks(int limit) {
+        return page(null, BookSortOrder.NEWEST, 0, limit);
+    }
+
+    /**
+     * 图书数量
+     * @param categoryId 分类ID，为null表示全部图书（包含子分类中的图书，与category_closure口径一致）
+     */
+    public int count(Long categoryId) {
+        int[] order = order(categoryId, BookSortOrder.RECOMMENDED);
+        return order != null ? order.length : 0;
+    }
+
+    /**
+     * 分页读取：直接切取预排序的下标排列
+     * @param categoryId 分类ID，为null表示全部图书
+     */
+    public List<BookListItemDTO> page(Long categoryId, BookSortOrder sort, int offset, int limit) {
+        int[] order = order(categoryId, sort);
+        if (order == null || offset >= order.length) {
+            return new ArrayList<>();
+        }
+        int to = (int) Math.min((long) offset + limit, order.length);
+        List<BookListItemDTO> items = new ArrayList<>(to - offset);
+        for (int i = offset; i < to; i++) {
+            items.add(toListItem(order[i]));
+        }
+        return items;
+    }
+
+    /**
+     * 按下标读取列表项
+     */
+    public BookListItemDTO toListItem(int pos) {
+        BookListItemDTO item = new BookListItemDTO();
+        item.setId(ids[pos]);
+        item.setTitle(lookup(titles, titleRefs[pos]));
+        item.setAuthor(lookup(authors, authorRefs[pos]));
+        item.setCoverImage(lookup(covers, coverRefs[pos]));
+        item.setPrice(toDecimal(priceCents[pos]));
+        item.setOriginalPrice(toDecimal(originalPriceCents[pos]));
+        item.setRating(toDecimal(ratingHundredths[pos]));
+        return item;
+    }
+
+    private int[] order(Long categoryId, BookSortOrder sort) {
+        if (categoryId == null) {
+            return allOrders[sort.ordinal()];
+        }
+        int[][] orders = categoryOrders.get(categoryId);
+        return orders != null ? orders[sort.ordinal()] : null;
+    }
+
+    private long sortKey(BookSortOrder sort, int pos) {
+        return sortKey(sort, pos, popularity, publishEpoch, priceCents);
+    }
+
+    private static long sortKey(BookSortOrder sort, int pos, int[] popularity, long[] publishEpoch, long[] priceCents) {
+        switch (sort) {
+            case NEWEST:
+                return publishEpoch[pos];
+            case PRICE_ASC:
+            case PRICE_DESC:
+                return priceCents[pos] != NULL_CENTS ? priceCents[pos] : 0L;
+            default:
+                return popularity[pos];
+        }
+    }
+
+    private static String lookup(String[] table, int ref) {
+        return ref >= 0 ? table[ref] : null;
+    }
+
+    private static BigDecimal toDecimal(long cents) {
+        return cents != NULL_CENTS ? RowValues.fromCents(cents) : null;
+    }
+
+    private static long toCentsOrNull(BigDecimal value) {
+        return value != null ? RowValues.toCents(value) : NULL_CENTS;
+    }
+
+    private static int[] sortPositions(int[] positions, IntBinaryOperator cmp) {
+        return IntStream.of(positions).boxed().sorted(cmp::applyAsInt).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 判断下标是否属于某个视图（全部图书或某分类）
+     */
+    @FunctionalInterface
+    private interface Membership {
+        boolean contains(int pos);
+    }
+
+    /**
+     * 增量重排：从旧排列中剔除受影响的下标，将其中仍属于视图的部分单独排序后与剩余部分归并，
+     * 复杂度O(n + k log k)；没有受影响的下标时直接复用旧排列
+     */
+    private static final class Reorderer {
+        private final Builder builder;
+        private final int[] changedPositions;
+        private final boolean[][] keyChanged;
+        private final boolean[] touched;
+
+        Reorderer(Builder builder, int[] changedPositions, boolean[][] keyChanged) {
+            this.builder = builder;
+            this.changedPositions = changedPositions;
+            this.keyChanged = keyChanged;
+            this.touched = new boolean[builder.size];
+        }
+
+        int[] reorder(int[] oldOrder, BookSortOrder sort, Membership wasMember, Membership isMember) {
+            List<Integer> marked = new ArrayList<>();
+            List<Integer> inserted = new ArrayList<>();
+            int removed = 0;
+            for (int i = 0; i < changedPositions.length; i++) {
+                int pos = changedPositions[i];
+                boolean before = wasMember.contains(pos);
+                boolean after = isMember.contains(pos);
+                // 归属变化必然影响排列；归属不变时只看该排序方式的排序键是否变化
+                if ((before || after) && (before != after || keyChanged[sort.ordinal()][i])) {
+                    touched[pos] = true;
+                    marked.add(pos);
+                    removed += before ? 1 : 0;
+                    if (after) {
+                        inserted.add(pos);
+                    }
+                }
+            }
+            if (marked.isEmpty()) {
+                return oldOrder;
+            }
+
+            IntBinaryOperator cmp = builder.comparator(sort);
+            int[] sortedInserted = sortPositions(inserted.stream().mapToInt(Integer::intValue).toArray(), cmp);
+            int[] result = new int[oldOrder.length - removed + sortedInserted.length];
+            int r = 0;
+            int c = 0;
+            for (int pos : oldOrder) {
+                if (touched[pos]) {
+                    continue;
+                }
+                while (c < sortedInserted.length && cmp.applyAsInt(sortedInserted[c], pos) < 0) {
+                    result[r++] = sortedInserted[c++];
+                }
+                result[r++] = pos;
+            }
+            while (c < sortedInserted.length) {
+                result[r++] = sortedInserted[c++];
+            }
+            for (int pos : marked) {
+                touched[pos] = false;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 快照构建器：填充列数组与去重字符串表
+     * 增量构建时先引用来源快照的列数组，某列在已有下标上的取值首次变化时才复制该列；
+     * 追加的图书直接写入预留容量，容量不足时按1.5倍整体扩容
+     */
+    private static final class Builder {
+        final int baseSize;   // 来源快照的图书数，小于该值的下标可能与来源快照共享
+        int size;
+        long[] ids;
+        int[] popularity;
+        long[] publishEpoch;
+        long[] priceCents;
+        long[] originalPriceCents;
+        long[] ratingHundredths;
+        int[] titleRefs;
+        int[] authorRefs;
+        int[] coverRefs;
+        long[][] categoryIds;
+        StringTable titles;
+        StringTable authors;
+        StringTable covers;
+        // 本次构建新分配的列数组，可以原地修改
+        private final Set<Object> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Builder(int capacity) {
+            baseSize = 0;
+            allocate(capacity);
+            titles = new StringTable();
+            authors = new StringTable();
+            covers = new StringTable();
+        }
+
+        Builder(CatalogSnapshot source, int newSize) {
+            baseSize = source.size;
+            size = source.size;
+            ids = source.ids;
+            popularity = source.popularity;
+            publishEpoch = source.publishEpoch;
+            priceCents = source.priceCents;
+            originalPriceCents = source.originalPriceCents;
+            ratingHundredths = source.ratingHundredths;
+            titleRefs = source.titleRefs;
+            authorRefs = source.authorRefs;
+            coverRefs = source.coverRefs;
+            categoryIds = source.categoryIds;
+            titles = source.titleTable;
+            authors = source.authorTable;
+            covers = source.coverTable;
+            if (newSize > ids.length) {
+                grow(Math.max(newSize, ids.length + (ids.length >> 1) + 16));
+            }
+        }
+
+        private void allocate(int capacity) {
+            ids = own(new long[capacity]);
+            popularity = own(new int[capacity]);
+            publishEpoch = own(new long[capacity]);
+            priceCents = own(new long[capacity]);
+            originalPriceCents = own(new long[capacity]);
+            ratingHundredths = own(new long[capacity]);
+            titleRefs = own(new int[capacity]);
+            authorRefs = own(new int[capacity]);
+            coverRefs = own(new int[capacity]);
+            categoryIds = own(new long[capacity][]);
+        }
+
+        private void grow(int capacity) {
+            ids = own(Arrays.copyOf(ids, capacity));
+            popularity = own(Arrays.copyOf(popularity, capacity));
+            publishEpoch = own(Arrays.copyOf(publishEpoch, capacity));
+            priceCents = own(Arrays.copyOf(priceCents, capacity));
+            originalPriceCents = own(Arrays.copyOf(originalPriceCents, capacity));
+            ratingHundredths = own(Arrays.copyOf(ratingHundredths, capacity));
+            titleRefs = own(Arrays.copyOf(titleRefs, capacity));
+            authorRefs = own(Arrays.copyOf(authorRefs, capacity));
+            coverRefs = own(Arrays.copyOf(coverRefs, capacity));
+            categoryIds = own(Arrays.copyOf(categoryIds, capacity));
+        }
+
+        private <T> T own(T column) {
+            owned.add(column);
+            return column;
+        }
+
+        private boolean shared(Object column, int pos) {
+            return pos < baseSize && !owned.contains(column);
+        }
+
+        void set(int pos, CatalogBook book) {
+            ids = put(ids, pos, book.getId());
+            popularity = put(popularity, pos, book.getPopularity() != null ? book.getPopularity() : 0);
+            publishEpoch = put(publishEpoch, pos, book.getPublishDate() != null
+                    ? BookCursor.toEpochMicros(book.getPublishDate()) : Long.MIN_VALUE);
+            priceCents = put(priceCents, pos, toCentsOrNull(book.getSellingPrice()));
+            originalPriceCents = put(originalPriceCents, pos, toCentsOrNull(book.getOriginalPrice()));
+            ratingHundredths = put(ratingHundredths, pos, toCentsOrNull(book.getRating()));
+            titleRefs = put(titleRefs, pos, titles.ref(book.getTitle()));
+            authorRefs = put(authorRefs, pos, authors.ref(book.getAuthor()));
+            coverRefs = put(coverRefs, pos, covers.ref(book.getCoverImage()));
+            categoryIds = put(categoryIds, pos, book.getCategoryIds() != null ? book.getCategoryIds() : new long[0]);
+        }
+
+        private long[] put(long[] column, int pos, long value) {
+            if (pos < baseSize && column[pos] == value) {
+                return column;
+            }
+            long[] target = shared(column, pos) ? own(column.clone()) : column;
+            target[pos] = value;
+            return target;
+        }
+
+        private int[] put(int[] column, int pos, int value) {
+            if (pos < baseSize && column[pos] == value) {
+                return column;
+            }
+            int[] target = shared(column, pos) ? own(column.clone()) : column;
+            target[pos] = value;
+            return target;
+        }
+
+        private long[][] put(long[][] column, int pos, long[] value) {
+            if (pos < baseSize && Arrays.equals(column[pos], value)) {
+                return column;
+            }
+            long[][] target = shared(column, pos) ? own(column.clone()) : column;
+            target[pos] = value;
+            return target;
+        }
+
+        /**
+         * 压缩无用字符串过多的字符串表：按当前各下标的取值重新建表并重写对应的下标列
+         */
+        void compactStrings() {
+            if (titles.bloated()) {
+                StringTable compacted = new StringTable();
+                titleRefs = own(compacted.adopt(titles, titleRefs, size));
+                titles = compacted;
+            }
+            if (authors.bloated()) {
+                StringTable compacted = new StringTable();
+                authorRefs = own(compacted.adopt(authors, authorRefs, size));
+                authors = compacted;
+            }
+            if (covers.bloated()) {
+                StringTable compacted = new StringTable();
+                coverRefs = own(compacted.adopt(covers, coverRefs, size));
+                covers = compacted;
+            }
+        }
+
+        long sortKey(BookSortOrder sort, int pos) {
+            return CatalogSnapshot.sortKey(sort, pos, popularity, publishEpoch, priceCents);
+        }
+
+        /**
+         * 排名比较：先按排序字段，再按图书ID升序，与BookQueryBuilder的ORDER BY一致
+         */
+        IntBinaryOperator comparator(BookSortOrder sort) {
+            boolean ascending = sort == BookSortOrder.PRICE_ASC;
+            return (a, b) -> {
+                long keyA = sortKey(sort, a);
+                long keyB = sortKey(sort, b);
+                int result = ascending ? Long.compare(keyA, keyB) : Long.compare(keyB, keyA);
+                return result != 0 ? result : Long.compare(ids[a], ids[b]);
+            };
+        }
+
+        int[][] sortAll(int[] positions) {
+            int[][] orders = new int[SORTS.length][];
+            for (BookSortOrder sort : SORTS) {
+                orders[sort.ordinal()] = sortPositions(positions, comparator(sort));
+            }
+            return orders;
+        }
+    }
+
+    /**
+     * 去重字符串表：相同取值只保存一份，列中存下标
+     * 只追加不修改，同一系列快照共享一张表；各快照在构造时取得当时的值数组，只会读取自己写入过的下标。
+     * 值数组扩容时换新数组，旧快照继续读取旧数组
+     */
+    private static final class StringTable {
+        private String[] values = new String[16];
+        private int count;
+        private int compactedCount;   // 上次全量建表或压缩后的条目数
+        private final Map<String, Integer> refs = new HashMap<>();
+
+        int ref(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer ref = refs.get(value);
+            if (ref == null) {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count + (count >> 1));
+                }
+                ref = count;
+                values[count++] = value;
+                refs.put(value, ref);
+            }
+            return ref;
+        }
+
+        void markCompacted() {
+            compactedCount = count;
+        }
+
+        boolean bloated() {
+            return count > 2 * compactedCount + STRING_TABLE_SLACK;
+        }
+
+        /**
+         * 以另一张表中仍被引用的字符串建表，返回重写后的下标列（容量与原列一致）
+         */
+        int[] adopt(StringTable source, int[] sourceRefs, int size) {
+            int[] result = new int[sourceRefs.length];
+            for (int pos = 0; pos < size; pos++) {
+                result[pos] = ref(lookup(source.values, sourceRefs[pos]));
+            }
+            markCompacted();
+            return result;
+        }
+
+        String[] values() {
+            return values;
+        }
+    }
+}
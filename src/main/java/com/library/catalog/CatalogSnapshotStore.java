@@ -0,0 +1,43 @@
+package com.library.catalog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 图书目录快照持有者
+ * 全量加载时重建快照，增量变更时以写时复制方式生成新快照，通过volatile引用整体替换；
+ * 读请求取得引用后全程读取同一份不可变快照，无需加锁
+ */
+@Slf4j
+@Component
+public class CatalogSnapshotStore implements CatalogListener {
+
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.EMPTY;
+    private volatile boolean ready = false;
+    private long version = 0L;
+
+    @Override
+    public synchronized void onCatalogReload(List<CatalogBook> books) {
+        snapshot = CatalogSnapshot.build(books, ++version);
+        ready = true;
+        log.info("图书目录快照已重建: 版本={}, 图书数={}", version, books.size());
+    }
+
+    @Override
+    public synchronized void onBooksChanged(List<CatalogBook> books) {
+        if (!ready || books.isEmpty()) {
+            return;
+        }
+        snapshot = snapshot.patch(books, ++version);
+    }
+
+    /**
+     * 当前快照（未完成首次加载时为空）
+     */
+    public Optional<CatalogSnapshot> current() {
+        return ready ? Optional.of(snapshot) : Optional.empty();
+    }
+}
@@ -0,0 +1,178 @@
+package com.library.category;
+
+import com.library.repository.CategoryClosureRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分类层级（闭包）
+ * 由categories.parent_id计算每个分类的全部祖先和后代（均包含自身），内存中保存为不可变结构，
+ * 同时整体写入category_closure供SQL按祖先分类一次连接取得子树。
+ * 定期读取分类的父子关系（分类表很小），与当前结构一致时不做任何处理，只有层级变化时才重建并递增版本号；
+ * 目录同步据版本号把图书的分类扩展为包含全部祖先分类，使浏览上级分类时包含子分类中的图书
+ */
+@Slf4j
+@Component
+public class CategoryHierarchy {
+
+    private final CategoryClosureRepository categoryClosureRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Closure closure = Closure.EMPTY;
+    private volatile boolean ready = false;
+
+    /**
+     * 不可变闭包
+     */
+    private static final class Closure {
+        static final Closure EMPTY = new Closure(0L, Map.of(), Map.of(), Map.of());
+
+        final long version;
+        final Map<Long, Long> parents;        // 分类ID -> 父分类ID（顶级为null）
+        final Map<Long, long[]> ancestors;    // 分类ID -> 自身及全部祖先（升序）
+        final Map<Long, long[]> descendants;  // 分类ID -> 自身及全部后代（升序）
+
+        Closure(long version, Map<Long, Long> parents, Map<Long, long[]> ancestors, Map<Long, long[]> descendants) {
+            this.version = version;
+            this.parents = parents;
+            this.ancestors = ancestors;
+            this.descendants = descendants;
+        }
+    }
+
+    public CategoryHierarchy(CategoryClosureRepository categoryClosureRepository,
+                             TransactionTemplate transactionTemplate) {
+        this.categoryClosureRepository = categoryClosureRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * 先于目录全量加载执行，首次加载即可按闭包扩展图书分类
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    /**
+     * 检查分类层级是否变化，变化时重建内存闭包和category_closure表
+     */
+    @Scheduled(fixedDelayString = "${category.closure.check-ms:60000}",
+            initialDelayString = "${category.closure.check-ms:60000}")
+    public synchronized void refresh() {
+        Map<Long, Long> parents = new HashMap<>();
+        for (Map<String, Object> row : categoryClosureRepository.findParentLinks()) {
+            Object parentId = row.get("parent_id");
+            parents.put(((Number) row.get("id")).longValue(),
+                    parentId != null ? ((Number) parentId).longValue() : null);
+        }
+        if (ready && parents.equals(closure.parents)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Closure built = build(parents, closure.version + 1);
+        List<SqlParameterSource> rows = new ArrayList<>();
+        built.ancestors.forEach((descendantId, ancestorIds) -> {
+            for (long ancestorId : ancestorIds) {
+                rows.add(new MapSqlParameterSource()
+                        .addValue("ancestorId", ancestorId)
+                        .addValue("descendantId", descendantId)
+                        .addValue("depth", depth(parents, descendantId, ancestorId)));
+            }
+        });
+        transactionTemplate.executeWithoutResult(status ->
+                categoryClosureRepository.replaceAll(rows.toArray(new SqlParameterSource[0])));
+        closure = built;
+        ready = true;
+        log.info("分类闭包已重建: 版本={}, 分类数={}, 闭包记录数={}, 耗时{}ms",
+                built.version, parents.size(), rows.size(), System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 层级版本号，每次重建递增
+     */
+    public long version() {
+        return closure.version;
+    }
+
+    /**
+     * 分类自身及全部后代分类ID；未知分类只返回自身
+     */
+    public long[] descendantsOf(long categoryId) {
+        long[] ids = closure.descendants.get(categoryId);
+        return ids != null ? ids.clone() : new long[]{categoryId};
+    }
+
+    /**
+     * 把图书直接关联的分类扩展为包含全部祖先分类（升序去重）
+     */
+    public long[] expand(long[] categoryIds) {
+        Closure current = closure;
+        if (categoryIds.length == 0 || current.ancestors.isEmpty()) {
+            return categoryIds;
+        }
+        Set<Long> expanded = new HashSet<>();
+        for (long categoryId : categoryIds) {
+            long[] ancestorIds = current.ancestors.get(categoryId);
+            if (ancestorIds == null) {
+                expanded.add(categoryId);
+                continue;
+            }
+            for (long ancestorId : ancestorIds) {
+                expanded.add(ancestorId);
+            }
+        }
+        return expanded.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    /**
+     * 沿父链计算每个分类的祖先（父分类不存在或出现环时停止），再反转得到后代
+     */
+    private static Closure build(Map<Long, Long> parents, long version) {
+        Map<Long, long[]> ancestors = new HashMap<>();
+        Map<Long, List<Long>> descendantLists = new HashMap<>();
+        for (Long categoryId : parents.keySet()) {
+            Set<Long> chain = new HashSet<>();
+            Long current = categoryId;
+            while (current != null && parents.containsKey(current) && chain.add(current)) {
+                descendantLists.computeIfAbsent(current, k -> new ArrayList<>()).add(categoryId);
+                current = parents.get(current);
+            }
+            ancestors.put(categoryId, chain.stream().mapToLong(Long::longValue).sorted().toArray());
+        }
+        Map<Long, long[]> descendants = new HashMap<>();
+        descendantLists.forEach((categoryId, ids) ->
+                descendants.put(categoryId, ids.stream().mapToLong(Long::longValue).sorted().toArray()));
+        return new Closure(version, new HashMap<>(parents), ancestors, descendants);
+    }
+
+    private static int depth(Map<Long, Long> parents, long descendantId, long ancestorId) {
+        int depth = 0;
+        Long current = descendantId;
+        while (current != null && current != ancestorId) {
+            current = parents.get(current);
+            depth++;
+        }
+        return depth;
+    }
+}
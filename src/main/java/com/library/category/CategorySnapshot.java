@@ -0,0 +1,215 @@
+package com.library.category;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.model.dto.CategoryDTO;
+import com.library.model.dto.response.ApiResponse;
+import com.library.model.dto.response.SerializedResponse;
+import com.library.model.entity.Category;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 分类快照（不可变）
+ * 激活分类的平铺列表、以children嵌套的分类树，以及按ID、slug的哈希索引；
+ * 每个分类附带图书数、售价区间等统计值（来自CategoryStatsIndex）；
+ * 各接口的响应体在构建时一次性序列化，全部响应体的摘要作为强ETag，登记到ResourceVersions；
+ * 停用分类、统计值变化不会推高最大updated_at，因此Last-Modified取最大updated_at与快照构建时间中的较大者。
+ * 父分类未激活的分类不出现在树中，但仍可按ID、slug查询。快照内的DTO为共享对象，调用方只读
+ */
+public final class CategorySnapshot {
+
+    static final String LIST_MESSAGE = "分类列表获取成功";
+    static final String TREE_MESSAGE = "分类树形结构获取成功";
+    static final String DETAIL_MESSAGE = "分类获取成功";
+
+    private final long version;
+    private final List<Category> source;
+    private final long statsVersion;
+    private final List<CategoryDTO> categories;
+    private final List<CategoryDTO> tree;
+    private final Map<Long, CategoryDTO> byId;
+    private final Map<String, CategoryDTO> bySlug;
+    private final SerializedResponse listResponse;
+    private final SerializedResponse treeResponse;
+    private final Map<Long, SerializedResponse> detailResponses;
+    private final String digest;
+    private final long lastModified;
+
+    private CategorySnapshot(long version, List<Category> source, long statsVersion, List<CategoryDTO> categories,
+                             List<CategoryDTO> tree, Map<Long, CategoryDTO> byId, Map<String, CategoryDTO> bySlug,
+                             SerializedResponse listResponse, SerializedResponse treeResponse,
+                             Map<Long, SerializedResponse> detailResponses, String digest, long lastModified) {
+        this.version = version;
+        this.source = source;
+        this.statsVersion = statsVersion;
+        this.categories = categories;
+        this.tree = tree;
+        this.byId = byId;
+        this.bySlug = bySlug;
+        this.listResponse = listResponse;
+        this.treeResponse = treeResponse;
+        this.detailResponses = detailResponses;
+        this.digest = digest;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * 由激活分类（已按显示顺序、名称排序）构建快照
+     * @param stats 分类ID -> 统计值（分类下没有图书时为null）
+     */
+    static CategorySnapshot build(List<Category> active, long version, Function<Long, CategorySummary> stats,
+                                  long statsVersion, ObjectMapper objectMapper) throws JsonProcessingException {
+        Map<Long, Category> entities = new HashMap<>();
+        for (Category category : active) {
+            entities.put(category.getId(), category);
+        }
+        List<CategoryDTO> categories = new ArrayList<>(active.size());
+        Map<Long, CategoryDTO> nodes = new HashMap<>();
+        for (Category category : active) {
+            Category parent = category.getParentId() != null ? entities.get(category.getParentId()) : null;
+            CategorySummary summary = stats.apply(category.getId());
+            categories.add(toDTO(category, parent, summary, null));
+            nodes.put(category.getId(), toDTO(category, parent, summary, new ArrayList<>()));
+        }
+        // 按排序后的顺序挂到父节点下，子分类保持同样的显示顺序
+        List<CategoryDTO> tree = new ArrayList<>();
+        for (Category category : active) {
+            CategoryDTO node = nodes.get(category.getId());
+            if (category.getParentId() == null) {
+                tree.add(node);
+            } else if (nodes.containsKey(category.getParentId())) {
+                nodes.get(category.getParentId()).getChildren().add(node);
+            }
+        }
+
+        SerializedResponse listResponse = serialize(objectMapper, LIST_MESSAGE, categories);
+        SerializedResponse treeResponse = serialize(objectMapper, TREE_MESSAGE, tree);
+        MessageDigest md5 = md5();
+        md5.update(listResponse.getBody());
+        md5.update(treeResponse.getBody());
+        Map<Long, CategoryDTO> byId = new HashMap<>();
+        Map<String, CategoryDTO> bySlug = new HashMap<>();
+        Map<Long, SerializedResponse> detailResponses = new HashMap<>();
+        for (Category category : active) {
+            CategoryDTO node = nodes.get(category.getId());
+            byId.put(category.getId(), node);
+            bySlug.put(category.getSlug(), node);
+            SerializedResponse detail = serialize(objectMapper, DETAIL_MESSAGE, node);
+            md5.update(detail.getBody());
+            detailResponses.put(category.getId(), detail);
+        }
+        long lastModified = active.stream()
+                .map(Category::getUpdatedAt)
+                .filter(updatedAt -> updatedAt != null)
+                .max(LocalDateTime::compareTo)
+                .map(updatedAt -> updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                .orElse(0L);
+        lastModified = Math.max(lastModified, System.currentTimeMillis() / 1000 * 1000);
+        return new CategorySnapshot(version, List.copyOf(active), statsVersion,
+                Collections.unmodifiableList(categories), Collections.unmodifiableList(tree), byId, bySlug,
+                listResponse, treeResponse, detailResponses, HexFormat.of().formatHex(md5.digest()), lastModified);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 构建快照所用的分类记录，用于判断数据是否变化
+     */
+    List<Category> getSource() {
+        return source;
+    }
+
+    /**
+     * 构建快照所依据的分类统计版本
+     */
+    long getStatsVersion() {
+        return statsVersion;
+    }
+
+    public List<CategoryDTO> getCategories() {
+        return categories;
+    }
+
+    public List<CategoryDTO> getTree() {
+        return tree;
+    }
+
+    public CategoryDTO findById(long id) {
+        return byId.get(id);
+    }
+
+    public CategoryDTO findBySlug(String slug) {
+        return bySlug.get(slug);
+    }
+
+    public SerializedResponse getListResponse() {
+        return listResponse;
+    }
+
+    public SerializedResponse getTreeResponse() {
+        return treeResponse;
+    }
+
+    public SerializedResponse detailResponse(long id) {
+        return detailResponses.get(id);
+    }
+
+    /**
+     * 列表、树形结构及全部详情响应体的MD5摘要
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static CategoryDTO toDTO(Category category, Category parent, CategorySummary summary,
+                                     List<CategoryDTO> children) {
+        CategoryDTO dto = new CategoryDTO();
+        dto.setId(category.getId());
+        dto.setName(category.getName());
+        dto.setSlug(category.getSlug());
+        dto.setDescription(category.getDescription());
+        dto.setParentId(category.getParentId());
+        dto.setParentName(parent != null ? parent.getName() : null);
+        dto.setDisplayOrder(category.getDisplayOrder());
+        dto.setIsActive(category.getIsActive());
+        dto.setChildren(children);
+        dto.setBookCount(summary != null ? summary.getBookCount() : 0);
+        dto.setInStockCount(summary != null ? summary.getInStockCount() : 0);
+        if (summary != null) {
+            dto.setMinPrice(summary.getMinPrice());
+            dto.setMaxPrice(summary.getMaxPrice());
+            dto.setNewestPublishDate(summary.getNewestPublishDate());
+        }
+        return dto;
+    }
+
+    private static SerializedResponse serialize(ObjectMapper objectMapper, String message, Object data)
+            throws JsonProcessingException {
+        return new SerializedResponse(objectMapper.writeValueAsBytes(new ApiResponse<>(true, message, data)));
+    }
+}
@@ -0,0 +1,78 @@
+package com.library.category;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.model.entity.Category;
+import com.library.repository.CategoryRepository;
+import com.library.web.ResourceVersions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 分类快照持有者
+ * 启动时构建，之后定期读取激活分类（分类表很小），与当前快照的来源记录不同或分类统计版本变化时才重建并整体替换；
+ * 读请求只读取volatile引用，稳定状态下不访问数据库
+ */
+@Slf4j
+@Component
+public class CategorySnapshotStore {
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryStatsIndex categoryStatsIndex;
+    private final ObjectMapper objectMapper;
+    private final ResourceVersions resourceVersions;
+
+    private volatile CategorySnapshot snapshot;
+
+    public CategorySnapshotStore(CategoryRepository categoryRepository, CategoryStatsIndex categoryStatsIndex,
+                                 ObjectMapper objectMapper, ResourceVersions resourceVersions) {
+        this.categoryRepository = categoryRepository;
+        this.categoryStatsIndex = categoryStatsIndex;
+        this.objectMapper = objectMapper;
+        this.resourceVersions = resourceVersions;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    /**
+     * 检查分类是否变化，变化时重建快照
+     */
+    @Scheduled(fixedDelayString = "${category.snapshot.check-ms:30000}",
+            initialDelayString = "${category.snapshot.check-ms:30000}")
+    public synchronized void refresh() {
+        List<Category> active = categoryRepository.findAllActiveForTree();
+        long statsVersion = categoryStatsIndex.version();
+        CategorySnapshot current = snapshot;
+        if (current != null && active.equals(current.getSource()) && statsVersion == current.getStatsVersion()) {
+            return;
+        }
+        try {
+            snapshot = CategorySnapshot.build(active, current != null ? current.getVersion() + 1 : 1L,
+                    categoryStatsIndex::summary, statsVersion, objectMapper);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("分类快照序列化失败", e);
+        }
+        resourceVersions.update(ResourceVersions.CATEGORIES, snapshot.getDigest(), snapshot.getLastModified());
+        log.info("分类快照已重建: 版本={}, 分类数={}", snapshot.getVersion(), active.size());
+    }
+
+    /**
+     * 当前快照；首次加载完成前被访问时同步构建
+     */
+    public CategorySnapshot current() {
+        CategorySnapshot current = snapshot;
+        if (current == null) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,267 @@
+package com.library.category;
+
+import com.library.catalog.CatalogBook;
+import com.library.catalog.CatalogListener;
+import com.library.repository.CategoryStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 分类统计（增量维护）
+ * 随目录同步维护每个分类的图书数、有货图书数、售价和出版日期的有序计数（用于取最值），
+ * 图书按扩展后的分类（含祖先分类）计入，与分类列表口径一致。
+ * 图书新增、修改（含库存跨越0）时只撤销该书原有的贡献再计入新值；统计值变化的分类标记为待写入，
+ * 由后台任务批量写入category_stats，同时递增版本号供分类快照判断是否需要重建
+ */
+@Slf4j
+@Component
+public class CategoryStatsIndex implements CatalogListener {
+
+    private static final int WRITE_BATCH_SIZE = 500;
+
+    private final CategoryStatsRepository categoryStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // 图书ID -> 已计入的贡献
+    private Map<Long, Contribution> contributions = new HashMap<>();
+    // 分类ID -> 累计值
+    private Map<Long, Aggregate> aggregates = new HashMap<>();
+    private final Set<Long> dirty = new HashSet<>();
+    private boolean rewriteAll = false;
+    private volatile boolean ready = false;
+    private volatile long version = 0L;
+
+    /**
+     * 单本图书计入统计的字段
+     */
+    private static final class Contribution {
+        final long[] categoryIds;
+        final BigDecimal price;
+        final boolean inStock;
+        final LocalDateTime publishDate;
+
+        Contribution(CatalogBook book) {
+            this.categoryIds = book.getCategoryIds() != null ? book.getCategoryIds() : new long[0];
+            this.price = book.getSellingPrice();
+            this.inStock = book.getStockQuantity() != null && book.getStockQuantity() > 0;
+            this.publishDate = book.getPublishDate();
+        }
+    }
+
+    /**
+     * 分类的累计值：售价和出版日期保存为值 -> 出现次数，删除后仍能取得最值
+     */
+    private static final class Aggregate {
+        int bookCount;
+        int inStockCount;
+        final TreeMap<BigDecimal, Integer> prices = new TreeMap<>();
+        final TreeMap<LocalDateTime, Integer> publishDates = new TreeMap<>();
+
+        void apply(Contribution contribution, int sign) {
+            bookCount += sign;
+            if (contribution.inStock) {
+                inStockCount += sign;
+            }
+            if (contribution.price != null) {
+                prices.merge(contribution.price, sign, (a, b) -> a + b == 0 ? null : a + b);
+            }
+            if (contribution.publishDate != null) {
+                publishDates.merge(contribution.publishDate, sign, (a, b) -> a + b == 0 ? null : a + b);
+            }
+        }
+
+        CategorySummary summary() {
+            return new CategorySummary(bookCount, inStockCount,
+                    prices.isEmpty() ? null : prices.firstKey(),
+                    prices.isEmpty() ? null : prices.lastKey(),
+                    publishDates.isEmpty() ? null : publishDates.lastKey());
+        }
+    }
+
+    public CategoryStatsIndex(CategoryStatsRepository categoryStatsRepository,
+                              TransactionTemplate transactionTemplate) {
+        this.categoryStatsRepository = categoryStatsRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * 全量重算，与原统计逐个分类比较；首次加载后整表重写，清除上次运行遗留的分类
+     */
+    @Override
+    public synchronized void onCatalogReload(List<CatalogBook> books) {
+        Map<Long, Contribution> newContributions = new HashMap<>(books.size() * 2);
+        Map<Long, Aggregate> newAggregates = new HashMap<>();
+        for (CatalogBook book : books) {
+            Contribution contribution = new Contribution(book);
+            newContributions.put(book.getId(), contribution);
+            for (long categoryId : contribution.categoryIds) {
+                newAggregates.computeIfAbsent(categoryId, k -> new Aggregate()).apply(contribution, 1);
+            }
+        }
+        Set<Long> changed = new HashSet<>();
+        Set<Long> categoryIds = new HashSet<>(aggregates.keySet());
+        categoryIds.addAll(newAggregates.keySet());
+        for (Long categoryId : categoryIds) {
+            if (!Objects.equals(summaryOf(aggregates, categoryId), summaryOf(newAggregates, categoryId))) {
+                changed.add(categoryId);
+            }
+        }
+        contributions = newContributions;
+        aggregates = newAggregates;
+        if (!ready) {
+            rewriteAll = true;
+        }
+        markChanged(changed);
+        ready = true;
+    }
+
+    @Override
+    public synchronized void onBooksChanged(List<CatalogBook> books) {
+        Map<Long, CategorySummary> before = new HashMap<>();
+        for (CatalogBook book : books) {
+            Contribution previous = contributions.get(book.getId());
+            Contribution current = new Contribution(book);
+            if (previous != null) {
+                for (long categoryId : previous.categoryIds) {
+                    before.computeIfAbsent(categoryId, id -> summaryOf(aggregates, id));
+                    aggregates.get(categoryId).apply(previous, -1);
+                }
+            }
+            for (long categoryId : current.categoryIds) {
+                before.computeIfAbsent(categoryId, id -> summaryOf(aggregates, id));
+                aggregates.computeIfAbsent(categoryId, k -> new Aggregate()).apply(current, 1);
+            }
+            contributions.put(book.getId(), current);
+        }
+        Set<Long> changed = new HashSet<>();
+        before.forEach((categoryId, summary) -> {
+            Aggregate aggregate = aggregates.get(categoryId);
+            if (aggregate != null && aggregate.bookCount == 0) {
+                aggregates.remove(categoryId);
+            }
+            if (!Objects.equals(summary, summaryOf(aggregates, categoryId))) {
+                changed.add(categoryId);
+            }
+        });
+        markChanged(changed);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 统计版本号，任一分类的统计值变化时递增
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * 分类统计；分类下没有图书时返回null
+     */
+    public synchronized CategorySummary summary(long categoryId) {
+        return summaryOf(aggregates, categoryId);
+    }
+
+    /**
+     * 分类图书数：内存统计就绪时直接读取，否则读取category_stats中的物化值
+     */
+    public Optional<Long> bookCount(long categoryId) {
+        if (ready) {
+            CategorySummary summary = summary(categoryId);
+            return Optional.of(summary != null ? (long) summary.getBookCount() : 0L);
+        }
+        return categoryStatsRepository.findBookCount(categoryId);
+    }
+
+    /**
+     * 定期写入变化的分类统计
+     */
+    @Scheduled(fixedDelayString = "${category.stats.flush-ms:30000}",
+            initialDelayString = "${category.stats.flush-ms:30000}")
+    public void flush() {
+        List<SqlParameterSource> upserts = new ArrayList<>();
+        List<SqlParameterSource> deletes = new ArrayList<>();
+        boolean replace;
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (this) {
+            if (!ready || (dirty.isEmpty() && !rewriteAll)) {
+                return;
+            }
+            replace = rewriteAll;
+            Set<Long> categoryIds = replace ? aggregates.keySet() : dirty;
+            for (Long categoryId : categoryIds) {
+                CategorySummary summary = summaryOf(aggregates, categoryId);
+                if (summary == null) {
+                    deletes.add(new MapSqlParameterSource("categoryId", categoryId));
+                    continue;
+                }
+                upserts.add(new MapSqlParameterSource()
+                        .addValue("categoryId", categoryId)
+                        .addValue("bookCount", summary.getBookCount())
+                        .addValue("inStockCount", summary.getInStockCount())
+                        .addValue("minPrice", summary.getMinPrice())
+                        .addValue("maxPrice", summary.getMaxPrice())
+                        .addValue("newestPublishDate", summary.getNewestPublishDate())
+                        .addValue("now", now));
+            }
+            dirty.clear();
+            rewriteAll = false;
+        }
+        try {
+            if (replace) {
+                transactionTemplate.executeWithoutResult(status ->
+                        categoryStatsRepository.replaceAll(upserts.toArray(new SqlParameterSource[0])));
+            } else {
+                for (int from = 0; from < upserts.size(); from += WRITE_BATCH_SIZE) {
+                    SqlParameterSource[] batch = upserts.subList(from, Math.min(from + WRITE_BATCH_SIZE, upserts.size()))
+                            .toArray(new SqlParameterSource[0]);
+                    transactionTemplate.executeWithoutResult(status -> categoryStatsRepository.upsertStats(batch));
+                }
+                transactionTemplate.executeWithoutResult(status ->
+                        categoryStatsRepository.deleteStats(deletes.toArray(new SqlParameterSource[0])));
+            }
+        } catch (RuntimeException e) {
+            // 写入失败时重新标记，下一周期重试
+            synchronized (this) {
+                if (replace) {
+                    rewriteAll = true;
+                }
+                upserts.forEach(row -> dirty.add((Long) row.getValue("categoryId")));
+                deletes.forEach(row -> dirty.add((Long) row.getValue("categoryId")));
+            }
+            log.warn("分类统计写入失败，下次重试: {}", e.getMessage());
+            return;
+        }
+        log.info("分类统计已写入: 更新{}个分类, 删除{}个分类{}", upserts.size(), deletes.size(), replace ? "（全量）" : "");
+    }
+
+    private void markChanged(Set<Long> changed) {
+        if (!changed.isEmpty()) {
+            dirty.addAll(changed);
+            version++;
+        }
+    }
+
+    private static CategorySummary summaryOf(Map<Long, Aggregate> aggregates, long categoryId) {
+        Aggregate aggregate = aggregates.get(categoryId);
+        return aggregate != null && aggregate.bookCount > 0 ? aggregate.summary() : null;
+    }
+}
@@ -0,0 +1,20 @@
+package com.library.category;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 分类统计值（含子分类中的图书）
+ */
+@Data
+@AllArgsConstructor
+public class CategorySummary {
+    private int bookCount;
+    private int inStockCount;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private LocalDateTime newestPublishDate;
+}
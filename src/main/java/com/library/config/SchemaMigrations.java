@@ -0,0 +1,51 @@
+package com.library.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 存量库结构修正
+ * ddl-auto=update只会新增表和列，不会修改已有列的约束；新库按实体定义建表，无需处理。
+ * 每项修正先查information_schema判断是否已完成，可重复执行
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SchemaMigrations {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 先于分类闭包和目录加载执行
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onApplicationReady() {
+        migratePopularityNotNull();
+    }
+
+    /**
+     * books.popularity改为NOT NULL DEFAULT 0：列表SQL按(popularity, id)索引排序并做键集分页，
+     * NULL行在“popularity < 游标值”条件下会被跳过
+     */
+    private void migratePopularityNotNull() {
+        List<String> nullable = jdbcTemplate.queryForList(
+                "SELECT IS_NULLABLE FROM information_schema.COLUMNS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'books' AND COLUMN_NAME = 'popularity'",
+                String.class);
+        if (nullable.isEmpty() || !"YES".equals(nullable.get(0))) {
+            return;
+        }
+        int filled = jdbcTemplate.update("UPDATE books SET popularity = 0 WHERE popularity IS NULL");
+        jdbcTemplate.execute("ALTER TABLE books MODIFY popularity INT NOT NULL DEFAULT 0");
+        log.info("books.popularity已改为NOT NULL DEFAULT 0，补零{}行", filled);
+    }
+}
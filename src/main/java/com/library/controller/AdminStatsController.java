@@ -0,0 +1,66 @@
+package com.library.controller;
+
+import com.library.model.dto.CacheStatsDTO;
+import com.library.model.dto.RelationGraphStatsDTO;
+import com.library.model.dto.ViewCounterStatsDTO;
+import com.library.model.dto.response.ApiResponse;
+import com.library.service.BookService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 运行统计接口：缓存、关联图、浏览计数等内部指标，仅管理员可访问（见WebSecurityConfig）
+ */
+@RestController
+@RequestMapping("/api/admin/stats")
+@RequiredArgsConstructor
+@Tag(name = "运行统计", description = "内存缓存、关联图、浏览计数等运行指标（仅管理员）")
+public class AdminStatsController {
+
+    private final BookService bookService;
+
+    /**
+     * 检索结果缓存统计
+     */
+    @GetMapping("/search-cache")
+    @Operation(summary = "检索缓存统计", description = "返回关键词检索结果缓存的命中、未命中、淘汰、过期及失效次数")
+    public ResponseEntity<ApiResponse<CacheStatsDTO>> getSearchCacheStats() {
+        CacheStatsDTO stats = bookService.getSearchCacheStats();
+        return ResponseEntity.ok(new ApiResponse<>(true, "缓存统计获取成功", stats));
+    }
+
+    /**
+     * 详情缓存统计
+     */
+    @GetMapping("/detail-cache")
+    @Operation(summary = "详情缓存统计", description = "返回图书详情缓存的命中、未命中、淘汰、过期及失效次数")
+    public ResponseEntity<ApiResponse<CacheStatsDTO>> getDetailCacheStats() {
+        CacheStatsDTO stats = bookService.getDetailCacheStats();
+        return ResponseEntity.ok(new ApiResponse<>(true, "缓存统计获取成功", stats));
+    }
+
+    /**
+     * 关联图统计
+     */
+    @GetMapping("/relation-graph")
+    @Operation(summary = "关联图统计", description = "返回内存关联图的节点数、边数、占用内存及每百万条边的内存开销")
+    public ResponseEntity<ApiResponse<RelationGraphStatsDTO>> getRelationGraphStats() {
+        RelationGraphStatsDTO stats = bookService.getRelationGraphStats();
+        return ResponseEntity.ok(new ApiResponse<>(true, "关联图统计获取成功", stats));
+    }
+
+    /**
+     * 浏览计数统计
+     */
+    @GetMapping("/view-counter")
+    @Operation(summary = "浏览计数统计", description = "返回浏览计数的已记录、已写库、待写入次数，以及因容量上限或写库失败丢失的次数")
+    public ResponseEntity<ApiResponse<ViewCounterStatsDTO>> getViewCounterStats() {
+        ViewCounterStatsDTO stats = bookService.getViewCounterStats();
+        return ResponseEntity.ok(new ApiResponse<>(true, "浏览计数统计获取成功", stats));
+    }
+}
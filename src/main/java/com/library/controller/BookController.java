@@ -1,14 +1,23 @@
 package com.library.controller;
 
-import com.library.model.dto.BookDetailDTO;
+import com.library.model.dto.BookBatchResultDTO;
+import com.library.model.dto.BookFacetResultDTO;
 import com.library.model.dto.BookListItemDTO;
 import com.library.model.dto.PagedResultDTO;
+import com.library.model.dto.TrendingBookDTO;
+import com.library.model.dto.request.BookBatchRequest;
+import com.library.model.dto.request.BookFilterRequest;
 import com.library.model.dto.response.ApiResponse;
+import com.library.security.UserIdResolver;
 import com.library.service.BookService;
+import com.library.web.ConditionalGet;
+import com.library.web.ResourceVersions;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -21,37 +30,108 @@ import java.util.Map;
 public class BookController {
 
     private final BookService bookService;
+    private final UserIdResolver userIdResolver;
 
     /**
      * 多条件查询图书（支持分页、搜索、分类筛选、排序）
      */
     @GetMapping
-    @Operation(summary = "查询图书列表", description = "支持关键词搜索、分类筛选、分页及多种排序方式")
+    @ConditionalGet(resources = {ResourceVersions.BOOKS, ResourceVersions.CATEGORIES},
+            maxAge = "${http-cache.books.max-age:30}")
+    @Operation(summary = "查询图书列表", description = "支持关键词搜索、分类筛选、分页及多种排序方式；" +
+            "传入cursor参数（首页传空字符串）时使用游标分页，不返回总数；" +
+            "传入价格区间、评分等分面筛选参数时由分面索引检索；" +
+            "关键词无结果时自动按拼写纠错后的关键词检索，并在didYouMean中返回纠正词")
     public ResponseEntity<ApiResponse<PagedResultDTO<BookListItemDTO>>> getBooks(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) String sort,
             @RequestParam(defaultValue = "1") Integer page,
-            @RequestParam(defaultValue = "10") Integer limit) {
+            @RequestParam(defaultValue = "10") Integer limit,
+            @RequestParam(required = false) String cursor,
+            @ModelAttribute BookFilterRequest filter) {
 
-        PagedResultDTO<BookListItemDTO> result = bookService.getBooks(keyword, categoryId, sort, page, limit);
+        PagedResultDTO<BookListItemDTO> result;
+        if (filter.hasFacetFilters()) {
+            result = bookService.getBooksByFilter(filter, sort, page, limit);
+        } else if (cursor != null) {
+            result = bookService.getBooksByCursor(keyword, categoryId, sort, cursor, limit);
+        } else {
+            result = bookService.getBooks(keyword, categoryId, sort, page, limit);
+        }
         return ResponseEntity.ok(new ApiResponse<>(true, "图书列表获取成功", result));
     }
 
     /**
-     * 获取图书详情
+     * 分面检索（返回当前页图书及各筛选项的命中数量）
+     */
+    @GetMapping("/facets")
+    @ConditionalGet(resources = {ResourceVersions.BOOKS, ResourceVersions.CATEGORIES},
+            maxAge = "${http-cache.books.max-age:30}")
+    @Operation(summary = "图书分面检索", description = "按分类、价格区间、评分、出版社、语言及热门/新书/推荐标记筛选，" +
+            "同时返回各筛选项的命中数量")
+    public ResponseEntity<ApiResponse<BookFacetResultDTO>> getBookFacets(
+            @ModelAttribute BookFilterRequest filter,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "1") Integer page,
+            @RequestParam(defaultValue = "10") Integer limit) {
+
+        BookFacetResultDTO result = bookService.getBookFacets(filter, sort, page, limit);
+        return ResponseEntity.ok(new ApiResponse<>(true, "分面检索成功", result));
+    }
+
+    /**
+     * 输入联想
+     */
+    @GetMapping("/suggest")
+    @ConditionalGet(resources = ResourceVersions.SUGGEST, maxAge = "${http-cache.books.max-age:30}")
+    @Operation(summary = "图书输入联想", description = "按标题、作者、ISBN前缀匹配，返回人气最高的若干本图书")
+    public ResponseEntity<ApiResponse<List<BookListItemDTO>>> suggestBooks(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer limit) {
+
+        List<BookListItemDTO> suggestions = bookService.suggestBooks(q, limit);
+        return ResponseEntity.ok(new ApiResponse<>(true, "图书联想获取成功", suggestions));
+    }
+
+    /**
+     * 批量查询图书
+     */
+    @GetMapping("/batch")
+    @ConditionalGet(resources = ResourceVersions.BOOKS, maxAge = "${http-cache.books.max-age:30}")
+    @Operation(summary = "批量查询图书", description = "按逗号分隔的ID列表一次返回多本图书，结果保持请求顺序，" +
+            "不存在的ID在missingIds中返回")
+    public ResponseEntity<ApiResponse<BookBatchResultDTO>> getBooksByIds(@RequestParam List<Long> ids) {
+        BookBatchResultDTO result = bookService.getBooksByIds(ids);
+        return ResponseEntity.ok(new ApiResponse<>(true, "批量查询图书成功", result));
+    }
+
+    /**
+     * 批量查询图书（ID较多时使用请求体传递）
+     */
+    @PostMapping("/batch")
+    @Operation(summary = "批量查询图书（POST）", description = "与GET /batch相同，ID列表放在请求体中")
+    public ResponseEntity<ApiResponse<BookBatchResultDTO>> postBooksByIds(@RequestBody BookBatchRequest request) {
+        BookBatchResultDTO result = bookService.getBooksByIds(request.getIds());
+        return ResponseEntity.ok(new ApiResponse<>(true, "批量查询图书成功", result));
+    }
+
+    /**
+     * 获取图书详情（每次请求都要记录浏览，因此不做条件GET）
      */
     @GetMapping("/{id}")
     @Operation(summary = "获取图书详情", description = "查询指定ID的图书完整信息，包含价格、库存及相关推荐")
-    public ResponseEntity<ApiResponse<BookDetailDTO>> getBookDetail(@PathVariable Long id) {
-        BookDetailDTO detail = bookService.getBookDetail(id);
-        return ResponseEntity.ok(new ApiResponse<>(true, "图书详情获取成功", detail));
+    public ResponseEntity<byte[]> getBookDetail(@PathVariable Long id, Authentication authentication) {
+        byte[] body = bookService.getBookDetailJson(id);
+        bookService.recordBookView(id, userIdResolver.resolve(authentication).orElse(null));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     /**
      * 获取热门图书
      */
     @GetMapping("/hot")
+    @ConditionalGet(resources = ResourceVersions.BOOKS, maxAge = "${http-cache.books.max-age:30}")
     @Operation(summary = "获取热门图书", description = "查询销量/热度排名靠前的图书列表")
     public ResponseEntity<ApiResponse<List<BookListItemDTO>>> getHotBooks(
             @RequestParam(required = false) Integer limit) {
@@ -60,10 +140,27 @@ public class BookController {
         return ResponseEntity.ok(new ApiResponse<>(true, "热门图书获取成功", hotBooks));
     }
 
+    /**
+     * 获取飙升榜
+     */
+    @GetMapping("/trending")
+    @ConditionalGet(maxAge = "${http-cache.trending.max-age:5}")
+    @Operation(summary = "获取飙升榜", description = "查询最近1小时（window=1h）或24小时（window=24h）销量最高的图书，" +
+            "可按分类筛选；数据来自内存滑动窗口计数，每隔数秒刷新")
+    public ResponseEntity<ApiResponse<List<TrendingBookDTO>>> getTrendingBooks(
+            @RequestParam(required = false) String window,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Integer limit) {
+
+        List<TrendingBookDTO> trendingBooks = bookService.getTrendingBooks(window, categoryId, limit);
+        return ResponseEntity.ok(new ApiResponse<>(true, "飙升榜获取成功", trendingBooks));
+    }
+
     /**
      * 获取新书上架
      */
     @GetMapping("/new")
+    @ConditionalGet(resources = ResourceVersions.BOOKS, maxAge = "${http-cache.books.max-age:30}")
     @Operation(summary = "获取新书上架", description = "查询最新上架的图书列表")
     public ResponseEntity<ApiResponse<List<BookListItemDTO>>> getNewBooks(
             @RequestParam(required = false) Integer limit) {
@@ -76,14 +173,20 @@ public class BookController {
      * 根据分类查询图书
      */
     @GetMapping("/category/{categoryId}")
-    @Operation(summary = "按分类查询图书", description = "查询指定分类下的图书，支持分页和排序")
+    @ConditionalGet(resources = {ResourceVersions.BOOKS, ResourceVersions.CATEGORIES},
+            maxAge = "${http-cache.books.max-age:30}")
+    @Operation(summary = "按分类查询图书", description = "查询指定分类下的图书，支持分页和排序；" +
+            "传入cursor参数（首页传空字符串）时使用游标分页，不返回总数")
     public ResponseEntity<ApiResponse<PagedResultDTO<BookListItemDTO>>> getBooksByCategory(
             @PathVariable Long categoryId,
             @RequestParam(defaultValue = "1") Integer page,
             @RequestParam(defaultValue = "10") Integer limit,
-            @RequestParam(required = false) String sort) {
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor) {
 
-        PagedResultDTO<BookListItemDTO> result = bookService.getBooksByCategory(categoryId, page, limit, sort);
+        PagedResultDTO<BookListItemDTO> result = cursor != null
+                ? bookService.getBooksByCategoryCursor(categoryId, sort, cursor, limit)
+                : bookService.getBooksByCategory(categoryId, page, limit, sort);
         return ResponseEntity.ok(new ApiResponse<>(true, "分类图书获取成功", result));
     }
 
@@ -91,7 +194,7 @@ public class BookController {
      * 获取相关推荐图书
      */
     @GetMapping("/{id}/related")
-    @Operation(summary = "获取相关推荐图书", description = "查询与指定图书相关的推荐图书列表")
+    @Operation(summary = "获取相关推荐图书", description = "查询与指定图书相关的推荐图书列表；直接关联不足时按关联图两跳扩展补充")
     public ResponseEntity<ApiResponse<List<BookListItemDTO>>> getRelatedBooks(@PathVariable Long id) {
         List<BookListItemDTO> relatedBooks = bookService.getRelatedBooks(id);
         return ResponseEntity.ok(new ApiResponse<>(true, "相关图书推荐获取成功", relatedBooks));
@@ -1,18 +1,21 @@
 package com.library.controller;
 
-import com.library.model.dto.CarouselDTO;
-import com.library.model.dto.response.ApiResponse;
 import com.library.service.CarouselService;
+import com.library.web.ConditionalGet;
+import com.library.web.ResourceVersions;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
-
+/**
+ * 轮播图接口：响应体由轮播图快照预先序列化；
+ * 强ETag（响应体摘要）、Last-Modified（updated_at）由快照登记，条件GET拦截器据此在调用本接口前直接返回304
+ */
 @RestController
 @RequestMapping("/api/carousels")
 @RequiredArgsConstructor
@@ -22,12 +25,14 @@ public class CarouselController {
     private final CarouselService carouselService;
 
     /**
-     * 获取所有轮播图
+     * 获取所有启用的轮播图
      */
     @GetMapping
-    @Operation(summary = "获取所有轮播图", description = "查询所有轮播图数据，按排序顺序返回")
-    public ResponseEntity<ApiResponse<List<CarouselDTO>>> getAllCarousels() {
-        List<CarouselDTO> carousels = carouselService.getAllCarousels();
-        return ResponseEntity.ok(new ApiResponse<>(true, "轮播图列表获取成功", carousels));
+    @ConditionalGet(resources = ResourceVersions.CAROUSELS, maxAge = "${http-cache.carousels.max-age:300}")
+    @Operation(summary = "获取所有轮播图", description = "查询所有启用的轮播图数据，按排序顺序返回")
+    public ResponseEntity<byte[]> getAllCarousels() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(carouselService.getCarouselListResponse().getBody());
     }
-}
\ No newline at end of file
+}
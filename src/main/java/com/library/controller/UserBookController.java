@@ -0,0 +1,59 @@
+package com.library.controller;
+
+import com.library.exception.ApiError;
+import com.library.model.dto.BookListItemDTO;
+import com.library.model.dto.response.ApiResponse;
+import com.library.security.UserIdResolver;
+import com.library.service.BookService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/users")
+@RequiredArgsConstructor
+@Tag(name = "个性化图书", description = "当前用户的个性化推荐、最近浏览等接口")
+public class UserBookController {
+
+    private final BookService bookService;
+    private final UserIdResolver userIdResolver;
+
+    /**
+     * 获取个性化推荐
+     */
+    @GetMapping("/recommendations")
+    @Operation(summary = "获取个性化推荐", description = "根据当前用户的购买、收藏记录推荐图书，已购买或收藏的图书不会出现；暂无推荐时返回热门图书")
+    public ResponseEntity<ApiResponse<List<BookListItemDTO>>> getRecommendations(
+            Authentication authentication,
+            @RequestParam(required = false) Integer limit) {
+        Long userId = currentUserId(authentication);
+        List<BookListItemDTO> books = bookService.getRecommendedBooks(userId, limit);
+        return ResponseEntity.ok(new ApiResponse<>(true, "推荐图书获取成功", books));
+    }
+
+    /**
+     * 获取最近浏览
+     */
+    @GetMapping("/recently-viewed")
+    @Operation(summary = "获取最近浏览", description = "返回当前用户最近浏览过详情的图书，最新的在前")
+    public ResponseEntity<ApiResponse<List<BookListItemDTO>>> getRecentlyViewed(
+            Authentication authentication,
+            @RequestParam(required = false) Integer limit) {
+        Long userId = currentUserId(authentication);
+        List<BookListItemDTO> books = bookService.getRecentlyViewedBooks(userId, limit);
+        return ResponseEntity.ok(new ApiResponse<>(true, "最近浏览获取成功", books));
+    }
+
+    private Long currentUserId(Authentication authentication) {
+        return userIdResolver.resolve(authentication)
+                .orElseThrow(() -> new ApiError(401, "用户未登录或不存在"));
+    }
+}
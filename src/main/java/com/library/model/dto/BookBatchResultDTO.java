@@ -0,0 +1,18 @@
+package com.library.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量查询图书结果：items按请求ID顺序排列，missingIds为不存在的图书ID
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBatchResultDTO {
+    private List<BookListItemDTO> items;
+    private List<Long> missingIds;
+}
@@ -0,0 +1,19 @@
+package com.library.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分面检索结果：当前页图书 + 各分面（category/price/rating/publisher/language/flag）取值计数
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookFacetResultDTO {
+    private PagedResultDTO<BookListItemDTO> books;
+    private Map<String, List<FacetCountDTO>> facets;
+}
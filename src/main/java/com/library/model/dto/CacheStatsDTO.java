@@ -0,0 +1,21 @@
+package com.library.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 缓存运行统计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDTO {
+    private Long hits;          // 命中次数
+    private Long misses;        // 未命中次数
+    private Double hitRate;     // 命中率
+    private Long evictions;     // 因容量淘汰的条目数
+    private Long expirations;   // 因过期移除的条目数
+    private Long invalidations; // 因数据变更失效的条目数
+    private Integer size;       // 当前条目数
+}
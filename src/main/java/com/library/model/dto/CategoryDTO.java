@@ -1,6 +1,9 @@
 package com.library.model.dto;
 
 import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -18,4 +21,9 @@ public class CategoryDTO {
     private Integer displayOrder; // 新增：显示顺序，用于前端排序
     private Boolean isActive; // 新增：是否激活状态
     private List<CategoryDTO> children; // 新增：子分类列表，支持树形结构
+    private Integer bookCount; // 图书数（含子分类）
+    private Integer inStockCount; // 有货图书数（含子分类）
+    private BigDecimal minPrice; // 最低售价
+    private BigDecimal maxPrice; // 最高售价
+    private LocalDateTime newestPublishDate; // 最新出版日期
 }
\ No newline at end of file
@@ -8,6 +8,9 @@ public class PagedResultDTO<T> {
     private int page;
     private int limit;
     private int pages;
+    private String nextCursor; // 游标分页：下一页游标，没有更多数据时为null
+    private boolean hasMore;
+    private String didYouMean; // 关键词无结果时按纠错后的关键词检索，返回所用的纠正词
 
     public PagedResultDTO(List<T> items, Long total, int page, int limit) {
         this.items = items;
@@ -15,6 +18,19 @@ public class PagedResultDTO<T> {
         this.page = page;
         this.limit = limit;
         this.pages = total > 0 ? (int) Math.ceil((double) total / limit) : 0;
+        this.hasMore = page < pages;
+    }
+
+    /**
+     * 游标分页结果：不统计总数（total为null，除非调用方顺带已知），由nextCursor/hasMore驱动翻页
+     */
+    public PagedResultDTO(List<T> items, Long total, int limit, String nextCursor) {
+        this.items = items;
+        this.total = total;
+        this.limit = limit;
+        this.pages = total != null && total > 0 ? (int) Math.ceil((double) total / limit) : 0;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
     }
 
     // getter和setter方法
@@ -57,4 +73,28 @@ public class PagedResultDTO<T> {
     public void setPages(int pages) {
         this.pages = pages;
     }
-}
\ No newline at end of file
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public String getDidYouMean() {
+        return didYouMean;
+    }
+
+    public void setDidYouMean(String didYouMean) {
+        this.didYouMean = didYouMean;
+    }
+}
@@ -0,0 +1,20 @@
+package com.library.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 图书关联图运行统计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelationGraphStatsDTO {
+    private Integer nodes;                // 图书节点数
+    private Integer edges;                // 关联边数
+    private Long memoryBytes;             // 图数据占用字节数（数组部分）
+    private Long bytesPerMillionEdges;    // 每百万条边占用字节数
+    private Long buildMillis;             // 最近一次构建耗时（毫秒）
+    private String builtAt;               // 最近一次构建完成时间
+}
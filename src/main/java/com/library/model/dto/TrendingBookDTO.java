@@ -0,0 +1,16 @@
+package com.library.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 飙升榜条目
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingBookDTO {
+    private BookListItemDTO book; // 图书信息
+    private Integer sales;        // 统计窗口内的销量
+}
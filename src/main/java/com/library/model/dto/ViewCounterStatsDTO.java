@@ -0,0 +1,22 @@
+package com.library.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 浏览计数运行统计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ViewCounterStatsDTO {
+    private Long recorded;       // 已记录的浏览次数
+    private Long flushed;        // 已写入数据库的浏览次数
+    private Long pending;        // 尚未写入的浏览次数
+    private Integer pendingBooks; // 当前计数的图书数
+    private Long droppedFull;    // 计数图书数达到上限而丢弃的浏览次数
+    private Long droppedFailed;  // 写库失败且无法放回而丢弃的浏览次数
+    private Long failedFlushes;  // 写库失败次数
+    private Long lastFlushMillis; // 最近一次写库耗时
+}
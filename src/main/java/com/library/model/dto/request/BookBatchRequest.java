@@ -0,0 +1,13 @@
+package com.library.model.dto.request;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量查询图书请求（ID较多、不便放在URL中时使用POST）
+ */
+@Data
+public class BookBatchRequest {
+    private List<Long> ids;
+}
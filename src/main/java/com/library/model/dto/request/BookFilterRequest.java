@@ -0,0 +1,28 @@
+package com.library.model.dto.request;
+
+import lombok.Data;
+
+/**
+ * 图书分面筛选条件（查询参数绑定）
+ * keyword/categoryId与列表接口含义相同，其余为分面筛选项，均可为空
+ */
+@Data
+public class BookFilterRequest {
+    private String keyword;
+    private Long categoryId;
+    private String priceBand;      // 价格区间，如"20-50"、"200+"
+    private Integer minRating;     // 最低评分（1-4）
+    private String publisher;      // 出版社
+    private String language;       // 语言
+    private Boolean isHot;         // 仅热门
+    private Boolean isNew;         // 仅新书
+    private Boolean isRecommended; // 仅推荐
+
+    /**
+     * 是否包含keyword/categoryId之外的分面筛选项
+     */
+    public boolean hasFacetFilters() {
+        return priceBand != null || minRating != null || publisher != null || language != null
+                || Boolean.TRUE.equals(isHot) || Boolean.TRUE.equals(isNew) || Boolean.TRUE.equals(isRecommended);
+    }
+}
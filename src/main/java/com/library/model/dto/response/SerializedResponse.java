@@ -0,0 +1,17 @@
+package com.library.model.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 预先序列化的响应体
+ * 内容不变时直接复用同一份字节；不携带校验值：ETag（响应体摘要）、Last-Modified由所属快照登记到ResourceVersions，
+ * 由ConditionalGetInterceptor比对条件请求、ConditionalGetResponseAdvice在成功响应上写出
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SerializedResponse {
+    private byte[] body; // 完整的JSON响应体
+}
@@ -16,7 +16,13 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+        // 与BookQueryBuilder生成的ORDER BY（排序列 + id）一致的联合索引
+        @Index(name = "idx_books_popularity_id", columnList = "popularity DESC, id"),
+        @Index(name = "idx_books_publish_date_id", columnList = "publish_date DESC, id"),
+        @Index(name = "idx_books_selling_price_id", columnList = "selling_price, id"),
+        @Index(name = "idx_books_updated_at", columnList = "updated_at")
+})
 public class Book {
 
     @Id
@@ -65,6 +71,9 @@ public class Book {
     @Column(name = "sales_volume")
     private Integer salesVolume = 0; // 销售量，默认为0
 
+    @Column(name = "view_count")
+    private Long viewCount = 0L; // 详情浏览次数，由后台定时累加，默认为0
+
     @Column(name = "cover_image", nullable = false)
     private String coverImage; // 封面图片URL
 
@@ -92,7 +101,8 @@ public class Book {
     @Column(name = "review_count")
     private Integer reviewCount = 0; // 评论数量，默认为0
 
-    @Column(name = "popularity")
+    // 非空：列表按(popularity, id)索引排序并做键集分页，存量库由SchemaMigrations修正
+    @Column(name = "popularity", nullable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
     private Integer popularity = 0; // 人气值，用于排序
 
     @Column(name = "created_at", updatable = false)
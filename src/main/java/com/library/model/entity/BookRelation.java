@@ -27,6 +27,9 @@ public class BookRelation {
     @Column(name = "relation_type", nullable = false)
     private RelationType relationType = RelationType.similar;
 
+    @Column(name = "score")
+    private Integer score = 0; // 关联强度（also_bought为共同购买次数），推荐时按此降序
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
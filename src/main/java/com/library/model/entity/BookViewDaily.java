@@ -0,0 +1,32 @@
+package com.library.model.entity;
+
+import lombok.Data;
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * 图书每日浏览次数
+ * 每本书每天一行，由浏览计数任务与books.view_count一起批量累加；人气值重算按日期做衰减，超出回溯窗口的记录随重算删除
+ */
+@Data
+@Entity
+@Table(name = "book_view_daily", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"book_id", "view_date"})
+}, indexes = {
+        @Index(name = "idx_book_view_daily_date", columnList = "view_date")
+})
+public class BookViewDaily {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId; // 关联图书ID
+
+    @Column(name = "view_date", nullable = false)
+    private LocalDate viewDate; // 浏览日期
+
+    @Column(name = "views", nullable = false)
+    private Long views; // 当日浏览次数
+}
@@ -0,0 +1,32 @@
+package com.library.model.entity;
+
+import lombok.Data;
+import jakarta.persistence.*;
+
+/**
+ * 分类闭包表
+ * 每对(祖先分类, 后代分类)一行，包含分类自身（depth为0），按祖先分类一次连接即可取得整棵子树；
+ * 只在分类层级变化时由后台任务整体重建
+ */
+@Data
+@Entity
+@Table(name = "category_closure", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"ancestor_id", "descendant_id"})
+}, indexes = {
+        @Index(name = "idx_category_closure_descendant", columnList = "descendant_id")
+})
+public class CategoryClosure {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ancestor_id", nullable = false)
+    private Long ancestorId; // 祖先分类ID
+
+    @Column(name = "descendant_id", nullable = false)
+    private Long descendantId; // 后代分类ID
+
+    @Column(name = "depth", nullable = false)
+    private Integer depth; // 层级距离，分类自身为0
+}
@@ -0,0 +1,39 @@
+package com.library.model.entity;
+
+import lombok.Data;
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 分类统计（物化）
+ * 每个分类（含子分类中的图书）的图书数、有货图书数、售价区间和最新出版日期，
+ * 由内存中增量维护的统计定期批量写入，列表分页在目录快照未就绪时据此取总数而不必COUNT
+ */
+@Data
+@Entity
+@Table(name = "category_stats")
+public class CategoryStats {
+
+    @Id
+    @Column(name = "category_id")
+    private Long categoryId; // 分类ID
+
+    @Column(name = "book_count", nullable = false)
+    private Integer bookCount = 0; // 图书数
+
+    @Column(name = "in_stock_count", nullable = false)
+    private Integer inStockCount = 0; // 库存大于0的图书数
+
+    @Column(name = "min_price", precision = 10, scale = 2)
+    private BigDecimal minPrice; // 最低售价
+
+    @Column(name = "max_price", precision = 10, scale = 2)
+    private BigDecimal maxPrice; // 最高售价
+
+    @Column(name = "newest_publish_date")
+    private LocalDateTime newestPublishDate; // 最新出版日期
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt; // 最近一次写入时间
+}
@@ -0,0 +1,32 @@
+package com.library.model.entity;
+
+import lombok.Data;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 用户最近浏览记录
+ * 每个用户每本书一行，只保留最近浏览的若干本；由后台任务从内存批量写入，不在浏览请求中同步写库
+ */
+@Data
+@Entity
+@Table(name = "recently_viewed", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"user_id", "book_id"})
+}, indexes = {
+        @Index(name = "idx_recently_viewed_user_time", columnList = "user_id, viewed_at")
+})
+public class RecentlyViewed {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId; // 关联用户ID
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId; // 关联图书ID
+
+    @Column(name = "viewed_at", nullable = false)
+    private LocalDateTime viewedAt; // 最近一次浏览时间
+}
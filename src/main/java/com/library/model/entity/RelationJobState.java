@@ -0,0 +1,25 @@
+package com.library.model.entity;
+
+import lombok.Data;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 关联挖掘任务进度
+ * 记录每个后台任务已处理到的订单ID（高水位），任务重启后从此处继续，无需重新扫描历史订单
+ */
+@Data
+@Entity
+@Table(name = "relation_job_state")
+public class RelationJobState {
+
+    @Id
+    @Column(name = "job_name", length = 50)
+    private String jobName; // 任务名称
+
+    @Column(name = "last_order_id", nullable = false)
+    private Long lastOrderId = 0L; // 已处理的最大订单ID
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt; // 最近一次推进水位的时间
+}
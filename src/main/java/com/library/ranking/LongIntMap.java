@@ -0,0 +1,131 @@
+package com.library.ranking;
+
+import java.util.Arrays;
+
+/**
+ * 图书ID -> 计数的开放寻址哈希表（线性探测，删除时回移后续元素，不留墓碑）
+ * 计数归零的键会被移除，滑动窗口中的表大小只与窗口内实际出现的图书数有关
+ */
+final class LongIntMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    LongIntMap() {
+        allocate(16);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(long key) {
+        int slot = slot(key);
+        return keys[slot] == EMPTY ? 0 : values[slot];
+    }
+
+    /**
+     * 累加计数，结果为0时移除该键，返回累加后的值
+     */
+    int add(long key, int delta) {
+        int slot = slot(key);
+        if (keys[slot] == EMPTY) {
+            if (delta == 0) {
+                return 0;
+            }
+            keys[slot] = key;
+            values[slot] = delta;
+            if (++size > (mask + 1) * 3 / 4) {
+                rehash(keys.length * 2);
+            }
+            return delta;
+        }
+        int value = values[slot] + delta;
+        if (value == 0) {
+            removeAt(slot);
+        } else {
+            values[slot] = value;
+        }
+        return value;
+    }
+
+    /**
+     * 遍历全部键值
+     */
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+
+    void clear() {
+        if (keys.length > 16) {
+            allocate(16);
+        } else {
+            Arrays.fill(keys, EMPTY);
+        }
+        size = 0;
+    }
+
+    interface Visitor {
+        void visit(long key, int value);
+    }
+
+    private int slot(long key) {
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    /**
+     * 删除并把同一探测链上的后续元素前移
+     */
+    private void removeAt(int slot) {
+        size--;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            // home不在(gap, next]区间内时，该元素可以移到gap
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.library.ranking;
+
+import com.library.catalog.BookCatalogSync;
+import com.library.catalog.CatalogSnapshot;
+import com.library.catalog.CatalogSnapshotStore;
+import com.library.repository.PopularityRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 人气值重算任务
+ * 流式扫描回溯窗口内的订单明细和每日浏览次数，按下单时间/浏览日期做指数衰减（半衰期可配置）累加到以目录快照下标为索引的double数组，
+ * 每次浏览按view-weight折算为销量；换算为人气值后与快照中的当前值比较，只批量回写变化足够大的图书，避免无意义的写入和缓存失效。
+ * 回写不刷新updated_at，每批写入后直接刷新这些图书的内存目录；超出回溯窗口的每日浏览记录随重算删除
+ */
+@Slf4j
+@Component
+public class PopularityRecomputeJob {
+
+    private static final int CHUNK_SIZE = 10000;
+    private static final int WRITE_BATCH_SIZE = 1000;
+
+    private final PopularityRepository popularityRepository;
+    private final CatalogSnapshotStore catalogSnapshotStore;
+    private final BookCatalogSync bookCatalogSync;
+    private final TransactionTemplate transactionTemplate;
+    private final double halfLifeHours;
+    private final double viewWeight;
+    private final int lookbackDays;
+    private final double scale;
+    private final int minDelta;
+    private final double minRelativeDelta;
+
+    public PopularityRecomputeJob(PopularityRepository popularityRepository,
+                                  CatalogSnapshotStore catalogSnapshotStore,
+                                  BookCatalogSync bookCatalogSync,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${popularity.half-life-hours:72}") double halfLifeHours,
+                                  @Value("${popularity.view-weight:0.05}") double viewWeight,
+                                  @Value("${popularity.lookback-days:30}") int lookbackDays,
+                                  @Value("${popularity.scale:100}") double scale,
+                                  @Value("${popularity.min-delta:5}") int minDelta,
+                                  @Value("${popularity.min-relative-delta:0.05}") double minRelativeDelta) {
+        this.popularityRepository = popularityRepository;
+        this.catalogSnapshotStore = catalogSnapshotStore;
+        this.bookCatalogSync = bookCatalogSync;
+        this.transactionTemplate = transactionTemplate;
+        this.halfLifeHours = halfLifeHours;
+        this.viewWeight = viewWeight;
+        this.lookbackDays = lookbackDays;
+        this.scale = scale;
+        this.minDelta = minDelta;
+        this.minRelativeDelta = minRelativeDelta;
+    }
+
+    @Scheduled(fixedDelayString = "${popularity.recompute-ms:900000}",
+            initialDelayString = "${popularity.recompute-ms:900000}")
+    public synchronized void recompute() {
+        Optional<CatalogSnapshot> current = catalogSnapshotStore.current();
+        if (current.isEmpty()) {
+            return;
+        }
+        CatalogSnapshot snapshot = current.get();
+        long start = System.currentTimeMillis();
+        double[] scores = accumulate(snapshot, start);
+
+        List<SqlParameterSource> updates = new ArrayList<>();
+        List<Long> bookIds = new ArrayList<>();
+        for (int pos = 0; pos < snapshot.size(); pos++) {
+            int newPopularity = (int) Math.min(Integer.MAX_VALUE, Math.round(scores[pos] * scale));
+            int oldPopularity = snapshot.popularityAt(pos);
+            if (movedMeaningfully(oldPopularity, newPopularity)) {
+                updates.add(new MapSqlParameterSource()
+                        .addValue("id", snapshot.bookIdAt(pos))
+                        .addValue("popularity", newPopularity));
+                bookIds.add(snapshot.bookIdAt(pos));
+            }
+        }
+        for (int from = 0; from < updates.size(); from += WRITE_BATCH_SIZE) {
+            int to = Math.min(from + WRITE_BATCH_SIZE, updates.size());
+            SqlParameterSource[] batch = updates.subList(from, to).toArray(new SqlParameterSource[0]);
+            transactionTemplate.executeWithoutResult(status -> popularityRepository.updatePopularity(batch));
+            bookCatalogSync.refreshBooks(bookIds.subList(from, to));
+        }
+        int purged = popularityRepository.deleteDailyViewsBefore(LocalDate.now().minusDays(lookbackDays));
+        log.info("人气值重算完成: 图书数={}, 更新{}本, 清理每日浏览{}条, 耗时{}ms",
+                snapshot.size(), updates.size(), purged, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 流式累加衰减后的销量与浏览：每件商品的贡献为 2^(-距今小时数/半衰期)，每次浏览再乘以view-weight
+     */
+    private double[] accumulate(CatalogSnapshot snapshot, long now) {
+        double[] scores = new double[snapshot.size()];
+        double decayPerMilli = Math.log(2) / (halfLifeHours * 3_600_000d);
+        accumulateViews(snapshot, scores, decayPerMilli, now);
+        Long fromOrderId = popularityRepository.findFirstOrderIdSince(LocalDateTime.now().minusDays(lookbackDays));
+        if (fromOrderId == null) {
+            return scores;
+        }
+        long[] cursor = new long[2]; // [最后一条明细ID, 本段行数]
+        do {
+            cursor[1] = 0;
+            popularityRepository.streamOrderLines(cursor[0], fromOrderId, CHUNK_SIZE, rs -> {
+                cursor[0] = rs.getLong("id");
+                cursor[1]++;
+                int pos = snapshot.positionOf(rs.getLong("book_id"));
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                if (pos >= 0 && createdAt != null) {
+                    long age = Math.max(0L, now - createdAt.getTime());
+                    scores[pos] += rs.getInt("quantity") * Math.exp(-decayPerMilli * age);
+                }
+            });
+        } while (cursor[1] == CHUNK_SIZE);
+        return scores;
+    }
+
+    /**
+     * 累加每日浏览：一天的浏览按当天正午计算距今时长
+     */
+    private void accumulateViews(CatalogSnapshot snapshot, double[] scores, double decayPerMilli, long now) {
+        if (viewWeight <= 0) {
+            return;
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        long[] cursor = new long[2]; // [最后一条记录ID, 本段行数]
+        do {
+            cursor[1] = 0;
+            popularityRepository.streamDailyViews(cursor[0], LocalDate.now().minusDays(lookbackDays), CHUNK_SIZE, rs -> {
+                cursor[0] = rs.getLong("id");
+                cursor[1]++;
+                int pos = snapshot.positionOf(rs.getLong("book_id"));
+                Date viewDate = rs.getDate("view_date");
+                if (pos >= 0 && viewDate != null) {
+                    long noon = viewDate.toLocalDate().atTime(12, 0).atZone(zone).toInstant().toEpochMilli();
+                    long age = Math.max(0L, now - noon);
+                    scores[pos] += viewWeight * rs.getLong("views") * Math.exp(-decayPerMilli * age);
+                }
+            });
+        } while (cursor[1] == CHUNK_SIZE);
+    }
+
+    /**
+     * 变化量同时达到绝对阈值和相对阈值才回写
+     */
+    private boolean movedMeaningfully(int oldPopularity, int newPopularity) {
+        int delta = Math.abs(newPopularity - oldPopularity);
+        return delta >= minDelta && delta >= Math.abs(oldPopularity) * minRelativeDelta;
+    }
+}
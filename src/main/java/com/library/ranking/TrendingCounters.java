@@ -0,0 +1,200 @@
+package com.library.ranking;
+
+import com.library.catalog.CatalogSnapshot;
+import com.library.search.TopK;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * 飙升榜滑动窗口计数器
+ * 以分钟为桶的环形缓冲区（共24小时），每个桶是图书ID -> 销量的原始类型哈希表；
+ * 另外维护最近1小时、最近24小时的累计表，时钟推进时把滑出窗口的桶从累计表中扣除，下单、取消时同步增减。
+ * 榜单不常驻堆：按窗口和分类刷新时遍历一次累计表，用TopK选出前maxLimit本，结果在refresh-ms内复用，不必每个请求都遍历累计表；
+ * 分类由客户端传入，目录快照中没有图书的分类直接返回空榜单，缓存的榜单数按LRU限制上限。
+ * 计数只保存在内存中，应用重启后从零开始累计
+ */
+@Component
+public class TrendingCounters {
+
+    private static final int BUCKETS = TrendingWindow.DAY.getMinutes();
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private final long refreshMillis;
+    private final int maxLimit;
+    private final LongSupplier clock;   // 当前时间（毫秒）
+
+    private final LongIntMap[] buckets = new LongIntMap[BUCKETS];
+    private final long[] bucketMinute = new long[BUCKETS]; // 槽位当前对应的分钟（自纪元起），-1为未使用
+    private final LongIntMap hourTotals = new LongIntMap();
+    private final LongIntMap dayTotals = new LongIntMap();
+    private final long startMinute;
+    private long currentMinute;
+
+    // 窗口+分类 -> 最近计算的榜单（LRU）
+    private final Map<String, Ranking> rankings;
+
+    private static final class Ranking {
+        final long[] bookIds;
+        final int[] sales;
+        final long computedAt;
+
+        Ranking(long[] bookIds, int[] sales, long computedAt) {
+            this.bookIds = bookIds;
+            this.sales = sales;
+            this.computedAt = computedAt;
+        }
+    }
+
+    @Autowired
+    public TrendingCounters(@Value("${trending.refresh-ms:5000}") long refreshMillis,
+                            @Value("${trending.max-limit:50}") int maxLimit,
+                            @Value("${trending.max-rankings:256}") int maxRankings) {
+        this(refreshMillis, maxLimit, maxRankings, System::currentTimeMillis);
+    }
+
+    TrendingCounters(long refreshMillis, int maxLimit, int maxRankings, LongSupplier clock) {
+        this.refreshMillis = refreshMillis;
+        this.maxLimit = maxLimit;
+        this.clock = clock;
+        this.rankings = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Ranking> eldest) {
+                return size() > maxRankings;
+            }
+        };
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongIntMap();
+        }
+        Arrays.fill(bucketMinute, -1L);
+        startMinute = clock.getAsLong() / MINUTE_MILLIS;
+        currentMinute = startMinute;
+        bucketMinute[(int) (startMinute % BUCKETS)] = startMinute;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * 记录销量变化
+     * @param quantity  下单为正数，取消为负数
+     * @param eventTime 订单创建时间（毫秒）；取消时从该时间所在的桶中扣除，已滑出24小时窗口或早于本次启动的订单忽略
+     */
+    public synchronized void record(long bookId, int quantity, long eventTime) {
+        advance(clock.getAsLong() / MINUTE_MILLIS);
+        long minute = Math.min(eventTime / MINUTE_MILLIS, currentMinute);
+        if (minute < startMinute || minute <= currentMinute - BUCKETS) {
+            return;
+        }
+        int slot = (int) (minute % BUCKETS);
+        if (bucketMinute[slot] != minute) {
+            return;
+        }
+        // 扣减不超过该桶中已记录的销量
+        int delta = quantity >= 0 ? quantity : -Math.min(-quantity, buckets[slot].get(bookId));
+        if (delta == 0) {
+            return;
+        }
+        buckets[slot].add(bookId, delta);
+        dayTotals.add(bookId, delta);
+        if (minute > currentMinute - TrendingWindow.HOUR.getMinutes()) {
+            hourTotals.add(bookId, delta);
+        }
+    }
+
+    /**
+     * 窗口内销量最高的图书
+     * @param categoryId 为null表示全站；否则只统计属于该分类的图书（依据目录快照），快照中没有该分类的图书时返回空榜单
+     * @return 按销量降序、ID升序
+     */
+    public synchronized TrendingHits top(TrendingWindow window, Long categoryId, int limit, CatalogSnapshot snapshot) {
+        if (categoryId != null && snapshot.count(categoryId) == 0) {
+            return new TrendingHits(new ArrayList<>(), new ArrayList<>());
+        }
+        long now = clock.getAsLong();
+        advance(now / MINUTE_MILLIS);
+        String key = window.getParam() + ':' + categoryId;
+        Ranking ranking = rankings.get(key);
+        if (ranking == null || now - ranking.computedAt >= refreshMillis) {
+            ranking = compute(window == TrendingWindow.HOUR ? hourTotals : dayTotals, categoryId, snapshot, now);
+            rankings.put(key, ranking);
+        }
+        int size = Math.min(limit, ranking.bookIds.length);
+        List<Long> bookIds = new ArrayList<>(size);
+        List<Integer> sales = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            bookIds.add(ranking.bookIds[i]);
+            sales.add(ranking.sales[i]);
+        }
+        return new TrendingHits(bookIds, sales);
+    }
+
+    /**
+     * 从累计表中选出前maxLimit本（Top-K堆选择）
+     */
+    private Ranking compute(LongIntMap totals, Long categoryId, CatalogSnapshot snapshot, long now) {
+        long[] bookIds = new long[totals.size()];
+        int[] sales = new int[totals.size()];
+        int[] count = new int[1];
+        totals.forEach((bookId, value) -> {
+            if (value > 0 && (categoryId == null || snapshot.inCategory(snapshot.positionOf(bookId), categoryId))) {
+                bookIds[count[0]] = bookId;
+                sales[count[0]] = value;
+                count[0]++;
+            }
+        });
+        int[] candidates = new int[count[0]];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = i;
+        }
+        int[] top = TopK.select(candidates, candidates.length, maxLimit, (a, b) -> sales[a] != sales[b]
+                ? Integer.compare(sales[b], sales[a]) : Long.compare(bookIds[a], bookIds[b]));
+        long[] topIds = new long[top.length];
+        int[] topSales = new int[top.length];
+        for (int i = 0; i < top.length; i++) {
+            topIds[i] = bookIds[top[i]];
+            topSales[i] = sales[top[i]];
+        }
+        return new Ranking(topIds, topSales, now);
+    }
+
+    /**
+     * 推进时钟：滑出1小时窗口的桶从小时累计中扣除，复用的槽位（滑出24小时窗口）从日累计中扣除后清空
+     */
+    private void advance(long nowMinute) {
+        if (nowMinute <= currentMinute) {
+            return;
+        }
+        if (nowMinute - currentMinute >= BUCKETS) {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i].clear();
+                bucketMinute[i] = -1L;
+            }
+            hourTotals.clear();
+            dayTotals.clear();
+            currentMinute = nowMinute - 1;
+        }
+        for (long minute = currentMinute + 1; minute <= nowMinute; minute++) {
+            long leavingHour = minute - TrendingWindow.HOUR.getMinutes();
+            int hourSlot = (int) (leavingHour % BUCKETS);
+            if (leavingHour >= 0 && bucketMinute[hourSlot] == leavingHour) {
+                buckets[hourSlot].forEach((bookId, value) -> hourTotals.add(bookId, -value));
+            }
+            int slot = (int) (minute % BUCKETS);
+            if (bucketMinute[slot] >= 0) {
+                buckets[slot].forEach((bookId, value) -> dayTotals.add(bookId, -value));
+                buckets[slot].clear();
+            }
+            bucketMinute[slot] = minute;
+        }
+        currentMinute = nowMinute;
+    }
+}
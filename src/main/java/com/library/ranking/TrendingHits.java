@@ -0,0 +1,16 @@
+package com.library.ranking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 飙升榜结果：图书ID（按窗口内销量降序）及对应销量
+ */
+@Data
+@AllArgsConstructor
+public class TrendingHits {
+    private List<Long> bookIds;
+    private List<Integer> sales;
+}
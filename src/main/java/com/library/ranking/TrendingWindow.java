@@ -0,0 +1,37 @@
+package com.library.ranking;
+
+/**
+ * 飙升榜统计窗口
+ */
+public enum TrendingWindow {
+    HOUR("1h", 60),     // 最近1小时
+    DAY("24h", 1440);   // 最近24小时
+
+    private final String param;
+    private final int minutes;
+
+    TrendingWindow(String param, int minutes) {
+        this.param = param;
+        this.minutes = minutes;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    public int getMinutes() {
+        return minutes;
+    }
+
+    /**
+     * 解析请求参数，未知取值返回null
+     */
+    public static TrendingWindow fromParam(String param) {
+        for (TrendingWindow window : values()) {
+            if (window.param.equalsIgnoreCase(param)) {
+                return window;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,218 @@
+package com.library.recommend;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 隐式反馈交替最小二乘（Hu, Koren, Volinsky 2008）
+ * 偏好p恒为1，置信度 c = 1 + alpha·r；固定一侧因子，另一侧每行独立求解
+ *   (YᵀY + Yᵀ(Cᵤ - I)Y + λI) xᵤ = YᵀCᵤ p(u)
+ * 其中YᵀY对所有行相同，只需按行累加该行有记录的少数图书，再做k×k的Cholesky分解。
+ * 因子以行优先的float数组保存（第i行为[i·k, (i+1)·k)），各行求解在ForkJoinPool中按区间二分并行
+ */
+final class AlsTrainer {
+
+    private static final int ROWS_PER_TASK = 128;
+
+    private final int factors;
+    private final int iterations;
+    private final double lambda;
+    private final double alpha;
+    private final ForkJoinPool pool;
+
+    AlsTrainer(int factors, int iterations, double lambda, double alpha, ForkJoinPool pool) {
+        this.factors = factors;
+        this.iterations = iterations;
+        this.lambda = lambda;
+        this.alpha = alpha;
+        this.pool = pool;
+    }
+
+    /**
+     * 训练结果：用户因子、图书因子
+     */
+    static final class Factors {
+        final int k;
+        final float[] users;
+        final float[] items;
+
+        Factors(int k, float[] users, float[] items) {
+            this.k = k;
+            this.users = users;
+            this.items = items;
+        }
+    }
+
+    Factors train(InteractionMatrix matrix, long seed) {
+        int k = factors;
+        float[] users = new float[matrix.users() * k];
+        float[] items = new float[matrix.items() * k];
+        // 小随机数初始化图书因子，用户因子由第一轮求解得到
+        Random random = new Random(seed);
+        float scale = (float) (0.1 / Math.sqrt(k));
+        for (int i = 0; i < items.length; i++) {
+            items[i] = (float) (random.nextGaussian() * scale);
+        }
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            solve(users, items, matrix.users(), matrix.items(),
+                    matrix.userOffsets, matrix.userItems, matrix.userValues);
+            solve(items, users, matrix.items(), matrix.users(),
+                    matrix.itemOffsets, matrix.itemUsers, matrix.itemValues);
+        }
+        return new Factors(k, users, items);
+    }
+
+    /**
+     * 固定fixed，求解target的每一行
+     */
+    private void solve(float[] target, float[] fixed, int targetRows, int fixedRows,
+                       int[] offsets, int[] columns, float[] values) {
+        double[] gram = pool.invoke(new GramTask(fixed, 0, fixedRows));
+        pool.invoke(new SolveTask(target, fixed, gram, offsets, columns, values, 0, targetRows));
+    }
+
+    /**
+     * YᵀY（只累加上三角，按区间二分后求和）
+     */
+    private final class GramTask extends RecursiveTask<double[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final float[] fixed;
+        private final int from;
+        private final int to;
+
+        GramTask(float[] fixed, int from, int to) {
+            this.fixed = fixed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected double[] compute() {
+            int k = factors;
+            if (to - from <= ROWS_PER_TASK * 8) {
+                double[] gram = new double[k * k];
+                for (int row = from; row < to; row++) {
+                    int base = row * k;
+                    for (int a = 0; a < k; a++) {
+                        double ya = fixed[base + a];
+                        for (int b = a; b < k; b++) {
+                            gram[a * k + b] += ya * fixed[base + b];
+                        }
+                    }
+                }
+                return gram;
+            }
+            int middle = (from + to) >>> 1;
+            GramTask left = new GramTask(fixed, from, middle);
+            left.fork();
+            double[] gram = new GramTask(fixed, middle, to).compute();
+            double[] other = left.join();
+            for (int i = 0; i < gram.length; i++) {
+                gram[i] += other[i];
+            }
+            return gram;
+        }
+    }
+
+    private final class SolveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final float[] target;
+        private final float[] fixed;
+        private final double[] gram;
+        private final int[] offsets;
+        private final int[] columns;
+        private final float[] values;
+        private final int from;
+        private final int to;
+
+        SolveTask(float[] target, float[] fixed, double[] gram, int[] offsets, int[] columns, float[] values,
+                  int from, int to) {
+            this.target = target;
+            this.fixed = fixed;
+            this.gram = gram;
+            this.offsets = offsets;
+            this.columns = columns;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ROWS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SolveTask(target, fixed, gram, offsets, columns, values, from, middle),
+                        new SolveTask(target, fixed, gram, offsets, columns, values, middle, to));
+                return;
+            }
+            int k = factors;
+            double[] a = new double[k * k];
+            double[] b = new double[k];
+            for (int row = from; row < to; row++) {
+                System.arraycopy(gram, 0, a, 0, a.length);
+                Arrays.fill(b, 0d);
+                for (int d = 0; d < k; d++) {
+                    a[d * k + d] += lambda;
+                }
+                for (int e = offsets[row]; e < offsets[row + 1]; e++) {
+                    int base = columns[e] * k;
+                    double confidence = 1 + alpha * values[e];
+                    for (int p = 0; p < k; p++) {
+                        double yp = fixed[base + p];
+                        b[p] += confidence * yp;
+                        double weighted = (confidence - 1) * yp;
+                        for (int q = p; q < k; q++) {
+                            a[p * k + q] += weighted * fixed[base + q];
+                        }
+                    }
+                }
+                choleskySolve(a, b, k);
+                int out = row * k;
+                for (int d = 0; d < k; d++) {
+                    target[out + d] = (float) b[d];
+                }
+            }
+        }
+    }
+
+    /**
+     * 就地求解对称正定方程组 A x = b（A只使用上三角），结果写回b
+     */
+    static void choleskySolve(double[] a, double[] b, int k) {
+        // A = UᵀU，U存放在a的上三角
+        for (int i = 0; i < k; i++) {
+            for (int j = i; j < k; j++) {
+                double sum = a[i * k + j];
+                for (int p = 0; p < i; p++) {
+                    sum -= a[p * k + i] * a[p * k + j];
+                }
+                if (i == j) {
+                    a[i * k + i] = Math.sqrt(Math.max(sum, 1e-12));
+                } else {
+                    a[i * k + j] = sum / a[i * k + i];
+                }
+            }
+        }
+        // Uᵀy = b
+        for (int i = 0; i < k; i++) {
+            double sum = b[i];
+            for (int p = 0; p < i; p++) {
+                sum -= a[p * k + i] * b[p];
+            }
+            b[i] = sum / a[i * k + i];
+        }
+        // U x = y
+        for (int i = k - 1; i >= 0; i--) {
+            double sum = b[i];
+            for (int p = i + 1; p < k; p++) {
+                sum -= a[i * k + p] * b[p];
+            }
+            b[i] = sum / a[i * k + i];
+        }
+    }
+}
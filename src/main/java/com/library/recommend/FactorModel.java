@@ -0,0 +1,264 @@
+package com.library.recommend;
+
+import com.library.search.TopK;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongPredicate;
+
+/**
+ * 因子文件与内存映射模型
+ * 训练结果写成两个紧凑的小端二进制文件（32字节文件头 + 原始数组）：
+ *   items.bin：图书ID[n]、图书因子[n·k]
+ *   users.bin：用户ID[m]、用户因子[m·k]、已交互图书的CSR（offsets[m+1]、图书下标[e]），用于排除已购/已收藏图书
+ * 加载时整体只读映射，因子和ID直接以FloatBuffer/LongBuffer视图访问，不复制到堆内存；
+ * 两个文件头中的训练时间必须一致，防止读到不同批次的文件
+ */
+final class FactorModel {
+
+    static final String ITEMS_FILE = "items.bin";
+    static final String USERS_FILE = "users.bin";
+
+    private static final int ITEMS_MAGIC = 0x414C5349; // "ALSI"
+    private static final int USERS_MAGIC = 0x414C5355; // "ALSU"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+    final long trainedAt;
+    final int k;
+    final int itemCount;
+    final int userCount;
+    final int entryCount;
+    private final LongBuffer itemIds;
+    private final FloatBuffer itemFactors;
+    private final LongBuffer userIds;
+    private final FloatBuffer userFactors;
+    private final IntBuffer seenOffsets;
+    private final IntBuffer seenItems;
+
+    private FactorModel(long trainedAt, int k, ByteBuffer items, ByteBuffer users) throws IOException {
+        this.trainedAt = trainedAt;
+        this.k = k;
+        this.itemCount = items.getInt(20);
+        this.userCount = users.getInt(20);
+        this.entryCount = users.getInt(24);
+        long position = HEADER_BYTES;
+        itemIds = slice(items, position, 8L * itemCount).asLongBuffer();
+        position += 8L * itemCount;
+        itemFactors = slice(items, position, 4L * itemCount * k).asFloatBuffer();
+
+        position = HEADER_BYTES;
+        userIds = slice(users, position, 8L * userCount).asLongBuffer();
+        position += 8L * userCount;
+        userFactors = slice(users, position, 4L * userCount * k).asFloatBuffer();
+        position += 4L * userCount * k;
+        seenOffsets = slice(users, position, 4L * (userCount + 1)).asIntBuffer();
+        position += 4L * (userCount + 1);
+        seenItems = slice(users, position, 4L * entryCount).asIntBuffer();
+    }
+
+    long mappedBytes() {
+        return HEADER_BYTES * 2L + 8L * itemCount + 4L * itemCount * k
+                + 8L * userCount + 4L * userCount * k + 4L * (userCount + 1) + 4L * entryCount;
+    }
+
+    /**
+     * 为用户计算得分最高的图书：用户因子与全部图书因子做点积，跳过已交互和accept拒绝的图书后取Top-K
+     * @return 按得分降序的图书ID；模型中没有该用户时返回null
+     */
+    long[] recommend(long userId, int limit, LongPredicate accept) {
+        int user = indexOf(userIds, userCount, userId);
+        if (user < 0) {
+            return null;
+        }
+        float[] vector = new float[k];
+        userFactors.get(user * k, vector);
+
+        boolean[] excluded = new boolean[itemCount];
+        for (int e = seenOffsets.get(user); e < seenOffsets.get(user + 1); e++) {
+            excluded[seenItems.get(e)] = true;
+        }
+        float[] scores = new float[itemCount];
+        int[] candidates = new int[itemCount];
+        int n = 0;
+        for (int item = 0; item < itemCount; item++) {
+            if (excluded[item] || !accept.test(itemIds.get(item))) {
+                continue;
+            }
+            int base = item * k;
+            float score = 0f;
+            for (int d = 0; d < k; d++) {
+                score += vector[d] * itemFactors.get(base + d);
+            }
+            scores[item] = score;
+            candidates[n++] = item;
+        }
+        int[] top = TopK.select(candidates, n, limit, (a, b) -> scores[a] != scores[b]
+                ? Float.compare(scores[b], scores[a]) : Long.compare(itemIds.get(a), itemIds.get(b)));
+        long[] result = new long[top.length];
+        for (int i = 0; i < top.length; i++) {
+            result[i] = itemIds.get(top[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 写出因子文件：先写临时文件再原子替换，图书文件最后替换
+     */
+    static void write(Path dir, InteractionMatrix matrix, AlsTrainer.Factors factors, long trainedAt)
+            throws IOException {
+        Files.createDirectories(dir);
+        Path usersTmp = dir.resolve(USERS_FILE + ".tmp");
+        Path itemsTmp = dir.resolve(ITEMS_FILE + ".tmp");
+        try (Writer out = new Writer(usersTmp)) {
+            out.header(USERS_MAGIC, trainedAt, factors.k, matrix.users(), matrix.entries());
+            out.longs(matrix.userIds);
+            out.floats(factors.users);
+            out.ints(matrix.userOffsets);
+            out.ints(matrix.userItems);
+        }
+        try (Writer out = new Writer(itemsTmp)) {
+            out.header(ITEMS_MAGIC, trainedAt, factors.k, matrix.items(), 0);
+            out.longs(matrix.itemIds);
+            out.floats(factors.items);
+        }
+        Files.move(usersTmp, dir.resolve(USERS_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(itemsTmp, dir.resolve(ITEMS_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 映射目录中的因子文件
+     * @return 文件不存在时返回null
+     * @throws IOException 文件损坏、版本不符或两个文件不属于同一次训练
+     */
+    static FactorModel open(Path dir) throws IOException {
+        Path itemsPath = dir.resolve(ITEMS_FILE);
+        Path usersPath = dir.resolve(USERS_FILE);
+        if (!Files.exists(itemsPath) || !Files.exists(usersPath)) {
+            return null;
+        }
+        ByteBuffer items = map(itemsPath, ITEMS_MAGIC);
+        ByteBuffer users = map(usersPath, USERS_MAGIC);
+        long trainedAt = items.getLong(8);
+        int k = items.getInt(16);
+        if (users.getLong(8) != trainedAt || users.getInt(16) != k) {
+            throw new IOException("因子文件不属于同一次训练");
+        }
+        return new FactorModel(trainedAt, k, items, users);
+    }
+
+    private static ByteBuffer map(Path path, int magic) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // 单个ByteBuffer最多映射2GB
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("因子文件超过2GB，无法映射: " + path + "（" + channel.size() + "字节）");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != magic || buffer.getInt(4) != VERSION) {
+                throw new IOException("因子文件格式不正确: " + path);
+            }
+            return buffer;
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, long position, long length) throws IOException {
+        if (length < 0 || position + length > buffer.capacity()) {
+            throw new IOException("因子文件不完整");
+        }
+        return buffer.slice((int) position, (int) length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int indexOf(LongBuffer ids, int count, long id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long value = ids.get(middle);
+            if (value < id) {
+                low = middle + 1;
+            } else if (value > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 经固定大小缓冲区顺序写出原始数组
+     */
+    private static final class Writer implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        Writer(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void header(int magic, long trainedAt, int k, int count, int entries) throws IOException {
+            ensure(HEADER_BYTES);
+            buffer.putInt(magic).putInt(VERSION).putLong(trainedAt).putInt(k).putInt(count).putInt(entries).putInt(0);
+        }
+
+        void longs(long[] values) throws IOException {
+            for (long value : values) {
+                ensure(8);
+                buffer.putLong(value);
+            }
+        }
+
+        void floats(float[] values) throws IOException {
+            for (float value : values) {
+                ensure(4);
+                buffer.putFloat(value);
+            }
+        }
+
+        void ints(int[] values) throws IOException {
+            for (int value : values) {
+                ensure(4);
+                buffer.putInt(value);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+                channel.force(false);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.library.recommend;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 隐式反馈矩阵（用户 x 图书）
+ * 行为记录按(用户, 图书)合并权重后，以CSR形式同时保存按用户和按图书两个方向，供ALS交替求解；
+ * 用户ID、图书ID各自排序编号，下标即因子矩阵中的行号
+ */
+final class InteractionMatrix {
+
+    final long[] userIds;      // 用户下标 -> 用户ID（升序）
+    final long[] itemIds;      // 图书下标 -> 图书ID（升序）
+    final int[] userOffsets;   // 用户u的记录为[userOffsets[u], userOffsets[u+1])
+    final int[] userItems;     // 记录 -> 图书下标（行内升序）
+    final float[] userValues;  // 记录 -> 合并后的权重
+    final int[] itemOffsets;   // 图书i的记录为[itemOffsets[i], itemOffsets[i+1])
+    final int[] itemUsers;     // 记录 -> 用户下标（行内升序）
+    final float[] itemValues;
+
+    private InteractionMatrix(long[] userIds, long[] itemIds, int[] userOffsets, int[] userItems, float[] userValues,
+                              int[] itemOffsets, int[] itemUsers, float[] itemValues) {
+        this.userIds = userIds;
+        this.itemIds = itemIds;
+        this.userOffsets = userOffsets;
+        this.userItems = userItems;
+        this.userValues = userValues;
+        this.itemOffsets = itemOffsets;
+        this.itemUsers = itemUsers;
+        this.itemValues = itemValues;
+    }
+
+    int users() {
+        return userIds.length;
+    }
+
+    int items() {
+        return itemIds.length;
+    }
+
+    int entries() {
+        return userItems.length;
+    }
+
+    /**
+     * 逐条收集的原始行为
+     */
+    static final class Builder {
+        private long[] users = new long[1024];
+        private long[] items = new long[1024];
+        private float[] values = new float[1024];
+        private int size;
+
+        void add(long userId, long bookId, float value) {
+            if (value <= 0) {
+                return;
+            }
+            if (size == users.length) {
+                int newSize = size * 2;
+                users = Arrays.copyOf(users, newSize);
+                items = Arrays.copyOf(items, newSize);
+                values = Arrays.copyOf(values, newSize);
+            }
+            users[size] = userId;
+            items[size] = bookId;
+            values[size] = value;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * 编号、按用户计数排序，再在行内按图书下标排序并合并重复记录，最后转置得到按图书方向的CSR
+         */
+        InteractionMatrix build() {
+            long[] userIds = Arrays.stream(users, 0, size).sorted().distinct().toArray();
+            long[] itemIds = Arrays.stream(items, 0, size).sorted().distinct().toArray();
+            Map<Long, Integer> itemIndex = new HashMap<>(itemIds.length * 2);
+            for (int i = 0; i < itemIds.length; i++) {
+                itemIndex.put(itemIds[i], i);
+            }
+
+            int[] rowOf = new int[size];
+            int[] offsets = new int[userIds.length + 1];
+            for (int r = 0; r < size; r++) {
+                rowOf[r] = Arrays.binarySearch(userIds, users[r]);
+                offsets[rowOf[r] + 1]++;
+            }
+            for (int u = 0; u < userIds.length; u++) {
+                offsets[u + 1] += offsets[u];
+            }
+            // 行内排序键：高32位图书下标，低32位权重的位模式（正浮点数的位模式非负）
+            long[] packed = new long[size];
+            int[] cursor = Arrays.copyOf(offsets, userIds.length);
+            for (int r = 0; r < size; r++) {
+                packed[cursor[rowOf[r]]++] = ((long) itemIndex.get(items[r]) << 32)
+                        | (Float.floatToIntBits(values[r]) & 0xFFFFFFFFL);
+            }
+
+            int[] userOffsets = new int[userIds.length + 1];
+            int[] userItems = new int[size];
+            float[] userValues = new float[size];
+            int n = 0;
+            for (int u = 0; u < userIds.length; u++) {
+                Arrays.sort(packed, offsets[u], offsets[u + 1]);
+                int last = -1;
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int item = (int) (packed[e] >>> 32);
+                    float value = Float.intBitsToFloat((int) packed[e]);
+                    if (item == last) {
+                        userValues[n - 1] += value;
+                    } else {
+                        userItems[n] = item;
+                        userValues[n] = value;
+                        n++;
+                        last = item;
+                    }
+                }
+                userOffsets[u + 1] = n;
+            }
+            userItems = Arrays.copyOf(userItems, n);
+            userValues = Arrays.copyOf(userValues, n);
+
+            // 转置：按用户顺序填充，每本书的用户下标自然升序
+            int[] itemOffsets = new int[itemIds.length + 1];
+            for (int e = 0; e < n; e++) {
+                itemOffsets[userItems[e] + 1]++;
+            }
+            for (int i = 0; i < itemIds.length; i++) {
+                itemOffsets[i + 1] += itemOffsets[i];
+            }
+            int[] itemUsers = new int[n];
+            float[] itemValues = new float[n];
+            int[] itemCursor = Arrays.copyOf(itemOffsets, itemIds.length);
+            for (int u = 0; u < userIds.length; u++) {
+                for (int e = userOffsets[u]; e < userOffsets[u + 1]; e++) {
+                    int slot = itemCursor[userItems[e]]++;
+                    itemUsers[slot] = u;
+                    itemValues[slot] = userValues[e];
+                }
+            }
+            return new InteractionMatrix(userIds, itemIds, userOffsets, userItems, userValues,
+                    itemOffsets, itemUsers, itemValues);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.library.recommend;
+
+import com.library.repository.RecommendationRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongPredicate;
+
+/**
+ * 个性化推荐引擎
+ * 定时从订单（未取消）、收藏、喜欢中读取隐式反馈，在进程内用ALS训练用户/图书因子并写入因子文件，
+ * 随后重新映射文件替换当前模型；启动时直接映射上次训练的文件，没有文件时在训练线程池中异步训练一次，不阻塞启动
+ */
+@Slf4j
+@Component
+public class RecommendationEngine {
+
+    private static final int CHUNK_SIZE = 10000;
+
+    private final RecommendationRepository recommendationRepository;
+    private final Path modelDir;
+    private final float purchaseWeight;
+    private final float wishlistWeight;
+    private final float favoriteWeight;
+    private final AlsTrainer trainer;
+    private final ForkJoinPool pool;
+
+    private volatile FactorModel model;
+
+    public RecommendationEngine(RecommendationRepository recommendationRepository,
+                                @Value("${recommend.model-dir:data/recommend}") String modelDir,
+                                @Value("${recommend.factors:32}") int factors,
+                                @Value("${recommend.iterations:10}") int iterations,
+                                @Value("${recommend.lambda:0.1}") double lambda,
+                                @Value("${recommend.alpha:10}") double alpha,
+                                @Value("${recommend.purchase-weight:1.0}") float purchaseWeight,
+                                @Value("${recommend.wishlist-weight:0.5}") float wishlistWeight,
+                                @Value("${recommend.favorite-weight:0.5}") float favoriteWeight,
+                                @Value("${recommend.parallelism:0}") int parallelism) {
+        this.recommendationRepository = recommendationRepository;
+        this.modelDir = Paths.get(modelDir);
+        this.purchaseWeight = purchaseWeight;
+        this.wishlistWeight = wishlistWeight;
+        this.favoriteWeight = favoriteWeight;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.trainer = new AlsTrainer(factors, iterations, lambda, alpha, pool);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            model = FactorModel.open(modelDir);
+        } catch (IOException e) {
+            log.warn("推荐模型文件无法加载，将重新训练: {}", e.getMessage());
+        }
+        if (model != null) {
+            log.info("推荐模型已加载: 用户数={}, 图书数={}, 映射{}KB",
+                    model.userCount, model.itemCount, model.mappedBytes() / 1024);
+        } else {
+            CompletableFuture.runAsync(this::train, pool).whenComplete((ignored, e) -> {
+                if (e != null) {
+                    log.error("启动时训练推荐模型失败", e);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 定时全量训练；训练期间旧模型继续服务，新文件写入并映射成功后整体替换
+     */
+    @Scheduled(cron = "${recommend.train-cron:0 30 3 * * *}")
+    public synchronized void train() {
+        long start = System.currentTimeMillis();
+        InteractionMatrix matrix = loadInteractions();
+        if (matrix.entries() == 0) {
+            log.info("暂无用户行为数据，跳过推荐模型训练");
+            return;
+        }
+        long loaded = System.currentTimeMillis();
+        AlsTrainer.Factors factors = trainer.train(matrix, start);
+        long trained = System.currentTimeMillis();
+        try {
+            FactorModel.write(modelDir, matrix, factors, start);
+            model = FactorModel.open(modelDir);
+        } catch (IOException e) {
+            log.error("推荐模型文件写入失败，继续使用旧模型", e);
+            return;
+        }
+        log.info("推荐模型训练完成: 用户数={}, 图书数={}, 行为数={}, 读取{}ms, 训练{}ms, 写入{}ms",
+                matrix.users(), matrix.items(), matrix.entries(),
+                loaded - start, trained - loaded, System.currentTimeMillis() - trained);
+    }
+
+    public boolean isReady() {
+        return model != null;
+    }
+
+    /**
+     * 为用户推荐图书（已购买、收藏、喜欢的图书不会出现）
+     * @param accept 过滤候选图书，如只保留目录中仍在售的图书
+     * @return 按得分降序的图书ID；模型未就绪或用户没有行为记录时返回empty
+     */
+    public Optional<List<Long>> recommend(long userId, int limit, LongPredicate accept) {
+        FactorModel current = model;
+        if (current == null) {
+            return Optional.empty();
+        }
+        long[] bookIds = current.recommend(userId, limit, accept);
+        if (bookIds == null) {
+            return Optional.empty();
+        }
+        List<Long> result = new ArrayList<>(bookIds.length);
+        for (long bookId : bookIds) {
+            result.add(bookId);
+        }
+        return Optional.of(result);
+    }
+
+    private InteractionMatrix loadInteractions() {
+        InteractionMatrix.Builder builder = new InteractionMatrix.Builder();
+        long[] cursor = new long[2]; // [最后一条记录ID, 本段行数]
+        do {
+            cursor[1] = 0;
+            recommendationRepository.streamPurchases(cursor[0], CHUNK_SIZE, rs -> {
+                cursor[0] = rs.getLong("id");
+                cursor[1]++;
+                builder.add(rs.getLong("user_id"), rs.getLong("book_id"),
+                        purchaseWeight * Math.max(1, rs.getInt("quantity")));
+            });
+        } while (cursor[1] == CHUNK_SIZE);
+
+        cursor[0] = 0;
+        do {
+            cursor[1] = 0;
+            recommendationRepository.streamWishlist(cursor[0], CHUNK_SIZE, rs -> {
+                cursor[0] = rs.getLong("id");
+                cursor[1]++;
+                builder.add(rs.getLong("user_id"), rs.getLong("book_id"), wishlistWeight);
+            });
+        } while (cursor[1] == CHUNK_SIZE);
+
+        cursor[0] = 0;
+        do {
+            cursor[1] = 0;
+            recommendationRepository.streamFavorites(cursor[0], CHUNK_SIZE, rs -> {
+                cursor[0] = rs.getLong("id");
+                cursor[1]++;
+                builder.add(rs.getLong("user_id"), rs.getLong("book_id"), favoriteWeight);
+            });
+        } while (cursor[1] == CHUNK_SIZE);
+        return builder.build();
+    }
+}
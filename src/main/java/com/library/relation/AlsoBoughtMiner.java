@@ -0,0 +1,261 @@
+package com.library.relation;
+
+import com.library.model.entity.BookRelation;
+import com.library.repository.BookRelationRepository;
+import com.library.search.TopK;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * “买了还买”关联挖掘任务
+ * 从订单高水位之后按订单ID顺序分批流式读取order_items，同一订单内的图书两两计数（原始类型哈希表），
+ * 再与book_relations中已有的also_bought分值合并，每本书只保留共同购买次数最高的N本，批量写回。
+ * 写入与水位推进在同一事务中完成，任务中断后从上次水位继续，不会重复计数；
+ * 由于每本书只保存前N个邻居，落选的计数会被丢弃，长期分值为近似值
+ */
+@Slf4j
+@Component
+public class AlsoBoughtMiner {
+
+    private static final String JOB_NAME = "also_bought";
+    private static final String RELATION_TYPE = BookRelation.RelationType.also_bought.name();
+    // 每次读取已有关联、写回的源图书数
+    private static final int WRITE_BATCH_BOOKS = 500;
+
+    private final BookRelationRepository bookRelationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int topN;
+    private final int chunkOrders;
+    private final int maxBasket;
+    private final int maxPairs;
+    private final long settleMinutes;
+
+    public AlsoBoughtMiner(BookRelationRepository bookRelationRepository,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${relation.also-bought.top-n:20}") int topN,
+                           @Value("${relation.also-bought.chunk-orders:5000}") int chunkOrders,
+                           @Value("${relation.also-bought.max-basket:50}") int maxBasket,
+                           @Value("${relation.also-bought.max-pairs:2000000}") int maxPairs,
+                           @Value("${relation.also-bought.settle-minutes:5}") long settleMinutes) {
+        this.bookRelationRepository = bookRelationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.topN = topN;
+        this.chunkOrders = chunkOrders;
+        this.maxBasket = maxBasket;
+        this.maxPairs = maxPairs;
+        this.settleMinutes = settleMinutes;
+    }
+
+    /**
+     * 定时挖掘新订单；计数表超过上限时先合并写回一次再继续，内存占用与历史订单量无关
+     */
+    @Scheduled(fixedDelayString = "${relation.also-bought.interval-ms:600000}",
+            initialDelayString = "${relation.also-bought.interval-ms:600000}")
+    public synchronized void mine() {
+        long start = System.currentTimeMillis();
+        long watermark = bookRelationRepository.findLastOrderId(JOB_NAME);
+        // 只处理创建已超过settleMinutes的订单，避免事务提交顺序与ID顺序不一致时漏掉订单
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(settleMinutes);
+        PairCountMap pairs = new PairCountMap(1 << 16);
+        BasketCollector collector = new BasketCollector(pairs);
+        long processed = watermark;
+        long flushed = watermark;
+
+        while (true) {
+            Long boundary = bookRelationRepository.findOrderIdBoundary(processed, chunkOrders, cutoff);
+            if (boundary == null) {
+                break;
+            }
+            bookRelationRepository.streamOrderLines(processed, boundary, collector);
+            collector.finishBasket();
+            processed = boundary;
+            if (pairs.size() >= maxPairs) {
+                flush(pairs, processed);
+                pairs.clear();
+                flushed = processed;
+            }
+        }
+        if (processed > flushed) {
+            flush(pairs, processed);
+        }
+        if (processed > watermark) {
+            log.info("买了还买关联挖掘完成: 订单ID {} -> {}, 订单数={}, 耗时{}ms",
+                    watermark, processed, collector.orders, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 将一批图书对计数合并进book_relations并推进水位（同一事务）
+     */
+    private void flush(PairCountMap pairs, long lastOrderId) {
+        // 每个无序对展开为两个方向，排序后同一源图书的邻居连续排列
+        long[] pairKeys = pairs.keys();
+        long[] directed = new long[pairKeys.length * 2];
+        for (int i = 0; i < pairKeys.length; i++) {
+            long a = PairCountMap.first(pairKeys[i]);
+            long b = PairCountMap.second(pairKeys[i]);
+            directed[2 * i] = (a << 32) | b;
+            directed[2 * i + 1] = (b << 32) | a;
+        }
+        Arrays.sort(directed);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            int from = 0;
+            while (from < directed.length) {
+                int to = from;
+                int books = 0;
+                while (to < directed.length && (books < WRITE_BATCH_BOOKS
+                        || PairCountMap.first(directed[to]) == PairCountMap.first(directed[to - 1]))) {
+                    if (to == from || PairCountMap.first(directed[to]) != PairCountMap.first(directed[to - 1])) {
+                        books++;
+                    }
+                    to++;
+                }
+                mergeBatch(directed, from, to, pairs);
+                from = to;
+            }
+            bookRelationRepository.saveLastOrderId(JOB_NAME, lastOrderId);
+        });
+    }
+
+    /**
+     * 合并一批源图书：已有分值加上本次增量，取前N个邻居，只写入新增或分值变化的记录，删除落选的记录
+     */
+    private void mergeBatch(long[] directed, int from, int to, PairCountMap pairs) {
+        Map<Long, Map<Long, Integer>> existing = new LinkedHashMap<>();
+        for (int i = from; i < to; i++) {
+            existing.computeIfAbsent(PairCountMap.first(directed[i]), k -> new HashMap<>());
+        }
+        for (Map<String, Object> row : bookRelationRepository.findRelations(existing.keySet(), RELATION_TYPE)) {
+            long bookId = ((Number) row.get("book_id")).longValue();
+            long relatedBookId = ((Number) row.get("related_book_id")).longValue();
+            int score = row.get("score") != null ? ((Number) row.get("score")).intValue() : 0;
+            existing.get(bookId).put(relatedBookId, score);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<SqlParameterSource> upserts = new ArrayList<>();
+        List<SqlParameterSource> deletes = new ArrayList<>();
+        int i = from;
+        while (i < to) {
+            long bookId = PairCountMap.first(directed[i]);
+            Map<Long, Integer> current = existing.get(bookId);
+            Map<Long, Integer> merged = new HashMap<>(current);
+            for (; i < to && PairCountMap.first(directed[i]) == bookId; i++) {
+                long relatedBookId = PairCountMap.second(directed[i]);
+                merged.merge(relatedBookId, pairs.get(PairCountMap.key(bookId, relatedBookId)), Integer::sum);
+            }
+
+            long[] related = new long[merged.size()];
+            int[] scores = new int[merged.size()];
+            int[] candidates = new int[merged.size()];
+            int n = 0;
+            for (Map.Entry<Long, Integer> entry : merged.entrySet()) {
+                related[n] = entry.getKey();
+                scores[n] = entry.getValue();
+                candidates[n] = n;
+                n++;
+            }
+            int[] top = TopK.select(candidates, n, topN, (x, y) -> scores[x] != scores[y]
+                    ? Integer.compare(scores[y], scores[x]) : Long.compare(related[x], related[y]));
+
+            Map<Long, Integer> kept = new HashMap<>();
+            for (int index : top) {
+                kept.put(related[index], scores[index]);
+                if (!Integer.valueOf(scores[index]).equals(current.get(related[index]))) {
+                    upserts.add(new MapSqlParameterSource()
+                            .addValue("bookId", bookId)
+                            .addValue("relatedBookId", related[index])
+                            .addValue("relationType", RELATION_TYPE)
+                            .addValue("score", scores[index])
+                            .addValue("now", now));
+                }
+            }
+            for (Long relatedBookId : current.keySet()) {
+                if (!kept.containsKey(relatedBookId)) {
+                    deletes.add(new MapSqlParameterSource()
+                            .addValue("bookId", bookId)
+                            .addValue("relatedBookId", relatedBookId)
+                            .addValue("relationType", RELATION_TYPE));
+                }
+            }
+        }
+        bookRelationRepository.upsertRelations(upserts.toArray(new SqlParameterSource[0]));
+        bookRelationRepository.deleteRelations(deletes.toArray(new SqlParameterSource[0]));
+    }
+
+    /**
+     * 按订单聚合流式读取的明细行：订单ID变化时对上一订单内的图书两两计数
+     */
+    private final class BasketCollector implements RowCallbackHandler {
+
+        private final PairCountMap pairs;
+        private long[] basket = new long[16];
+        private int basketSize;
+        private long currentOrderId = -1;
+        private long orders;
+
+        BasketCollector(PairCountMap pairs) {
+            this.pairs = pairs;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long orderId = rs.getLong("order_id");
+            long bookId = rs.getLong("book_id");
+            if (orderId != currentOrderId) {
+                finishBasket();
+                currentOrderId = orderId;
+            }
+            // 图书对的键以32位存放ID，超出范围的图书不参与计数
+            if (bookId <= 0 || bookId > Integer.MAX_VALUE) {
+                return;
+            }
+            if (basketSize == basket.length) {
+                basket = Arrays.copyOf(basket, basketSize * 2);
+            }
+            basket[basketSize++] = bookId;
+        }
+
+        /**
+         * 结束当前订单：去重后两两计数；图书种类过多的订单（批量采购等）不代表关联偏好，直接跳过
+         */
+        void finishBasket() {
+            if (currentOrderId >= 0) {
+                orders++;
+            }
+            Arrays.sort(basket, 0, basketSize);
+            int distinct = 0;
+            for (int i = 0; i < basketSize; i++) {
+                if (distinct == 0 || basket[i] != basket[distinct - 1]) {
+                    basket[distinct++] = basket[i];
+                }
+            }
+            if (distinct >= 2 && distinct <= maxBasket) {
+                for (int i = 0; i < distinct; i++) {
+                    for (int j = i + 1; j < distinct; j++) {
+                        pairs.add(PairCountMap.key(basket[i], basket[j]), 1);
+                    }
+                }
+            }
+            basketSize = 0;
+            currentOrderId = -1;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.library.relation;
+
+import com.library.model.dto.RelationGraphStatsDTO;
+import com.library.model.entity.BookRelation;
+import com.library.repository.BookRelationRepository;
+import com.library.search.TopK;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 图书关联图（CSR压缩稀疏行存储）
+ * 全部book_relations加载为：节点ID表nodeIds、各节点出边起点offsets、目标节点targets、关联类型relationType与分值weights，
+ * 每个节点的出边按分值降序排列。相关推荐直接在内存中读取，直接关联不足时按权重做两跳扩展。
+ * 启动时构建，之后定期整体重建并原子替换，查询始终读取一个完整的图
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookRelationGraph {
+
+    private static final int CHUNK_SIZE = 10000;
+
+    private final BookRelationRepository bookRelationRepository;
+
+    private volatile Graph graph = Graph.EMPTY;
+    private volatile boolean ready = false;
+    private volatile long buildMillis;
+    private volatile LocalDateTime builtAt;
+
+    /**
+     * 不可变图数据
+     */
+    private static final class Graph {
+        static final Graph EMPTY = new Graph(new long[0], new int[1], new int[0], new byte[0], new int[0]);
+
+        final long[] nodeIds;      // 节点 -> 图书ID（升序）
+        final int[] offsets;       // 节点i的出边为[offsets[i], offsets[i+1])
+        final int[] targets;       // 边 -> 目标节点
+        final byte[] relationType; // 边 -> RelationType序号
+        final int[] weights;       // 边 -> 分值（不小于1）
+
+        Graph(long[] nodeIds, int[] offsets, int[] targets, byte[] relationType, int[] weights) {
+            this.nodeIds = nodeIds;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.relationType = relationType;
+            this.weights = weights;
+        }
+
+        int node(long bookId) {
+            return Arrays.binarySearch(nodeIds, bookId);
+        }
+
+        int edgeCount() {
+            return targets.length;
+        }
+
+        long memoryBytes() {
+            return 8L * nodeIds.length + 4L * offsets.length + 4L * targets.length
+                    + relationType.length + 4L * weights.length;
+        }
+
+        long weightSum(int node) {
+            long sum = 0;
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                sum += weights[e];
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * 分段读取的原始边（图书ID形式）
+     */
+    private static final class EdgeBuffer {
+        long[] sources = new long[1024];
+        long[] destinations = new long[1024];
+        byte[] types = new byte[1024];
+        int[] weights = new int[1024];
+        int size;
+        long lastId;
+        int rowsInChunk;
+
+        void add(long source, long destination, byte type, int weight) {
+            if (size == sources.length) {
+                int newSize = size * 2;
+                sources = Arrays.copyOf(sources, newSize);
+                destinations = Arrays.copyOf(destinations, newSize);
+                types = Arrays.copyOf(types, newSize);
+                weights = Arrays.copyOf(weights, newSize);
+            }
+            sources[size] = source;
+            destinations[size] = destination;
+            types[size] = type;
+            weights[size] = weight;
+            size++;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 定期重建：新图在旧图继续服务期间构建，完成后整体替换
+     */
+    @Scheduled(fixedDelayString = "${relation.graph.rebuild-ms:300000}",
+            initialDelayString = "${relation.graph.rebuild-ms:300000}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        EdgeBuffer buffer = new EdgeBuffer();
+        while (true) {
+            buffer.rowsInChunk = 0;
+            bookRelationRepository.streamRelationsAfter(buffer.lastId, CHUNK_SIZE, rs -> {
+                buffer.rowsInChunk++;
+                buffer.lastId = rs.getLong("id");
+                long source = rs.getLong("book_id");
+                long destination = rs.getLong("related_book_id");
+                BookRelation.RelationType type = parseType(rs.getString("relation_type"));
+                if (type != null && source != destination) {
+                    buffer.add(source, destination, (byte) type.ordinal(), Math.max(1, rs.getInt("score")));
+                }
+            });
+            if (buffer.rowsInChunk < CHUNK_SIZE) {
+                break;
+            }
+        }
+        Graph built = build(buffer);
+        graph = built;
+        ready = true;
+        buildMillis = System.currentTimeMillis() - start;
+        builtAt = LocalDateTime.now();
+        log.info("图书关联图已重建: 节点数={}, 边数={}, 占用{}KB, 每百万条边{}MB, 耗时{}ms",
+                built.nodeIds.length, built.edgeCount(), built.memoryBytes() / 1024,
+                bytesPerMillionEdges(built) / (1024 * 1024), buildMillis);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 相关图书：先取直接关联（按分值降序），不足limit时按两跳权重补充
+     * 两跳得分 = Σ 归一化权重(起点->中间点) × 归一化权重(中间点->候选)，即从起点随机游走两步到达候选的概率
+     * @return 图书ID列表；图未就绪时返回empty
+     */
+    public Optional<List<Long>> related(long bookId, int limit) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        Graph g = graph;
+        List<Long> result = new ArrayList<>(limit);
+        int node = g.node(bookId);
+        if (node < 0) {
+            return Optional.of(result);
+        }
+        int from = g.offsets[node];
+        int to = g.offsets[node + 1];
+        for (int e = from; e < to && result.size() < limit; e++) {
+            result.add(g.nodeIds[g.targets[e]]);
+        }
+        if (result.size() >= limit || from == to) {
+            return Optional.of(result);
+        }
+
+        Map<Integer, Double> scores = new HashMap<>();
+        double sourceSum = g.weightSum(node);
+        for (int e = from; e < to; e++) {
+            int middle = g.targets[e];
+            double firstHop = g.weights[e] / sourceSum;
+            long middleSum = g.weightSum(middle);
+            for (int f = g.offsets[middle]; f < g.offsets[middle + 1]; f++) {
+                int candidate = g.targets[f];
+                if (candidate != node) {
+                    scores.merge(candidate, firstHop * g.weights[f] / middleSum, Double::sum);
+                }
+            }
+        }
+        for (int e = from; e < to; e++) {
+            scores.remove(g.targets[e]);
+        }
+
+        int[] candidates = new int[scores.size()];
+        int[] candidateNodes = new int[scores.size()];
+        double[] candidateScores = new double[scores.size()];
+        int n = 0;
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            candidates[n] = n;
+            candidateNodes[n] = entry.getKey();
+            candidateScores[n] = entry.getValue();
+            n++;
+        }
+        int[] top = TopK.select(candidates, n, limit - result.size(), (a, b) -> {
+            int cmp = Double.compare(candidateScores[b], candidateScores[a]);
+            return cmp != 0 ? cmp : Long.compare(g.nodeIds[candidateNodes[a]], g.nodeIds[candidateNodes[b]]);
+        });
+        for (int index : top) {
+            result.add(g.nodeIds[candidateNodes[index]]);
+        }
+        return Optional.of(result);
+    }
+
+    public RelationGraphStatsDTO stats() {
+        Graph g = graph;
+        return new RelationGraphStatsDTO(g.nodeIds.length, g.edgeCount(), g.memoryBytes(),
+                bytesPerMillionEdges(g), buildMillis, builtAt != null ? builtAt.toString() : null);
+    }
+
+    private static long bytesPerMillionEdges(Graph g) {
+        return g.edgeCount() > 0 ? g.memoryBytes() * 1_000_000L / g.edgeCount() : 0L;
+    }
+
+    /**
+     * 构建CSR：图书ID排序去重得到节点编号，按源节点计数排序边，再将每个节点的出边按分值降序排列（分值相同时保持读取顺序）
+     */
+    private static Graph build(EdgeBuffer buffer) {
+        int m = buffer.size;
+        long[] allIds = new long[m * 2];
+        System.arraycopy(buffer.sources, 0, allIds, 0, m);
+        System.arraycopy(buffer.destinations, 0, allIds, m, m);
+        long[] nodeIds = Arrays.stream(allIds).sorted().distinct().toArray();
+
+        int[] offsets = new int[nodeIds.length + 1];
+        int[] sourceNodes = new int[m];
+        for (int i = 0; i < m; i++) {
+            sourceNodes[i] = Arrays.binarySearch(nodeIds, buffer.sources[i]);
+            offsets[sourceNodes[i] + 1]++;
+        }
+        for (int i = 0; i < nodeIds.length; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] targets = new int[m];
+        byte[] relationType = new byte[m];
+        int[] weights = new int[m];
+        int[] cursor = Arrays.copyOf(offsets, nodeIds.length);
+        for (int i = 0; i < m; i++) {
+            int e = cursor[sourceNodes[i]]++;
+            targets[e] = Arrays.binarySearch(nodeIds, buffer.destinations[i]);
+            relationType[e] = buffer.types[i];
+            weights[e] = buffer.weights[i];
+        }
+
+        // 节点内排序：键为(反转分值, 节点内序号)，出边数通常很少
+        for (int node = 0; node < nodeIds.length; node++) {
+            int from = offsets[node];
+            int to = offsets[node + 1];
+            if (to - from < 2) {
+                continue;
+            }
+            long[] keys = new long[to - from];
+            for (int e = from; e < to; e++) {
+                keys[e - from] = ((long) (Integer.MAX_VALUE - weights[e]) << 32) | (e - from);
+            }
+            Arrays.sort(keys);
+            int[] sortedTargets = new int[keys.length];
+            byte[] sortedTypes = new byte[keys.length];
+            int[] sortedWeights = new int[keys.length];
+            for (int k = 0; k < keys.length; k++) {
+                int e = from + (int) keys[k];
+                sortedTargets[k] = targets[e];
+                sortedTypes[k] = relationType[e];
+                sortedWeights[k] = weights[e];
+            }
+            System.arraycopy(sortedTargets, 0, targets, from, keys.length);
+            System.arraycopy(sortedTypes, 0, relationType, from, keys.length);
+            System.arraycopy(sortedWeights, 0, weights, from, keys.length);
+        }
+        return new Graph(nodeIds, offsets, targets, relationType, weights);
+    }
+
+    private static BookRelation.RelationType parseType(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return BookRelation.RelationType.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
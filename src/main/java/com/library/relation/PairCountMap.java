@@ -0,0 +1,113 @@
+package com.library.relation;
+
+import java.util.Arrays;
+
+/**
+ * 图书对计数表
+ * 以两个图书ID拼成的long为键、int为值的开放寻址哈希表（线性探测），
+ * 数千万条订单明细产生的大量图书对不必装箱为Long/Integer对象
+ */
+final class PairCountMap {
+
+    private static final long EMPTY = -1L;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    PairCountMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * 图书对的键：较小ID在高32位，要求ID不超过int范围
+     */
+    static long key(long bookA, long bookB) {
+        long low = Math.min(bookA, bookB);
+        long high = Math.max(bookA, bookB);
+        return (low << 32) | high;
+    }
+
+    static long first(long key) {
+        return key >>> 32;
+    }
+
+    static long second(long key) {
+        return key & 0xFFFFFFFFL;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(long key, int delta) {
+        int slot = slot(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            values[slot] = delta;
+            if (++size > (mask + 1) * LOAD_FACTOR) {
+                rehash();
+            }
+        } else {
+            values[slot] += delta;
+        }
+    }
+
+    int get(long key) {
+        int slot = slot(key);
+        return keys[slot] == EMPTY ? 0 : values[slot];
+    }
+
+    /**
+     * 导出全部键（无序）
+     */
+    long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                result[n++] = key;
+            }
+        }
+        return result;
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * 键所在或应插入的槽位
+     */
+    private int slot(long key) {
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
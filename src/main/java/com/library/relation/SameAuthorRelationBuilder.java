@@ -0,0 +1,304 @@
+package com.library.relation;
+
+import com.library.catalog.CatalogBook;
+import com.library.catalog.CatalogListener;
+import com.library.model.entity.BookRelation;
+import com.library.repository.BookRelationRepository;
+import com.library.search.BookTokenizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * “同作者”关联生成器
+ * 按归一化后的作者名分组（译者作为次要分组键），每本书取同组中人气最高的若干本作为same_author关联：
+ * 先取同作者，不足时再取同译者。分组随目录同步在内存中维护，新增、修改作者/译者的图书只标记所在分组，
+ * 由后台定时任务重新计算受影响图书的关联，与book_relations中已有记录比对后批量写入新增、删除变化部分
+ */
+@Slf4j
+@Component
+public class SameAuthorRelationBuilder implements CatalogListener {
+
+    private static final String RELATION_TYPE = BookRelation.RelationType.same_author.name();
+    private static final int WRITE_BATCH_BOOKS = 500;
+    private static final String AUTHOR_PREFIX = "a:";
+    private static final String TRANSLATOR_PREFIX = "t:";
+    // 括注（国籍、朝代等），如“[美]”“（清）”
+    private static final Pattern ANNOTATION = Pattern.compile("[(\\[【〔][^)\\]】〕]*[)\\]】〕]");
+    private static final Pattern SEPARATOR = Pattern.compile("[,，、/;；&]|\\s+and\\s+");
+    private static final Pattern ROLE_SUFFIX = Pattern.compile("\\s*(编著|主编|原著|校注|等著|等|著|编|译|续|绘)$");
+
+    private final BookRelationRepository bookRelationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxRelations;
+
+    // 分组键 -> (图书ID -> 人气值)
+    private final Map<String, Map<Long, Integer>> groups = new HashMap<>();
+    // 图书ID -> 分组键（作者在前、译者在后）
+    private final Map<Long, List<String>> keysByBook = new HashMap<>();
+    // 待重新计算的分组，以及离开原分组/被删除的图书
+    private final Set<String> dirtyKeys = new HashSet<>();
+    private final Set<Long> dirtyBooks = new HashSet<>();
+    private volatile boolean ready = false;
+
+    public SameAuthorRelationBuilder(BookRelationRepository bookRelationRepository,
+                                     TransactionTemplate transactionTemplate,
+                                     @Value("${relation.same-author.max-relations:10}") int maxRelations) {
+        this.bookRelationRepository = bookRelationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxRelations = maxRelations;
+    }
+
+    /**
+     * 全量加载：首次加载时全部分组都需要与数据库核对，之后只标记成员发生变化的分组
+     */
+    @Override
+    public synchronized void onCatalogReload(List<CatalogBook> books) {
+        boolean first = !ready;
+        Set<Long> present = new HashSet<>();
+        for (CatalogBook book : books) {
+            present.add(book.getId());
+            upsert(book);
+        }
+        for (Long bookId : new ArrayList<>(keysByBook.keySet())) {
+            if (!present.contains(bookId)) {
+                remove(bookId);
+            }
+        }
+        if (first) {
+            dirtyKeys.addAll(groups.keySet());
+            dirtyBooks.addAll(keysByBook.keySet());
+        }
+        ready = true;
+    }
+
+    @Override
+    public synchronized void onBooksChanged(List<CatalogBook> books) {
+        for (CatalogBook book : books) {
+            upsert(book);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 同作者（不足时同译者）图书，按人气降序
+     * @return 图书ID列表；尚未加载时返回empty
+     */
+    public synchronized Optional<List<Long>> related(long bookId, int limit) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        Map<String, List<Long>> rankedGroups = new HashMap<>();
+        return Optional.of(neighbors(bookId, limit, rankedGroups));
+    }
+
+    /**
+     * 定时将变化的分组写入book_relations
+     */
+    @Scheduled(fixedDelayString = "${relation.same-author.flush-ms:60000}",
+            initialDelayString = "${relation.same-author.flush-ms:60000}")
+    public void flush() {
+        Map<Long, List<Long>> desired = new LinkedHashMap<>();
+        synchronized (this) {
+            if (!ready || (dirtyKeys.isEmpty() && dirtyBooks.isEmpty())) {
+                return;
+            }
+            Set<Long> affected = new LinkedHashSet<>(dirtyBooks);
+            for (String key : dirtyKeys) {
+                Map<Long, Integer> members = groups.get(key);
+                if (members != null) {
+                    affected.addAll(members.keySet());
+                }
+            }
+            Map<String, List<Long>> rankedGroups = new HashMap<>();
+            for (Long bookId : affected) {
+                desired.put(bookId, neighbors(bookId, maxRelations, rankedGroups));
+            }
+            dirtyKeys.clear();
+            dirtyBooks.clear();
+        }
+
+        long start = System.currentTimeMillis();
+        int[] changes = new int[2];
+        List<Long> batch = new ArrayList<>(WRITE_BATCH_BOOKS);
+        for (Long bookId : desired.keySet()) {
+            batch.add(bookId);
+            if (batch.size() == WRITE_BATCH_BOOKS) {
+                writeBatch(batch, desired, changes);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, desired, changes);
+        }
+        log.info("同作者关联已更新: 图书数={}, 写入{}条, 删除{}条, 耗时{}ms",
+                desired.size(), changes[0], changes[1], System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 比对一批图书的现有关联并在一个事务中批量写入差异
+     */
+    private void writeBatch(List<Long> bookIds, Map<Long, List<Long>> desired, int[] changes) {
+        Map<Long, Set<Long>> existing = new HashMap<>();
+        for (Map<String, Object> row : bookRelationRepository.findRelations(bookIds, RELATION_TYPE)) {
+            existing.computeIfAbsent(((Number) row.get("book_id")).longValue(), k -> new HashSet<>())
+                    .add(((Number) row.get("related_book_id")).longValue());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<SqlParameterSource> upserts = new ArrayList<>();
+        List<SqlParameterSource> deletes = new ArrayList<>();
+        for (Long bookId : bookIds) {
+            Set<Long> current = existing.getOrDefault(bookId, Set.of());
+            List<Long> wanted = desired.get(bookId);
+            for (Long relatedBookId : wanted) {
+                if (!current.contains(relatedBookId)) {
+                    upserts.add(new MapSqlParameterSource()
+                            .addValue("bookId", bookId)
+                            .addValue("relatedBookId", relatedBookId)
+                            .addValue("relationType", RELATION_TYPE)
+                            .addValue("score", 1)
+                            .addValue("now", now));
+                }
+            }
+            for (Long relatedBookId : current) {
+                if (!wanted.contains(relatedBookId)) {
+                    deletes.add(new MapSqlParameterSource()
+                            .addValue("bookId", bookId)
+                            .addValue("relatedBookId", relatedBookId)
+                            .addValue("relationType", RELATION_TYPE));
+                }
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            bookRelationRepository.upsertRelations(upserts.toArray(new SqlParameterSource[0]));
+            bookRelationRepository.deleteRelations(deletes.toArray(new SqlParameterSource[0]));
+        });
+        changes[0] += upserts.size();
+        changes[1] += deletes.size();
+    }
+
+    /**
+     * 按分组键顺序依次取同组人气最高的图书，去重后不超过limit本
+     * @param rankedGroups 本次计算中已排好序的分组（同组图书共用）
+     */
+    private List<Long> neighbors(long bookId, int limit, Map<String, List<Long>> rankedGroups) {
+        List<Long> result = new ArrayList<>(limit);
+        List<String> keys = keysByBook.get(bookId);
+        if (keys == null) {
+            return result;
+        }
+        for (String key : keys) {
+            List<Long> ranked = rankedGroups.computeIfAbsent(key, k -> rank(groups.get(k), limit + 1));
+            for (Long candidate : ranked) {
+                if (result.size() >= limit) {
+                    return result;
+                }
+                if (candidate != bookId && !result.contains(candidate)) {
+                    result.add(candidate);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 组内人气最高的前n本（人气相同时ID小者优先）
+     */
+    private static List<Long> rank(Map<Long, Integer> members, int n) {
+        return members.entrySet().stream()
+                .sorted((a, b) -> !a.getValue().equals(b.getValue())
+                        ? Integer.compare(b.getValue(), a.getValue()) : Long.compare(a.getKey(), b.getKey()))
+                .limit(n)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * 更新图书所在分组；分组键变化时标记新旧分组，仅人气变化时只更新人气
+     */
+    private void upsert(CatalogBook book) {
+        List<String> newKeys = groupKeys(book);
+        List<String> oldKeys = keysByBook.get(book.getId());
+        int popularity = book.getPopularity() != null ? book.getPopularity() : 0;
+        if (newKeys.equals(oldKeys)) {
+            for (String key : newKeys) {
+                groups.get(key).put(book.getId(), popularity);
+            }
+            return;
+        }
+        if (oldKeys != null) {
+            remove(book.getId());
+        }
+        keysByBook.put(book.getId(), newKeys);
+        for (String key : newKeys) {
+            groups.computeIfAbsent(key, k -> new HashMap<>()).put(book.getId(), popularity);
+            dirtyKeys.add(key);
+        }
+        dirtyBooks.add(book.getId());
+    }
+
+    private void remove(long bookId) {
+        List<String> oldKeys = keysByBook.remove(bookId);
+        if (oldKeys == null) {
+            return;
+        }
+        for (String key : oldKeys) {
+            Map<Long, Integer> members = groups.get(key);
+            members.remove(bookId);
+            if (members.isEmpty()) {
+                groups.remove(key);
+            } else {
+                dirtyKeys.add(key);
+            }
+        }
+        dirtyBooks.add(bookId);
+    }
+
+    private static List<String> groupKeys(CatalogBook book) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String name : personNames(book.getAuthor())) {
+            keys.add(AUTHOR_PREFIX + name);
+        }
+        for (String name : personNames(book.getTranslator())) {
+            keys.add(TRANSLATOR_PREFIX + name);
+        }
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * 归一化人名字段：去掉括注和“著”“译”“续”等职责后缀，按常见分隔符拆分多位作者
+     */
+    static List<String> personNames(String field) {
+        List<String> names = new ArrayList<>();
+        if (field == null) {
+            return names;
+        }
+        String text = ANNOTATION.matcher(BookTokenizer.normalize(field)).replaceAll(" ");
+        for (String part : SEPARATOR.split(text)) {
+            String name = ROLE_SUFFIX.matcher(part.trim()).replaceAll("").replaceAll("\\s+", " ").trim();
+            if (!name.isEmpty() && !names.contains(name)) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,19 @@
+package com.library.repository;
+
+import com.library.catalog.BookCursor;
+import com.library.catalog.BookSortOrder;
+import lombok.Data;
+
+/**
+ * 图书列表查询条件
+ * 由BookQueryBuilder按实际出现的条件与排序方式生成专用SQL
+ */
+@Data
+public class BookListingQuery {
+    private String keyword;         // 关键词（为空时不生成LIKE条件）
+    private Long categoryId;        // 分类ID（为空时不访问book_categories）
+    private BookSortOrder sort = BookSortOrder.RECOMMENDED;
+    private BookCursor after;       // 游标分页：上一页最后位置（与offset二选一）
+    private int limit;
+    private int offset;
+}
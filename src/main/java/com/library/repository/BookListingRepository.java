@@ -0,0 +1,36 @@
+package com.library.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 图书列表数据访问
+ * 执行BookQueryBuilder按条件生成的专用SQL（动态语句无法用@Query声明，故使用JdbcTemplate）
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookListingRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * 查询一页图书（列表项字段及排序键）
+     */
+    public List<Map<String, Object>> findBooks(BookListingQuery query) {
+        BookQueryBuilder.Statement statement = BookQueryBuilder.select(query);
+        return jdbcTemplate.queryForList(statement.getSql(), statement.getParams());
+    }
+
+    /**
+     * 统计满足筛选条件的图书总数
+     */
+    public long countBooks(BookListingQuery query) {
+        BookQueryBuilder.Statement statement = BookQueryBuilder.count(query);
+        Long total = jdbcTemplate.queryForObject(statement.getSql(), statement.getParams(), Long.class);
+        return total != null ? total : 0L;
+    }
+}
@@ -0,0 +1,186 @@
+package com.library.repository;
+
+import com.library.catalog.BookCursor;
+import com.library.catalog.BookSortOrder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 图书列表SQL生成器
+ * 不使用“(:x IS NULL OR ...)”通配条件 + GROUP BY + ORDER BY CASE的通用语句：
+ * 按实际出现的筛选条件和排序方式生成专用语句，使优化器能够直接走(排序列, id)联合索引
+ * <ul>
+ *     <li>无分类条件时不访问book_categories</li>
+ *     <li>有分类条件时用IN子查询（半连接）代替LEFT JOIN + GROUP BY，经category_closure包含全部子分类</li>
+ *     <li>ORDER BY为单一排序列 + id，与联合索引顺序一致</li>
+ *     <li>人气值、售价均为非空列，键集条件直接比较排序列；出版日期可为NULL，单独处理</li>
+ * </ul>
+ * 同一形态的SQL文本只生成一次并缓存，便于驱动/服务端复用预编译语句
+ */
+public final class BookQueryBuilder {
+
+    static final String LIST_COLUMNS = "b.id, b.title, b.author, b.cover_image, b.selling_price, " +
+            "b.original_price, b.rating, b.popularity, b.publish_date";
+
+    private static final Map<String, String> SQL_CACHE = new ConcurrentHashMap<>();
+
+    private BookQueryBuilder() {
+    }
+
+    /**
+     * 生成的SQL及命名参数
+     */
+    public static final class Statement {
+        private final String sql;
+        private final Map<String, Object> params;
+
+        Statement(String sql, Map<String, Object> params) {
+            this.sql = sql;
+            this.params = params;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public Map<String, Object> getParams() {
+            return params;
+        }
+    }
+
+    /**
+     * 生成列表查询语句
+     */
+    public static Statement select(BookListingQuery query) {
+        Map<String, Object> params = bindFilters(query);
+        BookCursor after = query.getAfter();
+        if (after != null) {
+            params.put("afterId", after.getId());
+            if (after.getKey() != null) {
+                params.put("afterKey", cursorKeyValue(after));
+            }
+        }
+        params.put("limit", query.getLimit());
+        if (after == null && query.getOffset() > 0) {
+            params.put("offset", query.getOffset());
+        }
+
+        String shape = "S|" + filterShape(query) + "|" + query.getSort() + "|" + afterShape(after)
+                + "|" + params.containsKey("offset");
+        String sql = SQL_CACHE.computeIfAbsent(shape, key -> buildSelectSql(query, params.containsKey("offset")));
+        return new Statement(sql, params);
+    }
+
+    /**
+     * 生成总数统计语句（半连接下无需COUNT(DISTINCT)）
+     */
+    public static Statement count(BookListingQuery query) {
+        Map<String, Object> params = bindFilters(query);
+        String shape = "C|" + filterShape(query);
+        String sql = SQL_CACHE.computeIfAbsent(shape, key -> {
+            StringBuilder sb = new StringBuilder("SELECT COUNT(*) FROM books b");
+            appendWhere(sb, query, null);
+            return sb.toString();
+        });
+        return new Statement(sql, params);
+    }
+
+    private static String buildSelectSql(BookListingQuery query, boolean withOffset) {
+        StringBuilder sb = new StringBuilder("SELECT ").append(LIST_COLUMNS).append(" FROM books b");
+        appendWhere(sb, query, query.getAfter());
+        sb.append(" ORDER BY ").append(orderBy(query.getSort()));
+        sb.append(" LIMIT :limit");
+        if (withOffset) {
+            sb.append(" OFFSET :offset");
+        }
+        return sb.toString();
+    }
+
+    private static void appendWhere(StringBuilder sb, BookListingQuery query, BookCursor after) {
+        String conjunction = " WHERE ";
+        if (query.getKeyword() != null) {
+            sb.append(conjunction)
+                    .append("(b.title LIKE CONCAT('%', :keyword, '%') OR b.author LIKE CONCAT('%', :keyword, '%'))");
+            conjunction = " AND ";
+        }
+        if (query.getCategoryId() != null) {
+            sb.append(conjunction)
+                    .append("b.id IN (SELECT bc.book_id FROM book_categories bc ")
+                    .append("JOIN category_closure cc ON cc.descendant_id = bc.category_id ")
+                    .append("WHERE cc.ancestor_id = :categoryId)");
+            conjunction = " AND ";
+        }
+        if (after != null) {
+            sb.append(conjunction).append(keysetPredicate(query.getSort(), after.getKey() == null));
+        }
+    }
+
+    /**
+     * 键集分页条件：排在游标（排序键, id）之后的记录
+     */
+    private static String keysetPredicate(BookSortOrder sort, boolean nullKey) {
+        switch (sort) {
+            case NEWEST:
+                // 出版日期降序时NULL排在最后
+                return nullKey
+                        ? "(b.publish_date IS NULL AND b.id > :afterId)"
+                        : "(b.publish_date < :afterKey OR (b.publish_date = :afterKey AND b.id > :afterId) " +
+                        "OR b.publish_date IS NULL)";
+            case PRICE_ASC:
+                return "(b.selling_price > :afterKey OR (b.selling_price = :afterKey AND b.id > :afterId))";
+            case PRICE_DESC:
+                return "(b.selling_price < :afterKey OR (b.selling_price = :afterKey AND b.id > :afterId))";
+            default:
+                return "(b.popularity < :afterKey OR (b.popularity = :afterKey AND b.id > :afterId))";
+        }
+    }
+
+    private static String orderBy(BookSortOrder sort) {
+        switch (sort) {
+            case NEWEST:
+                return "b.publish_date DESC, b.id";
+            case PRICE_ASC:
+                return "b.selling_price, b.id";
+            case PRICE_DESC:
+                return "b.selling_price DESC, b.id";
+            default:
+                return "b.popularity DESC, b.id";
+        }
+    }
+
+    private static Object cursorKeyValue(BookCursor after) {
+        switch (after.getSort()) {
+            case NEWEST:
+                return after.getPublishDate();
+            case PRICE_ASC:
+            case PRICE_DESC:
+                return after.getSellingPrice();
+            default:
+                return after.getPopularity();
+        }
+    }
+
+    private static Map<String, Object> bindFilters(BookListingQuery query) {
+        Map<String, Object> params = new HashMap<>();
+        if (query.getKeyword() != null) {
+            params.put("keyword", query.getKeyword());
+        }
+        if (query.getCategoryId() != null) {
+            params.put("categoryId", query.getCategoryId());
+        }
+        return params;
+    }
+
+    private static String filterShape(BookListingQuery query) {
+        return (query.getKeyword() != null ? "K" : "-") + (query.getCategoryId() != null ? "C" : "-");
+    }
+
+    private static String afterShape(BookCursor after) {
+        if (after == null) {
+            return "-";
+        }
+        return after.getKey() == null ? "N" : "A";
+    }
+}
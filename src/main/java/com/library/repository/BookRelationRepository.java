@@ -0,0 +1,127 @@
+package com.library.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 图书关联数据访问
+ * 供后台关联挖掘任务流式读取订单明细、批量写入book_relations，以及关联图的分段加载（批量upsert无法用@Query声明，故使用JdbcTemplate）
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookRelationRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * 读取任务的订单高水位，尚无记录时返回0
+     */
+    public long findLastOrderId(String jobName) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT last_order_id FROM relation_job_state WHERE job_name = :jobName",
+                new MapSqlParameterSource("jobName", jobName), Long.class);
+        return ids.isEmpty() || ids.get(0) == null ? 0L : ids.get(0);
+    }
+
+    /**
+     * 推进任务的订单高水位
+     */
+    public void saveLastOrderId(String jobName, long lastOrderId) {
+        jdbcTemplate.update("INSERT INTO relation_job_state (job_name, last_order_id, updated_at) " +
+                        "VALUES (:jobName, :lastOrderId, :updatedAt) " +
+                        "ON DUPLICATE KEY UPDATE last_order_id = VALUES(last_order_id), updated_at = VALUES(updated_at)",
+                new MapSqlParameterSource()
+                        .addValue("jobName", jobName)
+                        .addValue("lastOrderId", lastOrderId)
+                        .addValue("updatedAt", LocalDateTime.now()));
+    }
+
+    /**
+     * 下一批订单的ID上界：ID大于afterOrderId且创建时间早于cutoff的订单中，按ID取前limit个的最大ID
+     * @return 没有新订单时返回null
+     */
+    public Long findOrderIdBoundary(long afterOrderId, int limit, LocalDateTime cutoff) {
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM (" +
+                        "SELECT id FROM orders WHERE id > :afterOrderId AND created_at < :cutoff " +
+                        "ORDER BY id LIMIT :limit) t",
+                new MapSqlParameterSource()
+                        .addValue("afterOrderId", afterOrderId)
+                        .addValue("cutoff", cutoff)
+                        .addValue("limit", limit), Long.class);
+    }
+
+    /**
+     * 按订单ID顺序流式读取(afterOrderId, toOrderId]区间内未取消订单的明细（order_id, book_id）
+     */
+    public void streamOrderLines(long afterOrderId, long toOrderId, RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT oi.order_id, oi.book_id FROM order_items oi " +
+                        "JOIN orders o ON o.id = oi.order_id " +
+                        "WHERE oi.order_id > :afterOrderId AND oi.order_id <= :toOrderId " +
+                        "AND o.status <> 'CANCELLED' " +
+                        "ORDER BY oi.order_id",
+                new MapSqlParameterSource()
+                        .addValue("afterOrderId", afterOrderId)
+                        .addValue("toOrderId", toOrderId),
+                handler);
+    }
+
+    /**
+     * 按主键分段流式读取全部关联（id, book_id, related_book_id, relation_type, score）
+     */
+    public void streamRelationsAfter(long afterId, int limit, RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT id, book_id, related_book_id, relation_type, score FROM book_relations " +
+                        "WHERE id > :afterId ORDER BY id LIMIT :limit",
+                new MapSqlParameterSource()
+                        .addValue("afterId", afterId)
+                        .addValue("limit", limit),
+                handler);
+    }
+
+    /**
+     * 查询指定图书某一类型的现有关联（book_id, related_book_id, score）
+     */
+    public List<Map<String, Object>> findRelations(Collection<Long> bookIds, String relationType) {
+        return jdbcTemplate.queryForList("SELECT book_id, related_book_id, score FROM book_relations " +
+                        "WHERE book_id IN (:bookIds) AND relation_type = :relationType",
+                new MapSqlParameterSource()
+                        .addValue("bookIds", bookIds)
+                        .addValue("relationType", relationType));
+    }
+
+    /**
+     * 批量写入关联：(book_id, related_book_id)已存在时仅更新同类型记录的分值，不覆盖其它类型的人工/规则关联
+     * @param rows 每项包含bookId、relatedBookId、relationType、score、now参数
+     */
+    public void upsertRelations(SqlParameterSource[] rows) {
+        if (rows.length == 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO book_relations " +
+                "(book_id, related_book_id, relation_type, score, created_at, updated_at) " +
+                "VALUES (:bookId, :relatedBookId, :relationType, :score, :now, :now) " +
+                "ON DUPLICATE KEY UPDATE " +
+                "score = IF(relation_type = VALUES(relation_type), VALUES(score), score), " +
+                "updated_at = IF(relation_type = VALUES(relation_type), VALUES(updated_at), updated_at)", rows);
+    }
+
+    /**
+     * 批量删除某一类型的关联
+     * @param rows 每项包含bookId、relatedBookId、relationType参数
+     */
+    public void deleteRelations(SqlParameterSource[] rows) {
+        if (rows.length == 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM book_relations " +
+                "WHERE book_id = :bookId AND related_book_id = :relatedBookId AND relation_type = :relationType", rows);
+    }
+}
@@ -7,6 +7,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -19,63 +21,32 @@ public interface BookRepository extends JpaRepository<Book, Long> {
             nativeQuery = true)
     Optional<Map<String, Object>> getBookStock(@Param("bookId") Long bookId);
 
-    @Query(value = "SELECT title, cover_image, selling_price " +
-            "FROM books WHERE id = :bookId",
+    @Query(value = "SELECT b.id, b.title, b.author, b.cover_image, b.selling_price, b.original_price, " +
+            "b.rating, b.review_count, b.description, b.category_id, b.stock_quantity, c.name AS category_name " +
+            "FROM books b LEFT JOIN categories c ON c.id = b.category_id WHERE b.id = :bookId",
             nativeQuery = true)
     Optional<Map<String, Object>> getBookById(@Param("bookId") Long bookId);
 
+    @Query(value = "SELECT COALESCE(stock_quantity, 0) FROM books WHERE id = :bookId", nativeQuery = true)
+    Optional<Integer> getStockQuantity(@Param("bookId") Long bookId);
+
     @Transactional
     @Modifying
-    @Query(value = "UPDATE books SET stock_quantity = stock_quantity - :quantity " +
+    @Query(value = "UPDATE books SET stock_quantity = stock_quantity - :quantity, " +
+            "sales_volume = COALESCE(sales_volume, 0) + :quantity, updated_at = NOW() " +
             "WHERE id = :bookId AND stock_quantity >= :quantity",
             nativeQuery = true)
     int decreaseStock(@Param("bookId") Long bookId, @Param("quantity") Integer quantity);
 
     @Transactional
     @Modifying
-    @Query(value = "UPDATE books SET stock_quantity = stock_quantity + :quantity " +
+    @Query(value = "UPDATE books SET stock_quantity = stock_quantity + :quantity, " +
+            "sales_volume = GREATEST(COALESCE(sales_volume, 0) - :quantity, 0), updated_at = NOW() " +
             "WHERE id = :bookId",
             nativeQuery = true)
     void increaseStock(@Param("bookId") Long bookId, @Param("quantity") Integer quantity);
 
-    // ------------------------------ 修复的findBooks方法 ------------------------------
-    /**
-     * 多条件查询图书（修复SQL语法：完整CASE表达式，补充闭合括号）
-     */
-    @Query(value = "SELECT b.id, b.title, b.author, b.cover_image, b.selling_price, b.original_price, b.rating " +
-            "FROM books b " +
-            "LEFT JOIN book_categories bc ON b.id = bc.book_id " +
-            "WHERE (:keyword IS NULL OR b.title LIKE CONCAT('%', :keyword, '%') OR b.author LIKE CONCAT('%', :keyword, '%')) " +
-            "AND (:categoryId IS NULL OR bc.category_id = :categoryId) " +
-            "GROUP BY b.id " +
-            "ORDER BY " +
-            // 修复：每个CASE表达式添加END，且用逗号分隔不同排序条件
-            "CASE WHEN :sortOrder = 'recommended' THEN b.popularity END DESC, " +
-            "CASE WHEN :sortOrder = 'newest' THEN b.publish_date END DESC, " +
-            "CASE WHEN :sortOrder = 'price_asc' THEN b.selling_price END ASC, " +
-            "CASE WHEN :sortOrder = 'price_desc' THEN b.selling_price END DESC " +
-            "LIMIT :limit OFFSET :offset",
-            nativeQuery = true)
-    List<Map<String, Object>> findBooks(
-            @Param("keyword") String keyword,
-            @Param("categoryId") Long categoryId,
-            @Param("sortOrder") String sortOrder,
-            @Param("limit") Integer limit,
-            @Param("offset") Integer offset
-    );
-
-    // 其他新增方法（countBooks、getHotBooks等，保留不变）
-    @Query(value = "SELECT COUNT(DISTINCT b.id) " +
-            "FROM books b " +
-            "LEFT JOIN book_categories bc ON b.id = bc.book_id " +
-            "WHERE (:keyword IS NULL OR b.title LIKE CONCAT('%', :keyword, '%') OR b.author LIKE CONCAT('%', :keyword, '%')) " +
-            "AND (:categoryId IS NULL OR bc.category_id = :categoryId)",
-            nativeQuery = true)
-    Long countBooks(
-            @Param("keyword") String keyword,
-            @Param("categoryId") Long categoryId
-    );
-
+    // 热门、新书、相关推荐等列表查询
     @Query(value = "SELECT id, title, author, cover_image, selling_price, original_price, rating " +
             "FROM books " +
             "ORDER BY popularity DESC " +
@@ -94,6 +65,7 @@ public interface BookRepository extends JpaRepository<Book, Long> {
             "FROM book_relations br " +
             "LEFT JOIN books b ON br.related_book_id = b.id " +
             "WHERE br.book_id = :bookId " +
+            "ORDER BY br.score DESC, br.related_book_id " +
             "LIMIT 4",
             nativeQuery = true)
     List<Map<String, Object>> getRelatedBooks(@Param("bookId") Long bookId);
@@ -111,4 +83,98 @@ public interface BookRepository extends JpaRepository<Book, Long> {
             @Param("excludeBookId") Long excludeBookId,
             @Param("limit") Integer limit
     );
-}
\ No newline at end of file
+
+    // ------------------------------ 内存目录同步（BookCatalogSync） ------------------------------
+    /**
+     * 按主键分段加载图书目录字段（全量同步用，避免一次性读取整表）
+     */
+    @Query(value = "SELECT id, isbn, title, subtitle, author, translator, publisher, language, category_id, " +
+            "cover_image, selling_price, original_price, rating, popularity, sales_volume, stock_quantity, " +
+            "publish_date, is_hot, is_new, is_recommended, updated_at " +
+            "FROM books " +
+            "WHERE id > :afterId " +
+            "ORDER BY id " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Map<String, Object>> findCatalogRowsAfter(
+            @Param("afterId") Long afterId,
+            @Param("limit") Integer limit
+    );
+
+    /**
+     * 按(updated_at, id)键集分页加载修改过的图书目录字段（增量同步用）
+     * 同一时刻修改的记录再多也能逐批推进，不会卡在同一个updated_at上
+     */
+    @Query(value = "SELECT id, isbn, title, subtitle, author, translator, publisher, language, category_id, " +
+            "cover_image, selling_price, original_price, rating, popularity, sales_volume, stock_quantity, " +
+            "publish_date, is_hot, is_new, is_recommended, updated_at " +
+            "FROM books " +
+            "WHERE updated_at > :since OR (updated_at = :since AND id > :afterId) " +
+            "ORDER BY updated_at, id " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Map<String, Object>> findCatalogRowsChangedAfter(
+            @Param("since") LocalDateTime since,
+            @Param("afterId") Long afterId,
+            @Param("limit") Integer limit
+    );
+
+    /**
+     * 图书ID集合指纹：记录数与ID之和（只扫描主键），用于发现被删除的图书
+     */
+    @Query(value = "SELECT COUNT(*) AS total, COALESCE(SUM(id), 0) AS id_sum FROM books",
+            nativeQuery = true)
+    List<Map<String, Object>> findIdFingerprint();
+
+    /**
+     * 按ID加载图书目录字段（写入后主动刷新用）
+     */
+    @Query(value = "SELECT id, isbn, title, subtitle, author, translator, publisher, language, category_id, " +
+            "cover_image, selling_price, original_price, rating, popularity, sales_volume, stock_quantity, " +
+            "publish_date, is_hot, is_new, is_recommended, updated_at " +
+            "FROM books " +
+            "WHERE id IN (:bookIds)",
+            nativeQuery = true)
+    List<Map<String, Object>> findCatalogRowsByIds(@Param("bookIds") Collection<Long> bookIds);
+
+    /**
+     * 查询主键区间内图书的分类关联
+     */
+    @Query(value = "SELECT book_id, category_id " +
+            "FROM book_categories " +
+            "WHERE book_id BETWEEN :fromId AND :toId",
+            nativeQuery = true)
+    List<Map<String, Object>> findBookCategoryRowsBetween(
+            @Param("fromId") Long fromId,
+            @Param("toId") Long toId
+    );
+
+    /**
+     * 查询指定图书的分类关联
+     */
+    @Query(value = "SELECT book_id, category_id " +
+            "FROM book_categories " +
+            "WHERE book_id IN (:bookIds)",
+            nativeQuery = true)
+    List<Map<String, Object>> findBookCategoryRowsByBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    /**
+     * 按ID批量查询图书列表项字段（主键IN查询，返回顺序不保证）
+     */
+    @Query(value = "SELECT id, title, author, cover_image, selling_price, original_price, rating " +
+            "FROM books " +
+            "WHERE id IN (:bookIds)",
+            nativeQuery = true)
+    List<Map<String, Object>> findListItemsByIds(@Param("bookIds") Collection<Long> bookIds);
+
+    /**
+     * 输入联想（前缀索引未就绪时的数据库回退查询）
+     */
+    @Query(value = "SELECT id, title, author, cover_image, selling_price, original_price, rating " +
+            "FROM books " +
+            "WHERE title LIKE CONCAT(:prefix, '%') OR author LIKE CONCAT(:prefix, '%') OR isbn = :prefix " +
+            "ORDER BY popularity DESC, id " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Map<String, Object>> suggestBooks(@Param("prefix") String prefix, @Param("limit") Integer limit);
+}
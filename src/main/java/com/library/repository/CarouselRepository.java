@@ -4,23 +4,14 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import com.library.model.entity.Carousel;
 import java.util.List;
-import java.util.Map;
 
 public interface CarouselRepository extends JpaRepository<Carousel, Long> {
 
-    // 获取所有轮播图（保持与数据库字段一致）
-    @Query(value = "SELECT " +
-            "id, " +
-            "image_url, " +
-            "title, " +
-            "description, " +
-            "link, " +
-            "button_text, " +
-            "sort_order, " +
-            "created_at, " +
-            "updated_at " +
-            "FROM carousels " +
-            "ORDER BY sort_order ASC",
-            nativeQuery = true)
-    List<Map<String, Object>> findAllCarousels();
-}
\ No newline at end of file
+    // 获取启用的轮播图（按排序序号，序号相同时按ID）
+    @Query("SELECT c FROM Carousel c WHERE c.isEnabled = true ORDER BY c.sortOrder ASC, c.id ASC")
+    List<Carousel> findEnabledForDisplay();
+
+    // 变更标记：记录数与最大更新时间（增删改、启用状态切换都会改变其一），用于判断是否需要重新加载
+    @Query("SELECT COUNT(c), MAX(c.updatedAt) FROM Carousel c")
+    List<Object[]> findChangeMarker();
+}
@@ -0,0 +1,40 @@
+package com.library.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.EmptySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分类闭包数据访问
+ * 读取分类层级并整体重建category_closure（批量写入无法用@Query声明，故使用JdbcTemplate）
+ */
+@Repository
+@RequiredArgsConstructor
+public class CategoryClosureRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * 全部分类的父子关系（id, parent_id），不区分是否激活
+     */
+    public List<Map<String, Object>> findParentLinks() {
+        return jdbcTemplate.queryForList("SELECT id, parent_id FROM categories", EmptySqlParameterSource.INSTANCE);
+    }
+
+    /**
+     * 用新的闭包整体替换现有记录（调用方负责事务）
+     * @param rows 每项包含ancestorId、descendantId、depth参数
+     */
+    public void replaceAll(SqlParameterSource[] rows) {
+        jdbcTemplate.update("DELETE FROM category_closure", EmptySqlParameterSource.INSTANCE);
+        if (rows.length > 0) {
+            jdbcTemplate.batchUpdate("INSERT INTO category_closure (ancestor_id, descendant_id, depth) " +
+                    "VALUES (:ancestorId, :descendantId, :depth)", rows);
+        }
+    }
+}
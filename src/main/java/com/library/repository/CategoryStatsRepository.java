@@ -0,0 +1,69 @@
+package com.library.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.EmptySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 分类统计数据访问
+ * 批量写入category_stats，以及按主键读取分类图书数（批量upsert无法用@Query声明，故使用JdbcTemplate）
+ */
+@Repository
+@RequiredArgsConstructor
+public class CategoryStatsRepository {
+
+    private static final String UPSERT_SQL = "INSERT INTO category_stats " +
+            "(category_id, book_count, in_stock_count, min_price, max_price, newest_publish_date, updated_at) " +
+            "VALUES (:categoryId, :bookCount, :inStockCount, :minPrice, :maxPrice, :newestPublishDate, :now) " +
+            "ON DUPLICATE KEY UPDATE book_count = VALUES(book_count), in_stock_count = VALUES(in_stock_count), " +
+            "min_price = VALUES(min_price), max_price = VALUES(max_price), " +
+            "newest_publish_date = VALUES(newest_publish_date), updated_at = VALUES(updated_at)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * 分类（含子分类）的图书数，没有统计记录时返回empty
+     */
+    public Optional<Long> findBookCount(long categoryId) {
+        List<Long> counts = jdbcTemplate.queryForList(
+                "SELECT book_count FROM category_stats WHERE category_id = :categoryId",
+                new MapSqlParameterSource("categoryId", categoryId), Long.class);
+        return counts.isEmpty() ? Optional.empty() : Optional.ofNullable(counts.get(0));
+    }
+
+    /**
+     * 批量写入统计
+     * @param rows 每项包含categoryId、bookCount、inStockCount、minPrice、maxPrice、newestPublishDate、now参数
+     */
+    public void upsertStats(SqlParameterSource[] rows) {
+        if (rows.length == 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+    }
+
+    /**
+     * 批量删除已没有图书的分类的统计
+     * @param rows 每项包含categoryId参数
+     */
+    public void deleteStats(SqlParameterSource[] rows) {
+        if (rows.length == 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM category_stats WHERE category_id = :categoryId", rows);
+    }
+
+    /**
+     * 用全量统计替换现有记录（调用方负责事务）
+     */
+    public void replaceAll(SqlParameterSource[] rows) {
+        jdbcTemplate.update("DELETE FROM category_stats", EmptySqlParameterSource.INSTANCE);
+        upsertStats(rows);
+    }
+}
@@ -0,0 +1,104 @@
+package com.library.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 人气值计算数据访问
+ * 按主键分段流式读取近期订单明细与每日浏览次数，批量回写books.popularity和累加浏览次数（批量更新无法用@Query声明，故使用JdbcTemplate）
+ */
+@Repository
+@RequiredArgsConstructor
+public class PopularityRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * since之后创建的第一个订单ID，没有时返回null
+     */
+    public Long findFirstOrderIdSince(LocalDateTime since) {
+        return jdbcTemplate.queryForObject("SELECT MIN(id) FROM orders WHERE created_at >= :since",
+                new MapSqlParameterSource("since", since), Long.class);
+    }
+
+    /**
+     * 分段读取未取消订单的明细（id, book_id, quantity, created_at），按明细ID升序
+     * @param afterLineId 上一段最后一条明细ID
+     * @param fromOrderId 只读取订单ID不小于此值的明细
+     */
+    public void streamOrderLines(long afterLineId, long fromOrderId, int limit, RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT oi.id, oi.book_id, oi.quantity, o.created_at FROM order_items oi " +
+                        "JOIN orders o ON o.id = oi.order_id " +
+                        "WHERE oi.id > :afterLineId AND oi.order_id >= :fromOrderId AND o.status <> 'CANCELLED' " +
+                        "ORDER BY oi.id LIMIT :limit",
+                new MapSqlParameterSource()
+                        .addValue("afterLineId", afterLineId)
+                        .addValue("fromOrderId", fromOrderId)
+                        .addValue("limit", limit),
+                handler);
+    }
+
+    /**
+     * 分段读取fromDate及之后的每日浏览次数（id, book_id, view_date, views），按ID升序
+     */
+    public void streamDailyViews(long afterId, LocalDate fromDate, int limit, RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT id, book_id, view_date, views FROM book_view_daily " +
+                        "WHERE id > :afterId AND view_date >= :fromDate ORDER BY id LIMIT :limit",
+                new MapSqlParameterSource()
+                        .addValue("afterId", afterId)
+                        .addValue("fromDate", fromDate)
+                        .addValue("limit", limit),
+                handler);
+    }
+
+    /**
+     * 删除早于指定日期的每日浏览次数
+     */
+    public int deleteDailyViewsBefore(LocalDate date) {
+        return jdbcTemplate.update("DELETE FROM book_view_daily WHERE view_date < :date",
+                new MapSqlParameterSource("date", date));
+    }
+
+    /**
+     * 批量更新人气值（不刷新updated_at：人气值只影响排序，由重算任务直接推送给内存目录，
+     * 避免每次重算把大量图书标记为已修改）
+     * @param rows 每项包含id、popularity参数
+     */
+    public void updatePopularity(SqlParameterSource[] rows) {
+        if (rows.length == 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE books SET popularity = :popularity WHERE id = :id", rows);
+    }
+
+    /**
+     * 批量累加浏览次数（不刷新updated_at，避免浏览量变化触发目录增量同步和缓存失效）
+     * @param rows 每项包含id、views参数
+     */
+    public void addViewCounts(SqlParameterSource[] rows) {
+        if (rows.length == 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE books SET view_count = COALESCE(view_count, 0) + :views WHERE id = :id", rows);
+    }
+
+    /**
+     * 批量累加每日浏览次数（人气值计算用）
+     * @param rows 每项包含id、viewDate、views参数
+     */
+    public void addDailyViews(SqlParameterSource[] rows) {
+        if (rows.length == 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO book_view_daily (book_id, view_date, views) " +
+                "VALUES (:id, :viewDate, :views) " +
+                "ON DUPLICATE KEY UPDATE views = views + VALUES(views)", rows);
+    }
+}
@@ -0,0 +1,58 @@
+package com.library.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 最近浏览数据访问
+ * 浏览记录由内存缓冲定期批量写入（批量upsert和按用户裁剪无法用@Query声明，故使用JdbcTemplate）
+ */
+@Repository
+@RequiredArgsConstructor
+public class RecentlyViewedRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * 用户最近浏览的图书（book_id, viewed_at），按浏览时间降序
+     */
+    public List<Map<String, Object>> findRecent(long userId, int limit) {
+        return jdbcTemplate.queryForList("SELECT book_id, viewed_at FROM recently_viewed " +
+                        "WHERE user_id = :userId ORDER BY viewed_at DESC, id DESC LIMIT :limit",
+                new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("limit", limit));
+    }
+
+    /**
+     * 批量写入浏览记录，已存在时保留较晚的浏览时间
+     * @param rows 每项包含userId、bookId、viewedAt参数
+     */
+    public void upsertViews(SqlParameterSource[] rows) {
+        if (rows.length == 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO recently_viewed (user_id, book_id, viewed_at) " +
+                "VALUES (:userId, :bookId, :viewedAt) " +
+                "ON DUPLICATE KEY UPDATE viewed_at = GREATEST(viewed_at, VALUES(viewed_at))", rows);
+    }
+
+    /**
+     * 批量裁剪：每个用户只保留最近浏览的keep条
+     * @param rows 每项包含userId、keep参数
+     */
+    public void trimViews(SqlParameterSource[] rows) {
+        if (rows.length == 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM recently_viewed WHERE user_id = :userId AND id NOT IN (" +
+                "SELECT id FROM (SELECT id FROM recently_viewed WHERE user_id = :userId " +
+                "ORDER BY viewed_at DESC, id DESC LIMIT :keep) t)", rows);
+    }
+}
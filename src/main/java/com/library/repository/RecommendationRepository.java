@@ -0,0 +1,51 @@
+package com.library.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 推荐模型训练数据访问
+ * 按主键分段流式读取用户的购买、收藏记录（只取训练所需的列，避免构造实体或Map）
+ */
+@Repository
+@RequiredArgsConstructor
+public class RecommendationRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * 未取消订单的明细（id, user_id, book_id, quantity）
+     */
+    public void streamPurchases(long afterId, int limit, RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT oi.id, o.user_id, oi.book_id, oi.quantity FROM order_items oi " +
+                        "JOIN orders o ON o.id = oi.order_id " +
+                        "WHERE oi.id > :afterId AND o.status <> 'CANCELLED' " +
+                        "ORDER BY oi.id LIMIT :limit",
+                params(afterId, limit), handler);
+    }
+
+    /**
+     * 收藏记录（id, user_id, book_id）
+     */
+    public void streamWishlist(long afterId, int limit, RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT id, user_id, book_id FROM wishlist WHERE id > :afterId ORDER BY id LIMIT :limit",
+                params(afterId, limit), handler);
+    }
+
+    /**
+     * 喜欢记录（id, user_id, book_id）
+     */
+    public void streamFavorites(long afterId, int limit, RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT id, user_id, book_id FROM favorites WHERE id > :afterId ORDER BY id LIMIT :limit",
+                params(afterId, limit), handler);
+    }
+
+    private static MapSqlParameterSource params(long afterId, int limit) {
+        return new MapSqlParameterSource()
+                .addValue("afterId", afterId)
+                .addValue("limit", limit);
+    }
+}
@@ -0,0 +1,357 @@
+package com.library.search;
+
+import com.library.catalog.BookSortOrder;
+import com.library.catalog.CatalogBook;
+import com.library.catalog.CatalogListener;
+import com.library.model.dto.FacetCountDTO;
+import com.library.model.dto.request.BookFilterRequest;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 图书分面筛选索引
+ * 每个分面取值（分类、价格区间、评分、出版社、语言、热门/新书/推荐标记）对应一个Roaring压缩位图，
+ * 命中结果与全部分面计数都通过位图交集一次算出，不再为每个分面额外执行GROUP BY查询。
+ * 计数采用“多选分面”口径：某分面的计数只应用其他分面的筛选条件
+ */
+@Component
+public class BookFacetIndex implements CatalogListener {
+
+    public static final String FACET_CATEGORY = "category";
+    public static final String FACET_PRICE = "price";
+    public static final String FACET_RATING = "rating";
+    public static final String FACET_PUBLISHER = "publisher";
+    public static final String FACET_LANGUAGE = "language";
+    public static final String FACET_FLAG = "flag";
+
+    public static final String FLAG_HOT = "hot";
+    public static final String FLAG_NEW = "new";
+    public static final String FLAG_RECOMMENDED = "recommended";
+
+    // 价格区间下界（分），与PRICE_BAND_LABELS一一对应
+    private static final long[] PRICE_BAND_LOWER = {0L, 2000L, 5000L, 10000L, 20000L};
+    private static final String[] PRICE_BAND_LABELS = {"0-20", "20-50", "50-100", "100-200", "200+"};
+    private static final int[] RATING_FLOORS = {4, 3, 2, 1};
+    // 出版社等取值较多的分面只返回计数最高的若干项
+    private static final int MAX_VALUES_PER_FACET = 20;
+
+    private static final String[] FACET_ORDER = {
+            FACET_CATEGORY, FACET_PRICE, FACET_RATING, FACET_PUBLISHER, FACET_LANGUAGE, FACET_FLAG
+    };
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Segment segment = new Segment(0);
+    private volatile boolean ready = false;
+
+    private static final class Segment {
+        final SortColumns columns;
+        int docCount;
+        final Map<Long, Integer> docByBookId = new HashMap<>();
+        final RoaringBitmap all = new RoaringBitmap();
+        final Map<String, Map<String, RoaringBitmap>> facets = new LinkedHashMap<>();
+        // 每个文档当前所属的分面取值（facet, value交替存放），增量更新时据此从旧位图中移除
+        String[][] docValues;
+
+        Segment(int capacity) {
+            columns = new SortColumns(capacity);
+            docValues = new String[columns.capacity()][];
+            for (String facet : FACET_ORDER) {
+                facets.put(facet, new HashMap<>());
+            }
+        }
+
+        void upsert(CatalogBook book) {
+            Integer existing = docByBookId.get(book.getId());
+            int doc;
+            if (existing != null) {
+                doc = existing;
+                removeValues(doc);
+            } else {
+                doc = docCount++;
+                columns.ensureCapacity(docCount);
+                if (columns.capacity() > docValues.length) {
+                    docValues = Arrays.copyOf(docValues, columns.capacity());
+                }
+                docByBookId.put(book.getId(), doc);
+                all.add(doc);
+            }
+            columns.set(doc, book);
+
+            String[] values = facetValuesOf(book, columns.priceCents[doc]);
+            docValues[doc] = values;
+            for (int i = 0; i < values.length; i += 2) {
+                facets.get(values[i]).computeIfAbsent(values[i + 1], k -> new RoaringBitmap()).add(doc);
+            }
+        }
+
+        private void removeValues(int doc) {
+            String[] values = docValues[doc];
+            if (values == null) {
+                return;
+            }
+            for (int i = 0; i < values.length; i += 2) {
+                Map<String, RoaringBitmap> byValue = facets.get(values[i]);
+                RoaringBitmap bitmap = byValue.get(values[i + 1]);
+                if (bitmap != null) {
+                    bitmap.remove(doc);
+                    if (bitmap.isEmpty()) {
+                        byValue.remove(values[i + 1]);
+                    }
+                }
+            }
+        }
+
+        RoaringBitmap bitmap(String facet, String value) {
+            RoaringBitmap bitmap = facets.get(facet).get(value);
+            return bitmap != null ? bitmap : new RoaringBitmap();
+        }
+    }
+
+    @Override
+    public void onCatalogReload(List<CatalogBook> books) {
+        Segment rebuilt = new Segment(books.size());
+        for (CatalogBook book : books) {
+            rebuilt.upsert(book);
+        }
+        for (Map<String, RoaringBitmap> byValue : rebuilt.facets.values()) {
+            byValue.values().forEach(RoaringBitmap::runOptimize);
+        }
+        lock.writeLock().lock();
+        try {
+            segment = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+    }
+
+    @Override
+    public void onBooksChanged(List<CatalogBook> books) {
+        lock.writeLock().lock();
+        try {
+            for (CatalogBook book : books) {
+                segment.upsert(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 分面检索
+     * @param filter          筛选条件（keyword由调用方先转换为keywordBookIds）
+     * @param keywordBookIds  关键词命中的图书ID，为null表示无关键词
+     * @param withCounts      是否计算各分面计数
+     * @return 索引未就绪时返回empty
+     */
+    public Optional<FacetHits> search(BookFilterRequest filter, long[] keywordBookIds, BookSortOrder sort,
+                                      int offset, int limit, boolean withCounts) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            Segment seg = segment;
+            RoaringBitmap base = keywordBookIds != null ? toBitmap(seg, keywordBookIds) : seg.all;
+            Map<String, RoaringBitmap> selected = selectedFilters(seg, filter);
+
+            RoaringBitmap hits = base.clone();
+            for (RoaringBitmap bitmap : selected.values()) {
+                hits.and(bitmap);
+            }
+
+            int[] candidates = hits.toArray();
+            SortColumns columns = seg.columns;
+            int[] top = TopK.select(candidates, candidates.length, offset + limit, (a, b) -> columns.compare(sort, a, b));
+            List<Long> bookIds = new ArrayList<>(Math.max(0, top.length - offset));
+            for (int i = offset; i < top.length; i++) {
+                bookIds.add(columns.bookIds[top[i]]);
+            }
+
+            Map<String, List<FacetCountDTO>> facets = withCounts ? countFacets(seg, base, selected) : new LinkedHashMap<>();
+            return Optional.of(new FacetHits(bookIds, hits.getLongCardinality(), facets));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 价格区间标签是否有效
+     */
+    public static boolean isValidPriceBand(String priceBand) {
+        return Arrays.asList(PRICE_BAND_LABELS).contains(priceBand);
+    }
+
+    /**
+     * 各分面计数：分面F的取值计数 = |基础集合 ∩ 除F外其他分面的筛选位图 ∩ 取值位图|
+     */
+    private Map<String, List<FacetCountDTO>> countFacets(Segment seg, RoaringBitmap base,
+                                                         Map<String, RoaringBitmap> selected) {
+        Map<String, List<FacetCountDTO>> result = new LinkedHashMap<>();
+        for (String facet : FACET_ORDER) {
+            RoaringBitmap restricted = base;
+            for (Map.Entry<String, RoaringBitmap> entry : selected.entrySet()) {
+                if (!entry.getKey().equals(facet)) {
+                    restricted = RoaringBitmap.and(restricted, entry.getValue());
+                }
+            }
+
+            List<FacetCountDTO> counts = new ArrayList<>();
+            for (String value : orderedValues(seg, facet)) {
+                long count = RoaringBitmap.andCardinality(restricted, seg.bitmap(facet, value));
+                if (count > 0) {
+                    counts.add(new FacetCountDTO(value, count));
+                }
+            }
+            if (isOpenEnded(facet)) {
+                counts.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+                if (counts.size() > MAX_VALUES_PER_FACET) {
+                    counts = new ArrayList<>(counts.subList(0, MAX_VALUES_PER_FACET));
+                }
+            }
+            result.put(facet, counts);
+        }
+        return result;
+    }
+
+    /**
+     * 价格、评分、标记按固定顺序输出，其余分面的取值顺序由计数决定
+     */
+    private List<String> orderedValues(Segment seg, String facet) {
+        switch (facet) {
+            case FACET_PRICE:
+                return Arrays.asList(PRICE_BAND_LABELS);
+            case FACET_RATING:
+                List<String> floors = new ArrayList<>();
+                for (int floor : RATING_FLOORS) {
+                    floors.add(floor + "+");
+                }
+                return floors;
+            case FACET_FLAG:
+                return Arrays.asList(FLAG_HOT, FLAG_NEW, FLAG_RECOMMENDED);
+            default:
+                return new ArrayList<>(seg.facets.get(facet).keySet());
+        }
+    }
+
+    private static boolean isOpenEnded(String facet) {
+        return FACET_CATEGORY.equals(facet) || FACET_PUBLISHER.equals(facet) || FACET_LANGUAGE.equals(facet);
+    }
+
+    /**
+     * 将请求中的筛选项转换为各分面的筛选位图（标记类筛选项之间取交集）
+     */
+    private Map<String, RoaringBitmap> selectedFilters(Segment seg, BookFilterRequest filter) {
+        Map<String, RoaringBitmap> selected = new LinkedHashMap<>();
+        if (filter.getCategoryId() != null) {
+            selected.put(FACET_CATEGORY, seg.bitmap(FACET_CATEGORY, filter.getCategoryId().toString()));
+        }
+        if (filter.getPriceBand() != null) {
+            selected.put(FACET_PRICE, seg.bitmap(FACET_PRICE, filter.getPriceBand()));
+        }
+        if (filter.getMinRating() != null) {
+            selected.put(FACET_RATING, seg.bitmap(FACET_RATING, filter.getMinRating() + "+"));
+        }
+        if (filter.getPublisher() != null) {
+            selected.put(FACET_PUBLISHER, seg.bitmap(FACET_PUBLISHER, filter.getPublisher().trim()));
+        }
+        if (filter.getLanguage() != null) {
+            selected.put(FACET_LANGUAGE, seg.bitmap(FACET_LANGUAGE, filter.getLanguage().trim()));
+        }
+
+        RoaringBitmap flags = null;
+        if (Boolean.TRUE.equals(filter.getIsHot())) {
+            flags = intersect(flags, seg.bitmap(FACET_FLAG, FLAG_HOT));
+        }
+        if (Boolean.TRUE.equals(filter.getIsNew())) {
+            flags = intersect(flags, seg.bitmap(FACET_FLAG, FLAG_NEW));
+        }
+        if (Boolean.TRUE.equals(filter.getIsRecommended())) {
+            flags = intersect(flags, seg.bitmap(FACET_FLAG, FLAG_RECOMMENDED));
+        }
+        if (flags != null) {
+            selected.put(FACET_FLAG, flags);
+        }
+        return selected;
+    }
+
+    private static RoaringBitmap intersect(RoaringBitmap current, RoaringBitmap bitmap) {
+        return current == null ? bitmap : RoaringBitmap.and(current, bitmap);
+    }
+
+    private static RoaringBitmap toBitmap(Segment seg, long[] bookIds) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (long bookId : bookIds) {
+            Integer doc = seg.docByBookId.get(bookId);
+            if (doc != null) {
+                bitmap.add(doc.intValue());
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * 计算图书所属的全部分面取值（facet, value交替存放）
+     */
+    private static String[] facetValuesOf(CatalogBook book, long priceCents) {
+        List<String> values = new ArrayList<>();
+        for (long categoryId : book.getCategoryIds()) {
+            values.add(FACET_CATEGORY);
+            values.add(Long.toString(categoryId));
+        }
+
+        int band = 0;
+        for (int i = PRICE_BAND_LOWER.length - 1; i >= 0; i--) {
+            if (priceCents >= PRICE_BAND_LOWER[i]) {
+                band = i;
+                break;
+            }
+        }
+        values.add(FACET_PRICE);
+        values.add(PRICE_BAND_LABELS[band]);
+
+        double rating = book.getRating() != null ? book.getRating().doubleValue() : 0;
+        for (int floor : RATING_FLOORS) {
+            if (rating >= floor) {
+                values.add(FACET_RATING);
+                values.add(floor + "+");
+            }
+        }
+
+        if (book.getPublisher() != null && !book.getPublisher().isBlank()) {
+            values.add(FACET_PUBLISHER);
+            values.add(book.getPublisher().trim());
+        }
+        if (book.getLanguage() != null && !book.getLanguage().isBlank()) {
+            values.add(FACET_LANGUAGE);
+            values.add(book.getLanguage().trim());
+        }
+
+        if (Boolean.TRUE.equals(book.getIsHot())) {
+            values.add(FACET_FLAG);
+            values.add(FLAG_HOT);
+        }
+        if (Boolean.TRUE.equals(book.getIsNew())) {
+            values.add(FACET_FLAG);
+            values.add(FLAG_NEW);
+        }
+        if (Boolean.TRUE.equals(book.getIsRecommended())) {
+            values.add(FACET_FLAG);
+            values.add(FLAG_RECOMMENDED);
+        }
+        return values.toArray(new String[0]);
+    }
+}
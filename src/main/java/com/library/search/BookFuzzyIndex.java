@@ -0,0 +1,299 @@
+package com.library.search;
+
+import com.library.catalog.CatalogBook;
+import com.library.catalog.CatalogListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 拼写纠错索引
+ * 以标题、作者中出现的词为词表，对每个词建立三元组（trigram，首尾补位）倒排；
+ * 纠错时先按三元组重合数筛选候选词（每处编辑最多破坏3个三元组），再用带边界的编辑距离逐个校验，
+ * 取距离最小、出现频次最高的词，得到“您是不是要找”的建议
+ */
+@Slf4j
+@Component
+public class BookFuzzyIndex implements CatalogListener {
+
+    private static final int PADDING = 0;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Vocabulary vocabulary = new Vocabulary();
+    private volatile boolean ready = false;
+
+    /**
+     * 词表：词编号为内部连续int，三元组以三个码点拼成的long为键。
+     * 记录每本书贡献的词，变更时先扣除旧贡献再加入新词；频次归零的词从词表和三元组倒排中移除
+     * （编号不复用，留下的空位在下次全量加载时清理）
+     */
+    private static final class Vocabulary {
+        final List<String> terms = new ArrayList<>();
+        final Map<String, Integer> termIds = new HashMap<>();
+        int[] lengths = new int[16];   // 词的码点长度
+        int[] docFreq = new int[16];   // 包含该词的图书数
+        final Map<Long, SortedIntList> trigrams = new HashMap<>();
+        final Map<Long, int[]> bookTerms = new HashMap<>(); // 图书ID -> 该书贡献的词编号
+
+        void upsertBook(CatalogBook book) {
+            removeBook(book.getId());
+            Set<String> collected = new HashSet<>();
+            collectTerms(book.getTitle(), collected);
+            collectTerms(book.getAuthor(), collected);
+            int[] ids = new int[collected.size()];
+            int n = 0;
+            for (String term : collected) {
+                Integer id = termIds.get(term);
+                if (id == null) {
+                    id = addTerm(term);
+                }
+                docFreq[id]++;
+                ids[n++] = id;
+            }
+            bookTerms.put(book.getId(), ids);
+        }
+
+        private void removeBook(long bookId) {
+            int[] oldIds = bookTerms.remove(bookId);
+            if (oldIds == null) {
+                return;
+            }
+            for (int id : oldIds) {
+                if (--docFreq[id] == 0) {
+                    removeTerm(id);
+                }
+            }
+        }
+
+        private int addTerm(String term) {
+            int id = terms.size();
+            terms.add(term);
+            termIds.put(term, id);
+            if (id >= lengths.length) {
+                lengths = Arrays.copyOf(lengths, lengths.length * 2);
+                docFreq = Arrays.copyOf(docFreq, docFreq.length * 2);
+            }
+            int[] codePoints = term.codePoints().toArray();
+            lengths[id] = codePoints.length;
+            for (long gram : trigramsOf(codePoints)) {
+                trigrams.computeIfAbsent(gram, k -> new SortedIntList()).add(id);
+            }
+            return id;
+        }
+
+        private void removeTerm(int id) {
+            String term = terms.get(id);
+            for (long gram : trigramsOf(term.codePoints().toArray())) {
+                SortedIntList list = trigrams.get(gram);
+                if (list != null) {
+                    list.remove(id);
+                    if (list.size() == 0) {
+                        trigrams.remove(gram);
+                    }
+                }
+            }
+            termIds.remove(term);
+            terms.set(id, null);
+        }
+    }
+
+    @Override
+    public void onCatalogReload(List<CatalogBook> books) {
+        Vocabulary rebuilt = new Vocabulary();
+        for (CatalogBook book : books) {
+            rebuilt.upsertBook(book);
+        }
+        lock.writeLock().lock();
+        try {
+            vocabulary = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+        log.info("拼写纠错词表已重建: 词数={}, 三元组数={}", rebuilt.terms.size(), rebuilt.trigrams.size());
+    }
+
+    /**
+     * 增量变更：扣除变更图书原有的词后加入新词，标题中删掉的词不再作为纠正候选
+     */
+    @Override
+    public void onBooksChanged(List<CatalogBook> books) {
+        lock.writeLock().lock();
+        try {
+            for (CatalogBook book : books) {
+                vocabulary.upsertBook(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 纠正关键词中的拼写错误
+     * @return 纠正后的关键词（各词以空格连接）；无需纠正、找不到相近词或索引未就绪时返回empty
+     */
+    public Optional<String> correct(String keyword) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        List<String> words = BookTokenizer.words(keyword);
+        if (words.isEmpty()) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            Vocabulary vocab = vocabulary;
+            List<String> corrected = new ArrayList<>(words.size());
+            boolean changed = false;
+            for (String word : words) {
+                String replacement = correctWord(vocab, word);
+                corrected.add(replacement != null ? replacement : word);
+                changed |= replacement != null;
+            }
+            return changed ? Optional.of(String.join(" ", corrected)) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 纠正单个词，已在词表中或无合适候选时返回null
+     */
+    private String correctWord(Vocabulary vocab, String word) {
+        if (vocab.termIds.containsKey(word)) {
+            return null;
+        }
+        int[] codePoints = word.codePoints().toArray();
+        int maxDistance = maxDistance(codePoints);
+        if (maxDistance == 0) {
+            return null;
+        }
+
+        // 候选生成：统计与各词共有的三元组数，并按长度差过滤
+        long[] grams = trigramsOf(codePoints);
+        Map<Integer, Integer> overlap = new HashMap<>();
+        for (long gram : grams) {
+            SortedIntList termIds = vocab.trigrams.get(gram);
+            if (termIds == null) {
+                continue;
+            }
+            for (int i = 0; i < termIds.size(); i++) {
+                int termId = termIds.get(i);
+                if (Math.abs(vocab.lengths[termId] - codePoints.length) <= maxDistance) {
+                    overlap.merge(termId, 1, Integer::sum);
+                }
+            }
+        }
+
+        // 校验：距离小者优先，距离相同时取出现频次高的词
+        int required = grams.length - 3 * maxDistance;
+        int bestTerm = -1;
+        int bestDistance = maxDistance + 1;
+        for (Map.Entry<Integer, Integer> candidate : overlap.entrySet()) {
+            if (candidate.getValue() < required) {
+                continue;
+            }
+            int termId = candidate.getKey();
+            int distance = boundedLevenshtein(codePoints, vocab.terms.get(termId).codePoints().toArray(), maxDistance);
+            if (distance < bestDistance
+                    || (distance == bestDistance && bestTerm >= 0 && vocab.docFreq[termId] > vocab.docFreq[bestTerm])) {
+                bestTerm = termId;
+                bestDistance = distance;
+            }
+        }
+        return bestTerm >= 0 ? vocab.terms.get(bestTerm) : null;
+    }
+
+    /**
+     * 允许的最大编辑距离：拉丁词3-5个字符允许1处、更长允许2处；中文词2-4个字允许1处、更长允许2处；过短的词不纠正
+     */
+    private static int maxDistance(int[] codePoints) {
+        int length = codePoints.length;
+        if (BookTokenizer.isCjk(codePoints[0])) {
+            return length < 2 ? 0 : (length <= 4 ? 1 : 2);
+        }
+        return length < 3 ? 0 : (length <= 5 ? 1 : 2);
+    }
+
+    /**
+     * 带边界的编辑距离：只计算对角线附近宽度为2*max+1的区域，一旦整行都超过max立即返回max+1
+     */
+    static int boundedLevenshtein(int[] a, int[] b, int max) {
+        if (Math.abs(a.length - b.length) > max) {
+            return max + 1;
+        }
+        int unreachable = max + 1;
+        int[] previous = new int[b.length + 1];
+        int[] current = new int[b.length + 1];
+        for (int j = 0; j <= b.length; j++) {
+            previous[j] = Math.min(j, unreachable);
+        }
+        for (int i = 1; i <= a.length; i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(b.length, i + max);
+            current[0] = Math.min(i, unreachable);
+            if (from > 1) {
+                current[from - 1] = unreachable;
+            }
+            int rowMin = current[0];
+            for (int j = from; j <= to; j++) {
+                int cost = a[i - 1] == b[j - 1] ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                current[j] = Math.min(value, unreachable);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < b.length) {
+                current[to + 1] = unreachable;
+            }
+            if (rowMin > max) {
+                return unreachable;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length];
+    }
+
+    /**
+     * 词表收录的词：拉丁词至少3个字符且不是纯数字，中文词至少2个字
+     */
+    private static void collectTerms(String text, Set<String> terms) {
+        for (String word : BookTokenizer.words(text)) {
+            int first = word.codePointAt(0);
+            int length = word.codePointCount(0, word.length());
+            if (BookTokenizer.isCjk(first) ? length >= 2 : length >= 3 && !word.chars().allMatch(Character::isDigit)) {
+                terms.add(word);
+            }
+        }
+    }
+
+    /**
+     * 三元组（去重）：开头补两个、结尾补一个占位符，使短词和首字母错误也能参与匹配
+     */
+    private static long[] trigramsOf(int[] codePoints) {
+        int[] padded = new int[codePoints.length + 3];
+        padded[0] = PADDING;
+        padded[1] = PADDING;
+        System.arraycopy(codePoints, 0, padded, 2, codePoints.length);
+        padded[padded.length - 1] = PADDING;
+        long[] grams = new long[padded.length - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) padded[i] << 42) | ((long) padded[i + 1] << 21) | padded[i + 2];
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+}
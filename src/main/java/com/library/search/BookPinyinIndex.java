@@ -0,0 +1,200 @@
+package com.library.search;
+
+import com.library.catalog.CatalogBook;
+import com.library.catalog.CatalogListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 拼音检索索引
+ * 为标题、作者中的每段中文生成全拼（如“三体”->santi）和首字母（st）两种键，
+ * 多段时另加整体拼接的键；查询按前缀在有序键表中定位，支持输入到一半的拼音。
+ * 启动时全量构建，之后随增量同步原地更新
+ */
+@Component
+public class BookPinyinIndex implements CatalogListener {
+
+    private static final int MIN_QUERY_LENGTH = 2;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Segment segment = new Segment(0);
+    private volatile boolean ready = false;
+
+    /**
+     * 索引数据：文档编号为内部连续int
+     */
+    private static final class Segment {
+        long[] bookIds;
+        String[][] keys;
+        int docCount;
+        final Map<Long, Integer> docByBookId = new HashMap<>();
+        final TreeMap<String, SortedIntList> postings = new TreeMap<>();
+
+        Segment(int capacity) {
+            bookIds = new long[Math.max(capacity, 16)];
+            keys = new String[bookIds.length][];
+        }
+
+        void upsert(CatalogBook book) {
+            Integer existing = docByBookId.get(book.getId());
+            int doc;
+            if (existing != null) {
+                doc = existing;
+                removeKeys(doc);
+            } else {
+                doc = docCount++;
+                if (doc >= bookIds.length) {
+                    int newSize = bookIds.length + (bookIds.length >> 1);
+                    bookIds = Arrays.copyOf(bookIds, newSize);
+                    keys = Arrays.copyOf(keys, newSize);
+                }
+                bookIds[doc] = book.getId();
+                docByBookId.put(book.getId(), doc);
+            }
+            keys[doc] = keysOf(book).toArray(new String[0]);
+            for (String key : keys[doc]) {
+                postings.computeIfAbsent(key, k -> new SortedIntList()).add(doc);
+            }
+        }
+
+        private void removeKeys(int doc) {
+            String[] oldKeys = keys[doc];
+            if (oldKeys == null) {
+                return;
+            }
+            for (String key : oldKeys) {
+                SortedIntList list = postings.get(key);
+                if (list != null) {
+                    list.remove(doc);
+                    if (list.size() == 0) {
+                        postings.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onCatalogReload(List<CatalogBook> books) {
+        // 新索引在锁外构建，构建完成后整体替换，期间查询继续使用旧索引
+        Segment rebuilt = new Segment(books.size());
+        for (CatalogBook book : books) {
+            rebuilt.upsert(book);
+        }
+        lock.writeLock().lock();
+        try {
+            segment = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+    }
+
+    @Override
+    public void onBooksChanged(List<CatalogBook> books) {
+        lock.writeLock().lock();
+        try {
+            for (CatalogBook book : books) {
+                segment.upsert(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 拼音前缀检索
+     * @param keyword 用户输入，只有纯字母（可含空格、隔音符号）且不少于2个字母时才按拼音处理
+     * @return 命中的图书ID（按文档编号升序）；不是拼音输入或索引未就绪时返回empty
+     */
+    public Optional<long[]> matchBookIds(String keyword) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        String query = pinyinQuery(keyword);
+        if (query == null) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            Segment seg = segment;
+            BitSet docs = new BitSet(seg.docCount);
+            for (SortedIntList list : seg.postings.subMap(query, true, query + Character.MAX_VALUE, false).values()) {
+                for (int i = 0; i < list.size(); i++) {
+                    docs.set(list.get(i));
+                }
+            }
+            return Optional.of(docs.stream().mapToLong(doc -> seg.bookIds[doc]).toArray());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 图书的拼音键（标题、作者）
+     */
+    static Set<String> keysOf(CatalogBook book) {
+        Set<String> keys = new LinkedHashSet<>();
+        addKeys(book.getTitle(), keys);
+        addKeys(book.getAuthor(), keys);
+        return keys;
+    }
+
+    /**
+     * 拼音查询的规范形式，不按拼音处理的输入返回null
+     */
+    static String pinyinQuery(String keyword) {
+        String query = keyword != null ? PinyinConverter.normalizeQuery(keyword) : null;
+        return query != null && query.length() >= MIN_QUERY_LENGTH ? query : null;
+    }
+
+    /**
+     * 生成拼音键：每段中文的全拼与首字母，多段时加上整体拼接
+     */
+    private static void addKeys(String text, Set<String> keys) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder allFull = new StringBuilder();
+        StringBuilder allInitials = new StringBuilder();
+        int segments = 0;
+        for (String word : BookTokenizer.words(text)) {
+            if (!BookTokenizer.isCjk(word.codePointAt(0))) {
+                continue;
+            }
+            List<String> syllables = PinyinConverter.syllables(word);
+            if (syllables.isEmpty()) {
+                continue;
+            }
+            StringBuilder full = new StringBuilder();
+            StringBuilder initials = new StringBuilder();
+            for (String syllable : syllables) {
+                full.append(syllable);
+                initials.append(syllable.charAt(0));
+            }
+            keys.add(full.toString());
+            keys.add(initials.toString());
+            allFull.append(full);
+            allInitials.append(initials);
+            segments++;
+        }
+        if (segments > 1) {
+            keys.add(allFull.toString());
+            keys.add(allInitials.toString());
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.library.search;
+
+import com.library.catalog.BookCursor;
+import com.library.catalog.BookSortOrder;
+import com.library.catalog.CatalogBook;
+import com.library.catalog.CatalogListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 图书关键词倒排索引
+ * 对标题、副标题、作者、译者、出版社建立内存倒排表，关键词检索不再对books做LIKE全表扫描。
+ * 启动时由BookCatalogSync全量构建，之后随增量同步原地更新；读写通过读写锁隔离
+ */
+@Component
+public class BookSearchIndex implements CatalogListener {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Segment segment = new Segment(0);
+    private volatile boolean ready = false;
+
+    /**
+     * 索引数据：文档编号为内部连续int，各排序字段以原始类型数组存储
+     */
+    private static final class Segment {
+        final SortColumns columns;
+        long[][] categoryIds;
+        String[][] terms;
+        int docCount;
+        final Map<Long, Integer> docByBookId = new HashMap<>();
+        final TreeMap<String, SortedIntList> postings = new TreeMap<>();
+
+        Segment(int capacity) {
+            columns = new SortColumns(capacity);
+            categoryIds = new long[columns.capacity()][];
+            terms = new String[columns.capacity()][];
+        }
+
+        void upsert(CatalogBook book) {
+            Integer existing = docByBookId.get(book.getId());
+            int doc;
+            if (existing != null) {
+                doc = existing;
+                removeTerms(doc);
+            } else {
+                doc = docCount++;
+                ensureCapacity(docCount);
+                docByBookId.put(book.getId(), doc);
+            }
+            columns.set(doc, book);
+            categoryIds[doc] = book.getCategoryIds() != null ? book.getCategoryIds() : new long[0];
+
+            terms[doc] = termsOf(book).toArray(new String[0]);
+            for (String term : terms[doc]) {
+                postings.computeIfAbsent(term, k -> new SortedIntList()).add(doc);
+            }
+        }
+
+        private void removeTerms(int doc) {
+            String[] oldTerms = terms[doc];
+            if (oldTerms == null) {
+                return;
+            }
+            for (String term : oldTerms) {
+                SortedIntList list = postings.get(term);
+                if (list != null) {
+                    list.remove(doc);
+                    if (list.size() == 0) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            columns.ensureCapacity(capacity);
+            if (columns.capacity() > terms.length) {
+                categoryIds = Arrays.copyOf(categoryIds, columns.capacity());
+                terms = Arrays.copyOf(terms, columns.capacity());
+            }
+        }
+    }
+
+    @Override
+    public void onCatalogReload(List<CatalogBook> books) {
+        // 新索引在锁外构建，构建完成后整体替换，期间查询继续使用旧索引
+        Segment rebuilt = new Segment(books.size());
+        for (CatalogBook book : books) {
+            rebuilt.upsert(book);
+        }
+        lock.writeLock().lock();
+        try {
+            segment = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+    }
+
+    @Override
+    public void onBooksChanged(List<CatalogBook> books) {
+        lock.writeLock().lock();
+        try {
+            for (CatalogBook book : books) {
+                segment.upsert(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 关键词检索
+     * 各查询词条的倒排表取交集，再按分类过滤，最后用Top-K取出当前页
+     * @return 索引未就绪或关键词无法分词时返回empty，由调用方回退到数据库查询
+     */
+    public Optional<SearchHits> search(String keyword, Long categoryId, BookSortOrder sort, int offset, int limit) {
+        return search(keyword, null, categoryId, sort, null, offset, limit);
+    }
+
+    /**
+     * 游标模式检索：返回排在游标之后的limit本图书，以及下一页游标
+     * @param extraBookIds 其他索引（如拼音索引）对同一关键词的命中，与词条命中合并后一起排序；可为null
+     * @param after        上一页游标，为null时从第一条开始
+     */
+    public Optional<SearchHits> searchAfter(String keyword, long[] extraBookIds, Long categoryId, BookSortOrder sort,
+                                            BookCursor after, int limit) {
+        return search(keyword, extraBookIds, categoryId, sort, after, 0, limit);
+    }
+
+    private Optional<SearchHits> search(String keyword, long[] extraBookIds, Long categoryId, BookSortOrder sort,
+                                        BookCursor after, int offset, int limit) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        List<BookTokenizer.QueryTerm> queryTerms = BookTokenizer.tokenizeQuery(keyword);
+        if (queryTerms.isEmpty()) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            Segment seg = segment;
+            SortColumns columns = seg.columns;
+            int[] matches = withExtraDocs(seg, match(seg, queryTerms), extraBookIds);
+            int total = 0;
+            int count = 0;
+            for (int doc : matches) {
+                if (categoryId == null || Arrays.binarySearch(seg.categoryIds[doc], categoryId) >= 0) {
+                    total++;
+                    if (after == null || columns.isAfter(after, doc)) {
+                        matches[count++] = doc;
+                    }
+                }
+            }
+
+            // 多取一条，用于判断是否还有下一页
+            int[] top = TopK.select(matches, count, offset + limit + 1, (a, b) -> columns.compare(sort, a, b));
+            int end = Math.min(top.length, offset + limit);
+            List<Long> bookIds = new ArrayList<>(Math.max(0, end - offset));
+            for (int i = offset; i < end; i++) {
+                bookIds.add(columns.bookIds[top[i]]);
+            }
+            String nextCursor = top.length > end && end > 0 ? columns.cursorOf(sort, top[end - 1]).encode() : null;
+            return Optional.of(new SearchHits(bookIds, total, nextCursor));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 返回关键词命中的全部图书ID（不分页、不排序），供分面筛选等组合使用
+     * @return 索引未就绪或关键词无法分词时返回empty
+     */
+    public Optional<long[]> matchBookIds(String keyword) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        List<BookTokenizer.QueryTerm> queryTerms = BookTokenizer.tokenizeQuery(keyword);
+        if (queryTerms.isEmpty()) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            Segment seg = segment;
+            int[] matches = match(seg, queryTerms);
+            long[] bookIds = new long[matches.length];
+            for (int i = 0; i < matches.length; i++) {
+                bookIds[i] = seg.columns.bookIds[matches[i]];
+            }
+            return Optional.of(bookIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 返回同时命中全部查询词条的文档编号（升序）
+     */
+    private int[] match(Segment seg, List<BookTokenizer.QueryTerm> queryTerms) {
+        List<SortedIntList> lists = new ArrayList<>(queryTerms.size());
+        for (BookTokenizer.QueryTerm term : queryTerms) {
+            SortedIntList list = term.isPrefix() ? expandPrefix(seg, term.getText()) : seg.postings.get(term.getText());
+            if (list == null || list.size() == 0) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        int[] result = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = SortedIntList.intersect(result, result.length, lists.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 把额外命中的图书ID转换为文档编号并与词条命中合并（去重，结果无序）
+     */
+    private int[] withExtraDocs(Segment seg, int[] matches, long[] extraBookIds) {
+        if (extraBookIds == null || extraBookIds.length == 0) {
+            return matches;
+        }
+        BitSet docs = new BitSet(seg.docCount);
+        for (int doc : matches) {
+            docs.set(doc);
+        }
+        for (long bookId : extraBookIds) {
+            Integer doc = seg.docByBookId.get(bookId);
+            if (doc != null) {
+                docs.set(doc);
+            }
+        }
+        return docs.stream().toArray();
+    }
+
+    /**
+     * 前缀词条展开：合并词典中所有以该前缀开头的词条的倒排表
+     */
+    private SortedIntList expandPrefix(Segment seg, String prefix) {
+        NavigableMap<String, SortedIntList> range =
+                seg.postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (range.isEmpty()) {
+            return null;
+        }
+        if (range.size() == 1) {
+            return range.firstEntry().getValue();
+        }
+        BitSet union = new BitSet(seg.docCount);
+        Collection<SortedIntList> lists = range.values();
+        for (SortedIntList list : lists) {
+            for (int i = 0; i < list.size(); i++) {
+                union.set(list.get(i));
+            }
+        }
+        int[] docs = union.stream().toArray();
+        return SortedIntList.fromSorted(docs, docs.length);
+    }
+
+    /**
+     * 图书的索引词条：标题、副标题、作者、译者、出版社
+     */
+    static Set<String> termsOf(CatalogBook book) {
+        return BookTokenizer.tokenize(String.join(" ",
+                nullToEmpty(book.getTitle()),
+                nullToEmpty(book.getSubtitle()),
+                nullToEmpty(book.getAuthor()),
+                nullToEmpty(book.getTranslator()),
+                nullToEmpty(book.getPublisher())));
+    }
+
+    /**
+     * 图书是否同时命中全部查询词条（与倒排表求交的口径一致：前缀词条匹配任一以其开头的词条）
+     */
+    static boolean matches(Set<String> bookTerms, List<BookTokenizer.QueryTerm> queryTerms) {
+        if (queryTerms.isEmpty()) {
+            return false;
+        }
+        for (BookTokenizer.QueryTerm term : queryTerms) {
+            if (term.isPrefix() ? bookTerms.stream().noneMatch(t -> t.startsWith(term.getText()))
+                    : !bookTerms.contains(term.getText())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,411 @@
+package com.library.search;
+
+import com.library.catalog.CatalogBook;
+import com.library.catalog.CatalogListener;
+import com.library.web.ResourceVersions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 输入联想前缀索引
+ * 标题、作者、ISBN（以及拉丁文标题中各单词开头的后缀）归一化后按字典序排列，
+ * 全部字符紧凑存放在一个char数组中；前缀查询二分定位连续区间，
+ * 再借助按人气值构建的区间最大值线段树逐个取出区间内人气最高的图书，复杂度O(K log n)。
+ * 启动时全量构建；增量变更先登记，由后台定时任务把变更图书的新键（排序后）与旧索引的有序键线性归并，
+ * 未变化图书的键直接从旧char数组复制，生成新索引后整体替换。
+ * 联想结果只在索引替换时变化，因此每次替换后单独递增联想资源版本（而不是跟随图书目录版本）
+ */
+@Slf4j
+@Component
+public class BookSuggestIndex implements CatalogListener {
+
+    private static final int MAX_PREFIX_LENGTH = 50;
+    // 形如ISBN的输入（数字与连字符，末位可为x）：联想键中的ISBN已去掉连字符
+    private static final Pattern ISBN_QUERY = Pattern.compile("[0-9][0-9-]*x?");
+
+    private static final Comparator<Entry> KEY_ORDER = (a, b) -> a.key.compareTo(b.key);
+
+    private final ResourceVersions resourceVersions;
+
+    private volatile Segment segment = Segment.EMPTY;
+    private volatile boolean ready = false;
+    // 待合并的变更：图书ID -> 最新数据
+    private final Map<Long, CatalogBook> pending = new ConcurrentHashMap<>();
+
+    public BookSuggestIndex(ResourceVersions resourceVersions) {
+        this.resourceVersions = resourceVersions;
+    }
+
+    /**
+     * 不可变索引数据
+     */
+    private static final class Segment {
+        static final Segment EMPTY = new Segment(new long[0], new int[0], new char[0], new int[1], new int[0]);
+
+        final long[] bookIds;      // 文档 -> 图书ID
+        final int[] popularity;    // 文档 -> 人气值
+        final char[] chars;        // 全部键依次拼接
+        final int[] keyStart;      // 第i个键为chars[keyStart[i], keyStart[i+1])
+        final int[] entryDoc;      // 第i个键所属文档
+        final int[] tree;          // 区间最大值线段树（自底向上，叶子为键下标）
+
+        Segment(long[] bookIds, int[] popularity, char[] chars, int[] keyStart, int[] entryDoc) {
+            this.bookIds = bookIds;
+            this.popularity = popularity;
+            this.chars = chars;
+            this.keyStart = keyStart;
+            this.entryDoc = entryDoc;
+            int n = entryDoc.length;
+            this.tree = new int[2 * n];
+            for (int i = 0; i < n; i++) {
+                tree[n + i] = i;
+            }
+            for (int i = n - 1; i > 0; i--) {
+                tree[i] = better(tree[2 * i], tree[2 * i + 1]);
+            }
+        }
+
+        int keyCount() {
+            return entryDoc.length;
+        }
+
+        String key(int entry) {
+            return new String(chars, keyStart[entry], keyStart[entry + 1] - keyStart[entry]);
+        }
+
+        /**
+         * 人气更高者优先，相同时图书ID小者优先
+         */
+        int better(int a, int b) {
+            int docA = entryDoc[a];
+            int docB = entryDoc[b];
+            if (popularity[docA] != popularity[docB]) {
+                return popularity[docA] > popularity[docB] ? a : b;
+            }
+            return bookIds[docA] <= bookIds[docB] ? a : b;
+        }
+
+        /**
+         * 区间[from, to)内排名最高的键
+         */
+        int best(int from, int to) {
+            int n = entryDoc.length;
+            int result = -1;
+            for (int l = from + n, r = to + n; l < r; l >>= 1, r >>= 1) {
+                if ((l & 1) == 1) {
+                    result = result < 0 ? tree[l] : better(result, tree[l]);
+                    l++;
+                }
+                if ((r & 1) == 1) {
+                    r--;
+                    result = result < 0 ? tree[r] : better(result, tree[r]);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * 键与字符串按字典序比较（与String.compareTo一致）
+         */
+        int compareKey(int entry, String key) {
+            int start = keyStart[entry];
+            int length = keyStart[entry + 1] - start;
+            int n = Math.min(length, key.length());
+            for (int i = 0; i < n; i++) {
+                int diff = chars[start + i] - key.charAt(i);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return length - key.length();
+        }
+
+        /**
+         * 键与前缀比较：键以前缀开头返回0，否则按字典序返回正负
+         */
+        int comparePrefix(int entry, String prefix) {
+            int start = keyStart[entry];
+            int length = keyStart[entry + 1] - start;
+            int n = Math.min(length, prefix.length());
+            for (int i = 0; i < n; i++) {
+                int diff = chars[start + i] - prefix.charAt(i);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return length >= prefix.length() ? 0 : -1;
+        }
+
+        /**
+         * 第一个比较结果满足条件的键（upper=false: >=0，upper=true: >0）
+         */
+        int bound(String prefix, boolean upper) {
+            int low = 0;
+            int high = entryDoc.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int cmp = comparePrefix(mid, prefix);
+                if (upper ? cmp <= 0 : cmp < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * 构建中的键条目
+     */
+    private static final class Entry {
+        final String key;
+        final long bookId;
+
+        Entry(String key, long bookId) {
+            this.key = key;
+            this.bookId = bookId;
+        }
+    }
+
+    @Override
+    public synchronized void onCatalogReload(List<CatalogBook> books) {
+        Map<Long, Integer> popularityByBook = new HashMap<>();
+        List<Entry> entries = new ArrayList<>();
+        for (CatalogBook book : books) {
+            addBook(book, entries, popularityByBook);
+        }
+        // 全量数据已包含此前登记的变更
+        pending.clear();
+        segment = build(entries, popularityByBook);
+        ready = true;
+        resourceVersions.bump(ResourceVersions.SUGGEST);
+        log.info("输入联想索引已重建: 图书数={}, 键数={}", popularityByBook.size(), segment.keyCount());
+    }
+
+    @Override
+    public void onBooksChanged(List<CatalogBook> books) {
+        for (CatalogBook book : books) {
+            pending.put(book.getId(), book);
+        }
+    }
+
+    /**
+     * 后台合并增量变更：丢弃旧索引中变更图书的键，与变更图书的新键归并为新索引
+     */
+    @Scheduled(fixedDelayString = "${catalog.suggest.rebuild-ms:60000}",
+            initialDelayString = "${catalog.suggest.rebuild-ms:60000}")
+    public synchronized void rebuildPending() {
+        if (!ready || pending.isEmpty()) {
+            return;
+        }
+        Map<Long, CatalogBook> changed = new HashMap<>(pending);
+        changed.forEach(pending::remove);
+
+        segment = merge(segment, changed.values());
+        resourceVersions.bump(ResourceVersions.SUGGEST);
+        log.debug("输入联想索引已合并{}本图书的变更", changed.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 前缀联想
+     * @param query 用户输入（会做NFKC归一化和小写转换）
+     * @param limit 返回数量上限
+     * @return 按人气值降序的图书ID；索引未就绪时返回empty
+     */
+    public Optional<List<Long>> suggest(String query, int limit) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        String prefix = BookTokenizer.normalize(query).trim();
+        if (ISBN_QUERY.matcher(prefix).matches()) {
+            prefix = prefix.replace("-", "");
+        }
+        if (prefix.length() > MAX_PREFIX_LENGTH) {
+            prefix = prefix.substring(0, MAX_PREFIX_LENGTH);
+        }
+        List<Long> result = new ArrayList<>(limit);
+        Segment seg = segment;
+        if (prefix.isEmpty() || seg.keyCount() == 0) {
+            return Optional.of(result);
+        }
+        int from = seg.bound(prefix, false);
+        int to = seg.bound(prefix, true);
+        if (from >= to) {
+            return Optional.of(result);
+        }
+
+        // 按区间最大值展开：每取出一个键，把区间拆成左右两段继续比较
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> a[2] == b[2] ? 0
+                : seg.better(a[2], b[2]) == a[2] ? -1 : 1);
+        ranges.add(new int[]{from, to, seg.best(from, to)});
+        Set<Long> seen = new HashSet<>();
+        while (!ranges.isEmpty() && result.size() < limit) {
+            int[] range = ranges.poll();
+            int entry = range[2];
+            long bookId = seg.bookIds[seg.entryDoc[entry]];
+            if (seen.add(bookId)) {
+                result.add(bookId);
+            }
+            if (range[0] < entry) {
+                ranges.add(new int[]{range[0], entry, seg.best(range[0], entry)});
+            }
+            if (entry + 1 < range[1]) {
+                ranges.add(new int[]{entry + 1, range[1], seg.best(entry + 1, range[1])});
+            }
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * 生成一本书的联想键：标题、作者、ISBN（去掉连字符），以及拉丁文标题中每个单词开头的后缀
+     */
+    private static void addBook(CatalogBook book, List<Entry> entries, Map<Long, Integer> popularityByBook) {
+        Set<String> keys = new HashSet<>();
+        String title = BookTokenizer.normalize(book.getTitle()).trim();
+        addKey(keys, title);
+        for (int i = 1; i < title.length(); i++) {
+            if (title.charAt(i - 1) == ' ' && title.charAt(i) != ' ') {
+                addKey(keys, title.substring(i));
+            }
+        }
+        addKey(keys, BookTokenizer.normalize(book.getAuthor()).trim());
+        addKey(keys, BookTokenizer.normalize(book.getIsbn()).replace("-", "").trim());
+        for (String key : keys) {
+            entries.add(new Entry(key, book.getId()));
+        }
+        popularityByBook.put(book.getId(), book.getPopularity() != null ? book.getPopularity() : 0);
+    }
+
+    /**
+     * 线性归并：旧索引中未变化图书的键（已有序）与变更图书的新键（排序后）按字典序合并，
+     * 旧键的字符直接从旧char数组复制；文档按在结果中首次出现的顺序重新编号
+     */
+    private static Segment merge(Segment old, Collection<CatalogBook> changed) {
+        Map<Long, Integer> changedPopularity = new HashMap<>();
+        List<Entry> added = new ArrayList<>();
+        for (CatalogBook book : changed) {
+            addBook(book, added, changedPopularity);
+        }
+        added.sort(KEY_ORDER);
+
+        int keptEntries = 0;
+        int totalChars = 0;
+        for (int entry = 0; entry < old.keyCount(); entry++) {
+            if (!changedPopularity.containsKey(old.bookIds[old.entryDoc[entry]])) {
+                keptEntries++;
+                totalChars += old.keyStart[entry + 1] - old.keyStart[entry];
+            }
+        }
+        for (Entry entry : added) {
+            totalChars += entry.key.length();
+        }
+
+        int entryCount = keptEntries + added.size();
+        char[] chars = new char[totalChars];
+        int[] keyStart = new int[entryCount + 1];
+        int[] entryDoc = new int[entryCount];
+        long[] bookIds = new long[old.bookIds.length + changedPopularity.size()];
+        int[] popularity = new int[bookIds.length];
+        int[] oldDocMap = new int[old.bookIds.length];
+        Arrays.fill(oldDocMap, -1);
+        Map<Long, Integer> addedDocs = new HashMap<>();
+        int docCount = 0;
+
+        int i = 0;
+        int j = 0;
+        int offset = 0;
+        for (int out = 0; out < entryCount; out++) {
+            while (i < old.keyCount() && changedPopularity.containsKey(old.bookIds[old.entryDoc[i]])) {
+                i++;
+            }
+            keyStart[out] = offset;
+            if (j >= added.size() || (i < old.keyCount() && old.compareKey(i, added.get(j).key) <= 0)) {
+                int oldDoc = old.entryDoc[i];
+                if (oldDocMap[oldDoc] < 0) {
+                    oldDocMap[oldDoc] = docCount;
+                    bookIds[docCount] = old.bookIds[oldDoc];
+                    popularity[docCount] = old.popularity[oldDoc];
+                    docCount++;
+                }
+                int length = old.keyStart[i + 1] - old.keyStart[i];
+                System.arraycopy(old.chars, old.keyStart[i], chars, offset, length);
+                offset += length;
+                entryDoc[out] = oldDocMap[oldDoc];
+                i++;
+            } else {
+                Entry entry = added.get(j++);
+                Integer doc = addedDocs.get(entry.bookId);
+                if (doc == null) {
+                    doc = docCount++;
+                    addedDocs.put(entry.bookId, doc);
+                    bookIds[doc] = entry.bookId;
+                    popularity[doc] = changedPopularity.get(entry.bookId);
+                }
+                entry.key.getChars(0, entry.key.length(), chars, offset);
+                offset += entry.key.length();
+                entryDoc[out] = doc;
+            }
+        }
+        keyStart[entryCount] = offset;
+        return new Segment(Arrays.copyOf(bookIds, docCount), Arrays.copyOf(popularity, docCount),
+                chars, keyStart, entryDoc);
+    }
+
+    private static void addKey(Set<String> keys, String key) {
+        if (!key.isEmpty()) {
+            keys.add(key.length() > MAX_PREFIX_LENGTH ? key.substring(0, MAX_PREFIX_LENGTH) : key);
+        }
+    }
+
+    private static Segment build(List<Entry> entries, Map<Long, Integer> popularityByBook) {
+        entries.sort(KEY_ORDER);
+
+        Map<Long, Integer> docByBookId = new HashMap<>();
+        long[] bookIds = new long[popularityByBook.size()];
+        int[] popularity = new int[popularityByBook.size()];
+        int totalChars = 0;
+        for (Entry entry : entries) {
+            totalChars += entry.key.length();
+        }
+        char[] chars = new char[totalChars];
+        int[] keyStart = new int[entries.size() + 1];
+        int[] entryDoc = new int[entries.size()];
+        int offset = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            Integer doc = docByBookId.get(entry.bookId);
+            if (doc == null) {
+                doc = docByBookId.size();
+                docByBookId.put(entry.bookId, doc);
+                bookIds[doc] = entry.bookId;
+                popularity[doc] = popularityByBook.get(entry.bookId);
+            }
+            keyStart[i] = offset;
+            entry.key.getChars(0, entry.key.length(), chars, offset);
+            offset += entry.key.length();
+            entryDoc[i] = doc;
+        }
+        keyStart[entries.size()] = offset;
+        return new Segment(bookIds, popularity, chars, keyStart, entryDoc);
+    }
+}
@@ -0,0 +1,177 @@
+package com.library.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 图书检索分词器
+ * 中日韩文字按单字+二元组（bigram）切分，拉丁字母与数字按连续单词切分，
+ * 其余字符（空格、标点等）作为分隔符。切分前统一做NFKC归一化（全角转半角）和小写转换
+ */
+public final class BookTokenizer {
+
+    private BookTokenizer() {
+    }
+
+    /**
+     * 查询词条：拉丁单词按前缀匹配（支持输入过程中的半个单词），中文按精确匹配
+     */
+    public static final class QueryTerm {
+        private final String text;
+        private final boolean prefix;
+
+        QueryTerm(String text, boolean prefix) {
+            this.text = text;
+            this.prefix = prefix;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public boolean isPrefix() {
+            return prefix;
+        }
+    }
+
+    /**
+     * 文本归一化：NFKC（全角转半角）+ 小写
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 索引端分词：中文输出每个单字及相邻二元组，拉丁文输出完整单词（去重）
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        String normalized = normalize(text);
+        int i = 0;
+        while (i < normalized.length()) {
+            int cp = normalized.codePointAt(i);
+            if (isCjk(cp)) {
+                int end = cjkRunEnd(normalized, i);
+                int[] chars = normalized.substring(i, end).codePoints().toArray();
+                for (int k = 0; k < chars.length; k++) {
+                    terms.add(new String(chars, k, 1));
+                    if (k + 1 < chars.length) {
+                        terms.add(new String(chars, k, 2));
+                    }
+                }
+                i = end;
+            } else if (Character.isLetterOrDigit(cp)) {
+                int end = wordRunEnd(normalized, i);
+                terms.add(normalized.substring(i, end));
+                i = end;
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 查询端分词：单个汉字用单字词条，两个及以上汉字只用二元组（更精确），拉丁单词按前缀匹配
+     */
+    public static List<QueryTerm> tokenizeQuery(String keyword) {
+        List<QueryTerm> terms = new ArrayList<>();
+        Set<String> seen = new LinkedHashSet<>();
+        String normalized = normalize(keyword);
+        int i = 0;
+        while (i < normalized.length()) {
+            int cp = normalized.codePointAt(i);
+            if (isCjk(cp)) {
+                int end = cjkRunEnd(normalized, i);
+                int[] chars = normalized.substring(i, end).codePoints().toArray();
+                if (chars.length == 1) {
+                    addQueryTerm(terms, seen, new String(chars, 0, 1), false);
+                } else {
+                    for (int k = 0; k + 1 < chars.length; k++) {
+                        addQueryTerm(terms, seen, new String(chars, k, 2), false);
+                    }
+                }
+                i = end;
+            } else if (Character.isLetterOrDigit(cp)) {
+                int end = wordRunEnd(normalized, i);
+                addQueryTerm(terms, seen, normalized.substring(i, end), true);
+                i = end;
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 按原文顺序切分为完整的词：连续的中日韩文字为一个词，连续的字母数字为一个词（用于拼写纠错）
+     */
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        String normalized = normalize(text);
+        int i = 0;
+        while (i < normalized.length()) {
+            int cp = normalized.codePointAt(i);
+            if (isCjk(cp)) {
+                int end = cjkRunEnd(normalized, i);
+                words.add(normalized.substring(i, end));
+                i = end;
+            } else if (Character.isLetterOrDigit(cp)) {
+                int end = wordRunEnd(normalized, i);
+                words.add(normalized.substring(i, end));
+                i = end;
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+        return words;
+    }
+
+    private static void addQueryTerm(List<QueryTerm> terms, Set<String> seen, String text, boolean prefix) {
+        if (seen.add(text)) {
+            terms.add(new QueryTerm(text, prefix));
+        }
+    }
+
+    private static int cjkRunEnd(String text, int start) {
+        int i = start;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            if (!isCjk(cp)) {
+                break;
+            }
+            i += Character.charCount(cp);
+        }
+        return i;
+    }
+
+    private static int wordRunEnd(String text, int start) {
+        int i = start;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            if (isCjk(cp) || !Character.isLetterOrDigit(cp)) {
+                break;
+            }
+            i += Character.charCount(cp);
+        }
+        return i;
+    }
+
+    /**
+     * 判断是否为中日韩文字（汉字、假名、谚文）
+     */
+    public static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
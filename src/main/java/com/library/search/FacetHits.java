@@ -0,0 +1,19 @@
+package com.library.search;
+
+import com.library.model.dto.FacetCountDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分面检索结果：当前页图书ID、命中总数及各分面取值计数（未请求计数时为空Map）
+ */
+@Data
+@AllArgsConstructor
+public class FacetHits {
+    private List<Long> bookIds;
+    private long total;
+    private Map<String, List<FacetCountDTO>> facets;
+}
@@ -0,0 +1,71 @@
+package com.library.search;
+
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 汉字转拼音
+ * 使用pinyin4j内置的字符拼音对照表（本地资源，不依赖外部服务），输出不带声调的小写拼音，ü写作v；
+ * 多音字取对照表中的第一个读音。单字结果缓存，避免重复查表
+ */
+final class PinyinConverter {
+
+    private static final HanyuPinyinOutputFormat FORMAT = new HanyuPinyinOutputFormat();
+    private static final Map<Character, String> CACHE = new ConcurrentHashMap<>();
+    private static final String NONE = "";
+
+    static {
+        FORMAT.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+        FORMAT.setVCharType(HanyuPinyinVCharType.WITH_V);
+        FORMAT.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+    }
+
+    private PinyinConverter() {
+    }
+
+    /**
+     * 逐字转换为拼音音节，没有拼音的字符被跳过
+     */
+    static List<String> syllables(String text) {
+        List<String> result = new ArrayList<>(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            String syllable = CACHE.computeIfAbsent(text.charAt(i), PinyinConverter::lookup);
+            if (!syllable.isEmpty()) {
+                result.add(syllable);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 归一化拼音查询：去掉空格和隔音符号'，含字母以外的字符时返回null（不是拼音输入）
+     */
+    static String normalizeQuery(String query) {
+        String normalized = BookTokenizer.normalize(query).replace(" ", "").replace("'", "");
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return null;
+            }
+        }
+        return normalized;
+    }
+
+    private static String lookup(char c) {
+        try {
+            String[] readings = PinyinHelper.toHanyuPinyinStringArray(c, FORMAT);
+            return readings != null && readings.length > 0 ? readings[0] : NONE;
+        } catch (BadHanyuPinyinOutputFormatCombination e) {
+            return NONE;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.library.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 内存检索结果：当前页图书ID（已按排序方式排列）、命中总数，
+ * 以及游标模式下指向下一页的游标（没有更多结果时为null）
+ */
+@Data
+@AllArgsConstructor
+public class SearchHits {
+    private List<Long> bookIds;
+    private long total;
+    private String nextCursor;
+}
@@ -0,0 +1,214 @@
+package com.library.search;
+
+import com.library.catalog.BookSortOrder;
+import com.library.catalog.CatalogBook;
+import com.library.catalog.CatalogListener;
+import com.library.model.dto.BookListItemDTO;
+import com.library.model.dto.CacheStatsDTO;
+import com.library.model.dto.PagedResultDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 关键词检索结果缓存
+ * 以归一化后的（关键词, 分类, 排序, 页码, 每页数量）为键，按LRU淘汰并设置过期时间。
+ * 图书变更时失效两类结果：包含该图书的页（图书ID -> 缓存键的反向索引），
+ * 以及关键词（或其纠正词）命中该图书新词条/拼音键的全部页——新命中的书和排序键变化的书会改变这些页的内容与总数。
+ * 仍可能短暂过期（至多到过期时间）：图书改名后不再命中某关键词时，只失效包含它的页，该关键词后续页的位置偏移不会失效；
+ * 纠错词表变化导致的纠正结果变化同样不会触发失效。
+ * 缓存的结果对象被多个请求共享，调用方不得修改
+ */
+@Component
+public class SearchResultCache implements CatalogListener {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, Set<String>> keysByBookId = new HashMap<>();
+    // 关键词（含纠正词） -> 缓存键，图书变更时按关键词匹配失效
+    private final Map<String, KeywordKeys> keysByKeyword = new HashMap<>();
+
+    // 统计计数（均在同步块内更新）
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    private static final class Entry {
+        final PagedResultDTO<BookListItemDTO> result;
+        final long expiresAt;
+
+        Entry(PagedResultDTO<BookListItemDTO> result, long expiresAt) {
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 同一关键词的缓存键，及预先解析的查询词条与拼音查询
+     */
+    private static final class KeywordKeys {
+        final List<BookTokenizer.QueryTerm> queryTerms;
+        final String pinyinQuery;
+        final Set<String> keys = new HashSet<>();
+
+        KeywordKeys(String keyword) {
+            this.queryTerms = BookTokenizer.tokenizeQuery(keyword);
+            this.pinyinQuery = BookPinyinIndex.pinyinQuery(keyword);
+        }
+
+        boolean matches(Set<String> bookTerms, Set<String> pinyinKeys) {
+            if (BookSearchIndex.matches(bookTerms, queryTerms)) {
+                return true;
+            }
+            return pinyinQuery != null && pinyinKeys.stream().anyMatch(key -> key.startsWith(pinyinQuery));
+        }
+    }
+
+    public SearchResultCache(@Value("${search.cache.max-entries:10000}") int maxEntries,
+                             @Value("${search.cache.ttl-ms:60000}") long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 生成缓存键：关键词去首尾空白、全角转半角、统一小写并合并连续空白，排序方式取规范值
+     */
+    public static String key(String keyword, Long categoryId, String sort, int page, int limit) {
+        String normalized = BookTokenizer.normalize(keyword).trim().replaceAll("\\s+", " ");
+        return normalized + '\u0000' + categoryId + '\u0000' + BookSortOrder.fromParam(sort).getParam()
+                + '\u0000' + page + '\u0000' + limit;
+    }
+
+    public synchronized Optional<PagedResultDTO<BookListItemDTO>> get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return Optional.empty();
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            remove(key, entry);
+            expirations++;
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+        return Optional.of(entry.result);
+    }
+
+    public synchronized void put(String key, PagedResultDTO<BookListItemDTO> result) {
+        Entry previous = entries.get(key);
+        if (previous != null) {
+            remove(key, previous);
+        }
+        entries.put(key, new Entry(result, System.currentTimeMillis() + ttlMillis));
+        for (BookListItemDTO item : result.getItems()) {
+            keysByBookId.computeIfAbsent(item.getId(), k -> new HashSet<>()).add(key);
+        }
+        for (String keyword : keywordsOf(key, result)) {
+            keysByKeyword.computeIfAbsent(keyword, KeywordKeys::new).keys.add(key);
+        }
+        // 超出容量时淘汰最久未访问的条目
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            Map.Entry<String, Entry> victim = eldest.next();
+            eldest.remove();
+            unlink(victim.getKey(), victim.getValue());
+            evictions++;
+        }
+    }
+
+    /**
+     * 全量重新加载时（可能有图书被删除）清空全部缓存
+     */
+    @Override
+    public synchronized void onCatalogReload(List<CatalogBook> books) {
+        invalidations += entries.size();
+        entries.clear();
+        keysByBookId.clear();
+        keysByKeyword.clear();
+    }
+
+    /**
+     * 图书变更时失效包含该图书的结果，以及关键词命中该图书最新数据的结果
+     */
+    @Override
+    public synchronized void onBooksChanged(List<CatalogBook> books) {
+        Set<String> stale = new HashSet<>();
+        for (CatalogBook book : books) {
+            Set<String> keys = keysByBookId.get(book.getId());
+            if (keys != null) {
+                stale.addAll(keys);
+            }
+            Set<String> bookTerms = BookSearchIndex.termsOf(book);
+            Set<String> pinyinKeys = BookPinyinIndex.keysOf(book);
+            for (KeywordKeys keywordKeys : keysByKeyword.values()) {
+                if (keywordKeys.matches(bookTerms, pinyinKeys)) {
+                    stale.addAll(keywordKeys.keys);
+                }
+            }
+        }
+        for (String key : stale) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                remove(key, entry);
+                invalidations++;
+            }
+        }
+    }
+
+    public synchronized CacheStatsDTO stats() {
+        long requests = hits + misses;
+        return new CacheStatsDTO(hits, misses, requests > 0 ? (double) hits / requests : 0.0,
+                evictions, expirations, invalidations, entries.size());
+    }
+
+    private void remove(String key, Entry entry) {
+        entries.remove(key);
+        unlink(key, entry);
+    }
+
+    /**
+     * 从反向索引中移除该条目的引用
+     */
+    private void unlink(String key, Entry entry) {
+        for (BookListItemDTO item : entry.result.getItems()) {
+            Set<String> keys = keysByBookId.get(item.getId());
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByBookId.remove(item.getId());
+                }
+            }
+        }
+        for (String keyword : keywordsOf(key, entry.result)) {
+            KeywordKeys keywordKeys = keysByKeyword.get(keyword);
+            if (keywordKeys != null) {
+                keywordKeys.keys.remove(key);
+                if (keywordKeys.keys.isEmpty()) {
+                    keysByKeyword.remove(keyword);
+                }
+            }
+        }
+    }
+
+    /**
+     * 条目对应的关键词：缓存键中的归一化关键词，结果经过纠正时再加上纠正词
+     */
+    private static List<String> keywordsOf(String key, PagedResultDTO<BookListItemDTO> result) {
+        String keyword = key.substring(0, key.indexOf('\u0000'));
+        String didYouMean = result.getDidYouMean();
+        return didYouMean != null ? List.of(keyword, BookTokenizer.normalize(didYouMean)) : List.of(keyword);
+    }
+}
@@ -0,0 +1,91 @@
+package com.library.search;
+
+import com.library.catalog.BookCursor;
+import com.library.catalog.BookSortOrder;
+import com.library.catalog.CatalogBook;
+import com.library.catalog.RowValues;
+
+import java.util.Arrays;
+
+/**
+ * 内存索引共用的排序列
+ * 以内部文档编号为下标，用原始类型数组保存图书ID及各排序键，
+ * 排名规则与BookQueryBuilder生成的ORDER BY（排序列 + id）保持一致
+ */
+final class SortColumns {
+
+    long[] bookIds;
+    int[] popularity;
+    long[] publishEpoch; // UTC微秒，无出版日期为Long.MIN_VALUE（降序时排在最后）
+    long[] priceCents;
+
+    SortColumns(int capacity) {
+        int size = Math.max(capacity, 16);
+        bookIds = new long[size];
+        popularity = new int[size];
+        publishEpoch = new long[size];
+        priceCents = new long[size];
+    }
+
+    void ensureCapacity(int capacity) {
+        if (capacity <= bookIds.length) {
+            return;
+        }
+        int newSize = Math.max(capacity, bookIds.length + (bookIds.length >> 1));
+        bookIds = Arrays.copyOf(bookIds, newSize);
+        popularity = Arrays.copyOf(popularity, newSize);
+        publishEpoch = Arrays.copyOf(publishEpoch, newSize);
+        priceCents = Arrays.copyOf(priceCents, newSize);
+    }
+
+    int capacity() {
+        return bookIds.length;
+    }
+
+    void set(int doc, CatalogBook book) {
+        bookIds[doc] = book.getId();
+        popularity[doc] = book.getPopularity() != null ? book.getPopularity() : 0;
+        publishEpoch[doc] = book.getPublishDate() != null
+                ? BookCursor.toEpochMicros(book.getPublishDate()) : Long.MIN_VALUE;
+        priceCents[doc] = RowValues.toCents(book.getSellingPrice());
+    }
+
+    /**
+     * 排名比较：先按排序字段，再按图书ID升序作为稳定的次序
+     */
+    int compare(BookSortOrder sort, int a, int b) {
+        int result = compareKeys(sort, sortKey(sort, a), sortKey(sort, b));
+        return result != 0 ? result : Long.compare(bookIds[a], bookIds[b]);
+    }
+
+    /**
+     * 判断文档是否排在游标位置之后
+     */
+    boolean isAfter(BookCursor cursor, int doc) {
+        long cursorKey = cursor.getKey() != null ? cursor.getKey() : Long.MIN_VALUE;
+        int result = compareKeys(cursor.getSort(), sortKey(cursor.getSort(), doc), cursorKey);
+        return result > 0 || (result == 0 && bookIds[doc] > cursor.getId());
+    }
+
+    long sortKey(BookSortOrder sort, int doc) {
+        switch (sort) {
+            case NEWEST:
+                return publishEpoch[doc];
+            case PRICE_ASC:
+            case PRICE_DESC:
+                return priceCents[doc];
+            default:
+                return popularity[doc];
+        }
+    }
+
+    BookCursor cursorOf(BookSortOrder sort, int doc) {
+        long key = sortKey(sort, doc);
+        boolean nullKey = sort == BookSortOrder.NEWEST && key == Long.MIN_VALUE;
+        return new BookCursor(sort, nullKey ? null : key, bookIds[doc]);
+    }
+
+    private static int compareKeys(BookSortOrder sort, long a, long b) {
+        return sort == BookSortOrder.PRICE_ASC ? Long.compare(a, b) : Long.compare(b, a);
+    }
+}
@@ -0,0 +1,96 @@
+package com.library.search;
+
+import java.util.Arrays;
+
+/**
+ * 有序int数组（倒排表）
+ * 以原始类型数组存储文档编号，支持有序插入、删除与交集运算，避免装箱开销
+ */
+final class SortedIntList {
+
+    private int[] values = new int[4];
+    private int size;
+
+    /**
+     * 由已升序排列的数组构建
+     */
+    static SortedIntList fromSorted(int[] sorted, int length) {
+        SortedIntList list = new SortedIntList();
+        list.values = Arrays.copyOf(sorted, Math.max(length, 4));
+        list.size = length;
+        return list;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    /**
+     * 插入（已存在则忽略），新文档编号递增时退化为追加
+     */
+    void add(int value) {
+        if (size > 0 && values[size - 1] < value) {
+            ensureCapacity(size + 1);
+            values[size++] = value;
+            return;
+        }
+        int pos = Arrays.binarySearch(values, 0, size, value);
+        if (pos >= 0) {
+            return;
+        }
+        int insertAt = -pos - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        values[insertAt] = value;
+        size++;
+    }
+
+    void remove(int value) {
+        int pos = Arrays.binarySearch(values, 0, size, value);
+        if (pos < 0) {
+            return;
+        }
+        System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+        size--;
+    }
+
+    boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * 求与另一有序数组的交集：短表逐个在长表中二分查找
+     */
+    static int[] intersect(int[] small, int smallSize, SortedIntList large) {
+        int[] result = new int[smallSize];
+        int count = 0;
+        int from = 0;
+        for (int i = 0; i < smallSize; i++) {
+            int pos = Arrays.binarySearch(large.values, from, large.size, small[i]);
+            if (pos >= 0) {
+                result[count++] = small[i];
+                from = pos + 1;
+            } else {
+                from = -pos - 1;
+            }
+            if (from >= large.size) {
+                break;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, Math.max(capacity, values.length + (values.length >> 1)));
+        }
+    }
+}
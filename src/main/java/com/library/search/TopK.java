@@ -0,0 +1,83 @@
+package com.library.search;
+
+import java.util.function.IntBinaryOperator;
+
+/**
+ * 基于原始int数组的Top-K选择
+ * 只维护大小为K的堆，命中数远大于页面大小时避免对全部结果排序
+ */
+public final class TopK {
+
+    private TopK() {
+    }
+
+    /**
+     * 从候选中选出排名最靠前的k个并按排名输出
+     * @param candidates 候选文档编号
+     * @param count      候选数组中的有效长度
+     * @param k          需要的数量
+     * @param comparator 排名比较器，返回负数表示第一个参数排在前面
+     */
+    public static int[] select(int[] candidates, int count, int k, IntBinaryOperator comparator) {
+        int size = Math.min(k, count);
+        if (size <= 0) {
+            return new int[0];
+        }
+        // 大顶堆：堆顶为当前保留结果中排名最靠后的一个
+        int[] heap = new int[size];
+        int heapSize = 0;
+        for (int i = 0; i < count; i++) {
+            int doc = candidates[i];
+            if (heapSize < size) {
+                heap[heapSize] = doc;
+                siftUp(heap, heapSize++, comparator);
+            } else if (comparator.applyAsInt(doc, heap[0]) < 0) {
+                heap[0] = doc;
+                siftDown(heap, heapSize, comparator);
+            }
+        }
+        // 依次弹出堆顶（最靠后者）从尾部填充，得到升序排名
+        int[] result = new int[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            result[i] = heap[0];
+            heap[0] = heap[i];
+            siftDown(heap, i, comparator);
+        }
+        return result;
+    }
+
+    private static void siftUp(int[] heap, int index, IntBinaryOperator comparator) {
+        int doc = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (comparator.applyAsInt(doc, heap[parent]) <= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = doc;
+    }
+
+    private static void siftDown(int[] heap, int size, IntBinaryOperator comparator) {
+        if (size == 0) {
+            return;
+        }
+        int doc = heap[0];
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && comparator.applyAsInt(heap[right], heap[child]) > 0) {
+                child = right;
+            }
+            if (comparator.applyAsInt(doc, heap[child]) >= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = doc;
+    }
+}
@@ -29,7 +29,7 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         return org.springframework.security.core.userdetails.User.builder()
                 .username(user.getUsername())
                 .password(user.getPasswordHash()) // 对应数据库中的password_hash字段
-                .roles("USER") // 可根据实际角色表扩展
+                .roles(user.getRole() != null ? user.getRole() : "USER") // users.role：USER/ADMIN
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.library.security;
+
+import com.library.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 当前用户ID解析
+ * JWT令牌主题及UserDetails中保存的是用户名，需要用户ID的接口通过此组件换算；
+ * 用户名不可修改，换算结果放入有容量上限的LRU缓存，同一用户的后续请求不再查询数据库
+ */
+@Component
+public class UserIdResolver {
+
+    private final UserRepository userRepository;
+    private final Map<String, Long> ids;
+
+    public UserIdResolver(UserRepository userRepository,
+                          @Value("${security.user-id-cache.max-size:10000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.ids = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * 已登录用户的ID
+     * @return 未登录（或匿名）、用户不存在时返回empty
+     */
+    public Optional<Long> resolve(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return Optional.empty();
+        }
+        String username = authentication.getName();
+        synchronized (ids) {
+            Long cached = ids.get(username);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+        Optional<Long> userId = userRepository.findIdByUsername(username);
+        userId.ifPresent(id -> {
+            synchronized (ids) {
+                ids.put(username, id);
+            }
+        });
+        return userId;
+    }
+}
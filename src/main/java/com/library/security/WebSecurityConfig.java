@@ -39,6 +39,8 @@ public class WebSecurityConfig {
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS) // 无状态会话
                 )
                 .authorizeHttpRequests(auth -> auth
+                        // 运行统计等管理接口仅限管理员
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         // 允许公开访问的接口
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/books/**").permitAll()
@@ -1,8 +1,15 @@
 package com.library.service;
 
+import com.library.model.dto.BookBatchResultDTO;
 import com.library.model.dto.BookDetailDTO;
+import com.library.model.dto.BookFacetResultDTO;
 import com.library.model.dto.BookListItemDTO;
+import com.library.model.dto.CacheStatsDTO;
 import com.library.model.dto.PagedResultDTO;
+import com.library.model.dto.RelationGraphStatsDTO;
+import com.library.model.dto.TrendingBookDTO;
+import com.library.model.dto.ViewCounterStatsDTO;
+import com.library.model.dto.request.BookFilterRequest;
 import com.library.model.dto.response.PriceCalculationResult;
 
 import java.util.List;
@@ -20,16 +27,98 @@ public interface BookService {
             Integer page,
             Integer limit);
 
+    /**
+     * 获取关键词检索结果缓存的运行统计（命中、未命中、淘汰、失效次数）
+     */
+    CacheStatsDTO getSearchCacheStats();
+
+    /**
+     * 获取图书详情缓存的运行统计
+     */
+    CacheStatsDTO getDetailCacheStats();
+
+    /**
+     * 获取图书关联图的规模与内存统计
+     */
+    RelationGraphStatsDTO getRelationGraphStats();
+
+    /**
+     * 游标分页查询图书（适用于无限滚动，不执行COUNT统计）
+     * @param cursor 上一页返回的nextCursor，为空表示第一页
+     */
+    PagedResultDTO<BookListItemDTO> getBooksByCursor(
+            String keyword,
+            Long categoryId,
+            String sort,
+            String cursor,
+            Integer limit);
+
+    /**
+     * 按分面条件筛选图书（价格区间、评分、出版社、语言、标记等）
+     */
+    PagedResultDTO<BookListItemDTO> getBooksByFilter(
+            BookFilterRequest filter,
+            String sort,
+            Integer page,
+            Integer limit);
+
+    /**
+     * 分面检索：返回当前页图书及各分面取值计数
+     */
+    BookFacetResultDTO getBookFacets(
+            BookFilterRequest filter,
+            String sort,
+            Integer page,
+            Integer limit);
+
     /**
      * 获取图书详情（基础信息）
      */
     Map<String, Object> getBookById(Long id);
 
+    /**
+     * 输入联想：按标题、作者、ISBN前缀匹配，按人气值降序
+     */
+    List<BookListItemDTO> suggestBooks(String query, Integer limit);
+
+    /**
+     * 按ID批量查询图书列表项（保持请求顺序，并返回不存在的ID）
+     */
+    BookBatchResultDTO getBooksByIds(List<Long> ids);
+
     /**
      * 获取热门图书
      */
     List<BookListItemDTO> getHotBooks(Integer limit);
 
+    /**
+     * 获取飙升榜
+     * @param window 统计窗口：1h（默认）或24h
+     * @param categoryId 分类ID，为空表示全站
+     */
+    List<TrendingBookDTO> getTrendingBooks(String window, Long categoryId, Integer limit);
+
+    /**
+     * 获取为用户个性化推荐的图书（没有推荐结果时返回热门图书）
+     */
+    List<BookListItemDTO> getRecommendedBooks(Long userId, Integer limit);
+
+    /**
+     * 记录图书详情浏览
+     * @param userId 当前用户ID，未登录时为null
+     */
+    void recordBookView(Long bookId, Long userId);
+
+    /**
+     * 获取浏览计数统计（已记录、已写库、待写入及丢失的浏览次数）
+     */
+    ViewCounterStatsDTO getViewCounterStats();
+
+    /**
+     * 获取用户最近浏览的图书（最新的在前）
+     */
+    List<BookListItemDTO> getRecentlyViewedBooks(Long userId, Integer limit);
+
     /**
      * 获取新书上架
      */
@@ -44,6 +133,15 @@ public interface BookService {
             Integer limit,
             String sort);
 
+    /**
+     * 根据分类游标分页获取图书（不执行COUNT统计）
+     */
+    PagedResultDTO<BookListItemDTO> getBooksByCategoryCursor(
+            Long categoryId,
+            String sort,
+            String cursor,
+            Integer limit);
+
     /**
      * 获取相关推荐书本
      */
@@ -53,4 +151,9 @@ public interface BookService {
      * 获取图书详情（包含价格计算和相关推荐）
      */
     BookDetailDTO getBookDetail(Long id);
+
+    /**
+     * 获取图书详情的完整响应体（静态部分走缓存，库存实时查询）
+     */
+    byte[] getBookDetailJson(Long id);
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.library.service;
 
 import com.library.model.dto.CategoryDTO;
+import com.library.model.dto.response.SerializedResponse;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,7 +33,28 @@ public interface CategoryService {
 
     /**
      * 获取分类树形结构（包含父子关系）
-     * @return 树形结构的分类DTO列表
+     * @return 顶级分类DTO列表，子分类在children中
      */
     List<CategoryDTO> getCategoryTree();
+
+    /**
+     * 激活分类列表的预序列化响应体
+     * 只含响应体；强ETag与Last-Modified由分类快照登记到ResourceVersions，条件GET处理时写出
+     */
+    SerializedResponse getCategoryListResponse();
+
+    /**
+     * 分类树的预序列化响应体（校验值同上，不在响应对象中）
+     */
+    SerializedResponse getCategoryTreeResponse();
+
+    /**
+     * 按slug获取分类的预序列化响应体，分类不存在或已停用时抛出404
+     */
+    SerializedResponse getCategoryResponseBySlug(String slug);
+
+    /**
+     * 按ID获取分类的预序列化响应体，分类不存在或已停用时抛出404
+     */
+    SerializedResponse getCategoryResponseById(Long id);
 }
\ No newline at end of file
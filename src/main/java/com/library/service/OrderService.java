@@ -1,11 +1,14 @@
 package com.library.service;
 
+import com.library.catalog.BookCatalogSync;
+import com.library.catalog.RowValues;
 import com.library.model.dto.OrderDTO;
 import com.library.model.dto.OrderItemDTO;
 import com.library.model.dto.PagedResultDTO;
 import com.library.model.dto.request.CreateOrderRequest;
 import com.library.model.entity.Order;
 import com.library.model.entity.OrderItem;
+import com.library.ranking.TrendingCounters;
 import com.library.repository.OrderItemRepository;
 import com.library.repository.OrderRepository;
 import com.library.repository.BookRepository;
@@ -15,9 +18,12 @@ import com.library.exception.BadRequestException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -31,6 +37,8 @@ public class OrderService {
     private final OrderItemRepository orderItemRepository;
     private final BookRepository bookRepository;
     private final UserAddressRepository userAddressRepository;
+    private final TrendingCounters trendingCounters;
+    private final BookCatalogSync bookCatalogSync;
     private static final int MAX_ORDER_ITEMS = 10; // 订单最大商品数量限制
     private static final int MAX_QUANTITY_PER_ITEM = 5; // 单商品最大购买数量限制
 
@@ -62,7 +70,17 @@ public class OrderService {
         // 6. 扣减库存
         deductBookStock(request.getItems());
 
-        // 7. 返回订单详情
+        // 7. 事务提交后计入飙升榜销量，并立即刷新内存目录中这些图书的库存
+        long orderedAt = System.currentTimeMillis();
+        afterCommit(() -> {
+            request.getItems().forEach(item ->
+                    trendingCounters.record(item.getBookId(), item.getQuantity(), orderedAt));
+            bookCatalogSync.refreshBooks(request.getItems().stream()
+                    .map(CreateOrderRequest.OrderItemRequest::getBookId)
+                    .collect(Collectors.toSet()));
+        });
+
+        // 8. 返回订单详情
         return getOrderById(userId, orderId);
     }
 
@@ -129,8 +147,18 @@ public class OrderService {
         // 更新订单状态为取消
         orderRepository.updateOrderStatus(orderId, Order.OrderStatus.CANCELLED.name());
 
-        // 恢复库存
-        restoreBookStock(orderId);
+        // 恢复库存，并在事务提交后从飙升榜扣除该订单的销量、刷新内存目录中这些图书的库存
+        LocalDateTime createdAt = (LocalDateTime) orderMap.get("created_at");
+        long orderedAt = createdAt != null
+                ? createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : System.currentTimeMillis();
+        List<Map<String, Object>> itemMaps = restoreBookStock(orderId);
+        afterCommit(() -> {
+            itemMaps.forEach(itemMap -> trendingCounters.record(((Number) itemMap.get("book_id")).longValue(),
+                    -((Number) itemMap.get("quantity")).intValue(), orderedAt));
+            bookCatalogSync.refreshBooks(itemMaps.stream()
+                    .map(itemMap -> ((Number) itemMap.get("book_id")).longValue())
+                    .collect(Collectors.toSet()));
+        });
     }
 
     /**
@@ -209,7 +237,7 @@ public class OrderService {
                 throw new BadRequestException("图书库存不足: " + book.get("title") + "，当前库存: " + stock);
             }
 
-            BigDecimal price = parseBigDecimal(book.get("selling_price"));
+            BigDecimal price = RowValues.parseBigDecimal(book.get("selling_price"));
             totalAmount = totalAmount.add(price.multiply(new BigDecimal(item.getQuantity())));
         }
         return totalAmount;
@@ -243,7 +271,7 @@ public class OrderService {
             orderItem.setBookTitle((String) book.get("title"));
             orderItem.setBookCover((String) book.get("cover_image"));
             orderItem.setQuantity(item.getQuantity());
-            orderItem.setUnitPrice(parseBigDecimal(book.get("selling_price")));
+            orderItem.setUnitPrice(RowValues.parseBigDecimal(book.get("selling_price")));
 
             orderItemRepository.save(orderItem);
         }
@@ -262,15 +290,32 @@ public class OrderService {
     }
 
     /**
-     * 恢复库存（取消订单时）
+     * 恢复库存（取消订单时），返回该订单的订单项
      */
-    private void restoreBookStock(Long orderId) {
+    private List<Map<String, Object>> restoreBookStock(Long orderId) {
         List<Map<String, Object>> itemMaps = orderItemRepository.findByOrderId(orderId);
         for (var itemMap : itemMaps) {
             Long bookId = ((Number) itemMap.get("book_id")).longValue();
             Integer quantity = ((Number) itemMap.get("quantity")).intValue();
             bookRepository.increaseStock(bookId, quantity);
         }
+        return itemMaps;
+    }
+
+    /**
+     * 当前事务提交后执行（回滚时不执行）；没有事务时立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     /**
@@ -281,8 +326,8 @@ public class OrderService {
         dto.setId(((Number) orderMap.get("id")).longValue());
         dto.setOrderNo((String) orderMap.get("order_no"));
         dto.setStatus((String) orderMap.get("status"));
-        dto.setTotalAmount(parseBigDecimal(orderMap.get("total_amount")));
-        dto.setFinalAmount(parseBigDecimal(orderMap.get("final_amount")));
+        dto.setTotalAmount(RowValues.parseBigDecimal(orderMap.get("total_amount")));
+        dto.setFinalAmount(RowValues.parseBigDecimal(orderMap.get("final_amount")));
         dto.setPaymentMethod((String) orderMap.get("payment_method"));
         dto.setAddressName((String) orderMap.get("address_name"));
         dto.setAddressPhone((String) orderMap.get("address_phone"));
@@ -301,33 +346,10 @@ public class OrderService {
         dto.setBookTitle((String) itemMap.get("book_title"));
         dto.setBookCover((String) itemMap.get("book_cover"));
         dto.setQuantity(((Number) itemMap.get("quantity")).intValue());
-        dto.setUnitPrice(parseBigDecimal(itemMap.get("unit_price")));
+        dto.setUnitPrice(RowValues.parseBigDecimal(itemMap.get("unit_price")));
         return dto;
     }
 
-    /**
-     * 安全解析BigDecimal
-     */
-    private BigDecimal parseBigDecimal(Object value) {
-        if (value == null) {
-            return BigDecimal.ZERO;
-        }
-        if (value instanceof BigDecimal) {
-            return (BigDecimal) value;
-        }
-        if (value instanceof Number) {
-            return new BigDecimal(((Number) value).toString());
-        }
-        if (value instanceof String) {
-            try {
-                return new BigDecimal((String) value);
-            } catch (NumberFormatException e) {
-                return BigDecimal.ZERO;
-            }
-        }
-        return BigDecimal.ZERO;
-    }
-
     /**
      * 验证分页参数
      */
@@ -1,32 +1,103 @@
 package com.library.service.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.library.activity.BookViewCounter;
+import com.library.activity.RecentlyViewedTracker;
+import com.library.catalog.BookCursor;
+import com.library.catalog.BookDetailCache;
+import com.library.catalog.BookSortOrder;
+import com.library.catalog.CatalogSnapshot;
+import com.library.catalog.CatalogSnapshotStore;
+import com.library.catalog.RowValues;
+import com.library.category.CategoryStatsIndex;
 import com.library.exception.ApiError;
+import com.library.model.dto.BookBatchResultDTO;
 import com.library.model.dto.BookDetailDTO;
+import com.library.model.dto.BookFacetResultDTO;
 import com.library.model.dto.BookListItemDTO;
+import com.library.model.dto.CacheStatsDTO;
 import com.library.model.dto.PagedResultDTO;
+import com.library.model.dto.RelationGraphStatsDTO;
+import com.library.model.dto.TrendingBookDTO;
+import com.library.model.dto.ViewCounterStatsDTO;
+import com.library.model.dto.request.BookFilterRequest;
+import com.library.model.dto.response.ApiResponse;
 import com.library.model.dto.response.PriceCalculationResult;
+import com.library.repository.BookListingQuery;
+import com.library.repository.BookListingRepository;
+import com.library.ranking.TrendingCounters;
+import com.library.ranking.TrendingHits;
+import com.library.ranking.TrendingWindow;
+import com.library.recommend.RecommendationEngine;
+import com.library.relation.BookRelationGraph;
+import com.library.relation.SameAuthorRelationBuilder;
 import com.library.repository.BookRepository;
+import com.library.search.BookFacetIndex;
+import com.library.search.BookFuzzyIndex;
+import com.library.search.BookPinyinIndex;
+import com.library.search.BookSearchIndex;
+import com.library.search.BookSuggestIndex;
+import com.library.search.FacetHits;
+import com.library.search.SearchHits;
+import com.library.search.SearchResultCache;
 import com.library.service.BookService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 @Service
 @RequiredArgsConstructor
 public class BookServiceImpl implements BookService {
 
     private final BookRepository bookRepository;
+    private final BookListingRepository bookListingRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookFacetIndex bookFacetIndex;
+    private final CatalogSnapshotStore catalogSnapshotStore;
+    private final BookSuggestIndex bookSuggestIndex;
+    private final BookFuzzyIndex bookFuzzyIndex;
+    private final BookPinyinIndex bookPinyinIndex;
+    private final SearchResultCache searchResultCache;
+    private final BookDetailCache bookDetailCache;
+    private final ObjectMapper objectMapper;
+    private final BookRelationGraph bookRelationGraph;
+    private final SameAuthorRelationBuilder sameAuthorRelationBuilder;
+    private final TrendingCounters trendingCounters;
+    private final RecommendationEngine recommendationEngine;
+    private final RecentlyViewedTracker recentlyViewedTracker;
+    private final BookViewCounter bookViewCounter;
+    private final CategoryStatsIndex categoryStatsIndex;
     private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_SUGGEST_LIMIT = 20;
+    private static final int RELATED_LIMIT = 4;
     private static final String DEFAULT_SORT = "recommended";
     private static final String DEFAULT_COVER_IMAGE = "/images/default-book.jpg";
     private static final String DEFAULT_DESCRIPTION = "暂无内容简介";
+    private static final String DETAIL_SUCCESS_MESSAGE = "图书详情获取成功";
+
+    @Value("${book.batch.max-size:100}")
+    private int maxBatchSize; // 批量查询单次最多ID数
+
+    @Value("${recommend.max-limit:50}")
+    private int maxRecommendLimit; // 个性化推荐单次最多返回数
 
     /**
      * 获取所有图书（支持分页、筛选、排序和搜索）
@@ -41,18 +112,99 @@ public class BookServiceImpl implements BookService {
             Integer limit) {
 
         validatePageParams(page, limit);
+
+        // 关键词检索结果走缓存；无关键词的列表已由目录快照切片返回，无需缓存
+        if (!StringUtils.hasText(keyword)) {
+            return searchBooks(keyword, categoryId, sort, page, limit);
+        }
+        String cacheKey = SearchResultCache.key(keyword, categoryId, sort, page, limit);
+        Optional<PagedResultDTO<BookListItemDTO>> cached = searchResultCache.get(cacheKey);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        PagedResultDTO<BookListItemDTO> result = searchBooks(keyword, categoryId, sort, page, limit);
+        searchResultCache.put(cacheKey, result);
+        return result;
+    }
+
+    /**
+     * 获取检索结果缓存的运行统计
+     */
+    @Override
+    public CacheStatsDTO getSearchCacheStats() {
+        return searchResultCache.stats();
+    }
+
+    /**
+     * 获取详情缓存的运行统计
+     */
+    @Override
+    public CacheStatsDTO getDetailCacheStats() {
+        return bookDetailCache.stats();
+    }
+
+    /**
+     * 获取关联图的规模与内存统计
+     */
+    @Override
+    public RelationGraphStatsDTO getRelationGraphStats() {
+        return bookRelationGraph.stats();
+    }
+
+    /**
+     * 执行图书列表查询（不经过缓存）
+     */
+    private PagedResultDTO<BookListItemDTO> searchBooks(
+            String keyword,
+            Long categoryId,
+            String sort,
+            Integer page,
+            Integer limit) {
+
         int offset = calculateOffset(page, limit);
         String sortOrder = Objects.requireNonNullElse(sort, DEFAULT_SORT);
 
-        List<Map<String, Object>> books = bookRepository.findBooks(
-                keyword,
-                categoryId,
-                sortOrder,
-                limit,
-                offset
-        );
+        // 关键词搜索优先走内存倒排索引（索引未就绪时回退到数据库LIKE查询）
+        if (StringUtils.hasText(keyword)) {
+            BookSortOrder order = BookSortOrder.fromParam(sortOrder);
+            Optional<SearchHits> hits = searchPinyin(keyword, categoryId, order, offset, limit);
+            if (hits.isEmpty()) {
+                hits = bookSearchIndex.search(keyword, categoryId, order, offset, limit);
+            }
+            if (hits.isPresent()) {
+                // 无结果时尝试拼写纠错，纠正后有结果则返回纠正后的结果并附带纠正词
+                String didYouMean = null;
+                if (hits.get().getTotal() == 0) {
+                    Optional<String> corrected = bookFuzzyIndex.correct(keyword);
+                    Optional<SearchHits> correctedHits = corrected.flatMap(
+                            fixed -> bookSearchIndex.search(fixed, categoryId, order, offset, limit));
+                    if (correctedHits.isPresent() && correctedHits.get().getTotal() > 0) {
+                        hits = correctedHits;
+                        didYouMean = corrected.get();
+                    }
+                }
+                List<BookListItemDTO> bookList = loadBookListItems(hits.get().getBookIds());
+                PagedResultDTO<BookListItemDTO> result = new PagedResultDTO<>(bookList, hits.get().getTotal(), page, limit);
+                result.setDidYouMean(didYouMean);
+                return result;
+            }
+        } else {
+            // 无关键词时直接切取目录快照中的预排序排列（全部图书或指定分类）
+            Optional<CatalogSnapshot> snapshot = catalogSnapshotStore.current();
+            if (snapshot.isPresent()) {
+                CatalogSnapshot current = snapshot.get();
+                List<BookListItemDTO> bookList = current.page(
+                        categoryId, BookSortOrder.fromParam(sortOrder), offset, limit);
+                return new PagedResultDTO<>(bookList, (long) current.count(categoryId), page, limit);
+            }
+        }
+
+        BookListingQuery query = buildListingQuery(keyword, categoryId, BookSortOrder.fromParam(sortOrder));
+        query.setLimit(limit);
+        query.setOffset(offset);
+        List<Map<String, Object>> books = bookListingRepository.findBooks(query);
 
-        Long total = bookRepository.countBooks(keyword, categoryId);
+        Long total = countListing(query);
         List<BookListItemDTO> bookList = convertToBookListItemList(books);
 
         return new PagedResultDTO<>(
@@ -63,6 +215,94 @@ public class BookServiceImpl implements BookService {
         );
     }
 
+    /**
+     * 游标分页查询图书（键集分页：按排序键+图书ID定位，深分页不退化，且不执行COUNT）
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PagedResultDTO<BookListItemDTO> getBooksByCursor(
+            String keyword,
+            Long categoryId,
+            String sort,
+            String cursor,
+            Integer limit) {
+
+        validatePageParams(1, limit);
+        BookSortOrder sortOrder = BookSortOrder.fromParam(Objects.requireNonNullElse(sort, DEFAULT_SORT));
+        BookCursor after = StringUtils.hasText(cursor) ? BookCursor.decode(cursor, sortOrder) : null;
+
+        if (StringUtils.hasText(keyword)) {
+            // 与页码模式一致：合并拼音命中；无结果时按纠正词检索（游标不含关键词，后续页同样会再次纠正）
+            long[] pinyinMatches = bookPinyinIndex.matchBookIds(keyword).orElse(null);
+            Optional<SearchHits> hits = bookSearchIndex.searchAfter(
+                    keyword, pinyinMatches, categoryId, sortOrder, after, limit);
+            if (hits.isPresent()) {
+                String didYouMean = null;
+                if (hits.get().getTotal() == 0) {
+                    Optional<String> corrected = bookFuzzyIndex.correct(keyword);
+                    Optional<SearchHits> correctedHits = corrected.flatMap(
+                            fixed -> bookSearchIndex.searchAfter(fixed, null, categoryId, sortOrder, after, limit));
+                    if (correctedHits.isPresent() && correctedHits.get().getTotal() > 0) {
+                        hits = correctedHits;
+                        didYouMean = corrected.get();
+                    }
+                }
+                List<BookListItemDTO> bookList = loadBookListItems(hits.get().getBookIds());
+                PagedResultDTO<BookListItemDTO> result =
+                        new PagedResultDTO<>(bookList, hits.get().getTotal(), limit, hits.get().getNextCursor());
+                result.setDidYouMean(didYouMean);
+                return result;
+            }
+        }
+
+        // 多查一条用于判断是否还有下一页
+        BookListingQuery query = buildListingQuery(keyword, categoryId, sortOrder);
+        query.setAfter(after);
+        query.setLimit(limit + 1);
+        List<Map<String, Object>> books = bookListingRepository.findBooks(query);
+        String nextCursor = null;
+        if (books.size() > limit) {
+            books = books.subList(0, limit);
+            Map<String, Object> last = books.get(limit - 1);
+            nextCursor = BookCursor.of(
+                    sortOrder,
+                    ((Number) last.get("id")).longValue(),
+                    last.get("popularity") != null ? ((Number) last.get("popularity")).intValue() : 0,
+                    RowValues.parseDateTime(last.get("publish_date")),
+                    RowValues.parseBigDecimal(last.get("selling_price"))
+            ).encode();
+        }
+        return new PagedResultDTO<>(convertToBookListItemList(books), null, limit, nextCursor);
+    }
+
+    /**
+     * 按分面条件筛选图书
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PagedResultDTO<BookListItemDTO> getBooksByFilter(
+            BookFilterRequest filter,
+            String sort,
+            Integer page,
+            Integer limit) {
+
+        return searchFacets(filter, sort, page, limit, false).getBooks();
+    }
+
+    /**
+     * 分面检索：命中结果与各分面计数由位图交集一次算出
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public BookFacetResultDTO getBookFacets(
+            BookFilterRequest filter,
+            String sort,
+            Integer page,
+            Integer limit) {
+
+        return searchFacets(filter, sort, page, limit, true);
+    }
+
     /**
      * 获取图书详情（基础信息）
      */
@@ -74,6 +314,49 @@ public class BookServiceImpl implements BookService {
                 .orElseThrow(() -> new ApiError(404, "图书不存在: ID=" + id));
     }
 
+    /**
+     * 输入联想（优先走内存前缀索引，未就绪时回退到数据库前缀查询）
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookListItemDTO> suggestBooks(String query, Integer limit) {
+        int queryLimit = Objects.requireNonNullElse(limit, DEFAULT_LIMIT);
+        if (queryLimit < 1 || queryLimit > MAX_SUGGEST_LIMIT) {
+            throw new ApiError(400, "联想数量必须在1-" + MAX_SUGGEST_LIMIT + "之间");
+        }
+        if (!StringUtils.hasText(query)) {
+            return new ArrayList<>();
+        }
+        Optional<List<Long>> bookIds = bookSuggestIndex.suggest(query, queryLimit);
+        if (bookIds.isPresent()) {
+            return loadBookListItems(bookIds.get());
+        }
+        return convertToBookListItemList(bookRepository.suggestBooks(query.trim(), queryLimit));
+    }
+
+    /**
+     * 批量查询图书列表项（目录快照或单次主键IN查询，保持请求顺序，重复ID只返回一次）
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public BookBatchResultDTO getBooksByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new ApiError(400, "图书ID列表不能为空");
+        }
+        if (ids.size() > maxBatchSize) {
+            throw new ApiError(400, "单次最多查询" + maxBatchSize + "本图书");
+        }
+        List<Long> uniqueIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        uniqueIds.forEach(this::validateId);
+
+        List<BookListItemDTO> items = loadBookListItems(uniqueIds);
+        Set<Long> found = items.stream().map(BookListItemDTO::getId).collect(Collectors.toSet());
+        List<Long> missingIds = uniqueIds.stream()
+                .filter(id -> !found.contains(id))
+                .collect(Collectors.toList());
+        return new BookBatchResultDTO(items, missingIds);
+    }
+
     /**
      * 获取热门图书
      */
@@ -81,10 +364,94 @@ public class BookServiceImpl implements BookService {
     @Transactional(readOnly = true)
     public List<BookListItemDTO> getHotBooks(Integer limit) {
         int queryLimit = Objects.requireNonNullElse(limit, DEFAULT_LIMIT);
+        Optional<CatalogSnapshot> snapshot = catalogSnapshotStore.current();
+        if (snapshot.isPresent()) {
+            return snapshot.get().hotBooks(queryLimit);
+        }
         List<Map<String, Object>> books = bookRepository.getHotBooks(queryLimit);
         return convertToBookListItemList(books);
     }
 
+    /**
+     * 获取飙升榜（最近1小时/24小时销量最高的图书，可按分类）
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<TrendingBookDTO> getTrendingBooks(String window, Long categoryId, Integer limit) {
+        TrendingWindow trendingWindow = TrendingWindow.fromParam(Objects.requireNonNullElse(window, "1h"));
+        if (trendingWindow == null) {
+            throw new ApiError(400, "无效的统计窗口: " + window + "，可选值为1h、24h");
+        }
+        if (categoryId != null) {
+            validateCategoryId(categoryId);
+        }
+        int queryLimit = Objects.requireNonNullElse(limit, DEFAULT_LIMIT);
+        if (queryLimit < 1 || queryLimit > trendingCounters.getMaxLimit()) {
+            throw new ApiError(400, "返回数量必须在1-" + trendingCounters.getMaxLimit() + "之间");
+        }
+
+        CatalogSnapshot snapshot = catalogSnapshotStore.current().orElse(CatalogSnapshot.EMPTY);
+        TrendingHits hits = trendingCounters.top(trendingWindow, categoryId, queryLimit, snapshot);
+        Map<Long, Integer> salesByBook = new HashMap<>();
+        for (int i = 0; i < hits.getBookIds().size(); i++) {
+            salesByBook.put(hits.getBookIds().get(i), hits.getSales().get(i));
+        }
+        return loadBookListItems(hits.getBookIds()).stream()
+                .map(item -> new TrendingBookDTO(item, salesByBook.get(item.getId())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 获取个性化推荐：模型中的候选只保留目录中仍存在的图书，模型未就绪或用户没有行为记录时返回热门图书
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookListItemDTO> getRecommendedBooks(Long userId, Integer limit) {
+        int queryLimit = Objects.requireNonNullElse(limit, DEFAULT_LIMIT);
+        if (queryLimit < 1 || queryLimit > maxRecommendLimit) {
+            throw new ApiError(400, "返回数量必须在1-" + maxRecommendLimit + "之间");
+        }
+        Optional<CatalogSnapshot> snapshot = catalogSnapshotStore.current();
+        Optional<List<Long>> recommended = recommendationEngine.recommend(userId, queryLimit,
+                bookId -> snapshot.isEmpty() || snapshot.get().positionOf(bookId) >= 0);
+        if (recommended.isEmpty() || recommended.get().isEmpty()) {
+            return getHotBooks(queryLimit);
+        }
+        return loadBookListItems(recommended.get());
+    }
+
+    /**
+     * 记录图书详情浏览：累加浏览次数，登录用户同时记入最近浏览（均为内存缓冲，后台批量写库）
+     */
+    @Override
+    public void recordBookView(Long bookId, Long userId) {
+        bookViewCounter.increment(bookId);
+        if (userId != null) {
+            recentlyViewedTracker.record(userId, bookId);
+        }
+    }
+
+    /**
+     * 获取浏览计数统计
+     */
+    @Override
+    public ViewCounterStatsDTO getViewCounterStats() {
+        return bookViewCounter.stats();
+    }
+
+    /**
+     * 获取最近浏览：图书信息从目录快照批量读取，已下架的图书不返回
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookListItemDTO> getRecentlyViewedBooks(Long userId, Integer limit) {
+        int queryLimit = Objects.requireNonNullElse(limit, recentlyViewedTracker.getCapacity());
+        if (queryLimit < 1 || queryLimit > recentlyViewedTracker.getCapacity()) {
+            throw new ApiError(400, "返回数量必须在1-" + recentlyViewedTracker.getCapacity() + "之间");
+        }
+        return loadBookListItems(recentlyViewedTracker.recent(userId, queryLimit));
+    }
+
     /**
      * 获取新书上架
      */
@@ -92,6 +459,10 @@ public class BookServiceImpl implements BookService {
     @Transactional(readOnly = true)
     public List<BookListItemDTO> getNewBooks(Integer limit) {
         int queryLimit = Objects.requireNonNullElse(limit, DEFAULT_LIMIT);
+        Optional<CatalogSnapshot> snapshot = catalogSnapshotStore.current();
+        if (snapshot.isPresent()) {
+            return snapshot.get().newBooks(queryLimit);
+        }
         List<Map<String, Object>> books = bookRepository.getNewBooks(queryLimit);
         return convertToBookListItemList(books);
     }
@@ -111,15 +482,21 @@ public class BookServiceImpl implements BookService {
         int offset = calculateOffset(page, limit);
         String querySort = Objects.requireNonNullElse(sort, DEFAULT_SORT);
 
-        List<Map<String, Object>> books = bookRepository.findBooks(
-                null,
-                categoryId,
-                querySort,
-                limit,
-                offset
-        );
+        // 目录快照中已按分类和排序方式预排好序，任意页都是数组切片
+        Optional<CatalogSnapshot> snapshot = catalogSnapshotStore.current();
+        if (snapshot.isPresent()) {
+            CatalogSnapshot current = snapshot.get();
+            List<BookListItemDTO> bookList = current.page(
+                    categoryId, BookSortOrder.fromParam(querySort), offset, limit);
+            return new PagedResultDTO<>(bookList, (long) current.count(categoryId), page, limit);
+        }
+
+        BookListingQuery query = buildListingQuery(null, categoryId, BookSortOrder.fromParam(querySort));
+        query.setLimit(limit);
+        query.setOffset(offset);
+        List<Map<String, Object>> books = bookListingRepository.findBooks(query);
 
-        Long total = bookRepository.countBooks(null, categoryId);
+        Long total = countListing(query);
         List<BookListItemDTO> bookList = convertToBookListItemList(books);
 
         return new PagedResultDTO<>(
@@ -130,6 +507,21 @@ public class BookServiceImpl implements BookService {
         );
     }
 
+    /**
+     * 根据分类游标分页获取图书
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PagedResultDTO<BookListItemDTO> getBooksByCategoryCursor(
+            Long categoryId,
+            String sort,
+            String cursor,
+            Integer limit) {
+
+        validateId(categoryId);
+        return getBooksByCursor(null, categoryId, sort, cursor, limit);
+    }
+
     /**
      * 获取相关推荐书本
      */
@@ -138,7 +530,22 @@ public class BookServiceImpl implements BookService {
     public List<BookListItemDTO> getRelatedBooks(Long bookId) {
         validateId(bookId);
 
-        List<Map<String, Object>> relatedBooks = bookRepository.getRelatedBooks(bookId);
+        // 关联图就绪时直接在内存中取关联（含两跳扩展），不再查询book_relations
+        Optional<List<Long>> relatedIds = bookRelationGraph.related(bookId, RELATED_LIMIT);
+        if (relatedIds.isPresent() && !relatedIds.get().isEmpty()) {
+            return loadBookListItems(relatedIds.get());
+        }
+
+        List<Map<String, Object>> relatedBooks = relatedIds.isPresent()
+                ? new ArrayList<>() : bookRepository.getRelatedBooks(bookId);
+
+        // 没有关联记录时先取内存中的同作者图书（新书的同作者关联尚未写入关联图），最后才按分类查询
+        if (relatedBooks.isEmpty()) {
+            List<Long> sameAuthorIds = sameAuthorRelationBuilder.related(bookId, RELATED_LIMIT).orElse(List.of());
+            if (!sameAuthorIds.isEmpty()) {
+                return loadBookListItems(sameAuthorIds);
+            }
+        }
 
         if (relatedBooks.isEmpty()) {
             Map<String, Object> book = bookRepository.getBookById(bookId)
@@ -153,6 +560,19 @@ public class BookServiceImpl implements BookService {
         return convertToBookListItemList(relatedBooks);
     }
 
+    /**
+     * 列表总数：仅按分类筛选时读取分类统计（内存或category_stats），不执行COUNT查询
+     */
+    private Long countListing(BookListingQuery query) {
+        if (!StringUtils.hasText(query.getKeyword()) && query.getCategoryId() != null) {
+            Optional<Long> count = categoryStatsIndex.bookCount(query.getCategoryId());
+            if (count.isPresent()) {
+                return count.get();
+            }
+        }
+        return bookListingRepository.countBooks(query);
+    }
+
     /**
      * 获取图书详情（包含价格计算和相关推荐）
      */
@@ -171,6 +591,143 @@ public class BookServiceImpl implements BookService {
         return buildBookDetailDTO(book, priceResult, relatedBooks.getItems());
     }
 
+    /**
+     * 获取图书详情的完整响应体（JSON）
+     * 静态部分取自详情缓存，未命中时构建并序列化后写入缓存；库存每次按主键实时查询后拼接
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public byte[] getBookDetailJson(Long id) {
+        validateId(id);
+
+        byte[] head = bookDetailCache.get(id).orElse(null);
+        if (head == null) {
+            BookDetailDTO detail = getBookDetail(id);
+            head = serializeDetailHead(detail);
+            bookDetailCache.put(id, head, detail.getRelatedBooks().stream().map(BookListItemDTO::getId).toList());
+        }
+        int stock = bookRepository.getStockQuantity(id)
+                .orElseThrow(() -> new ApiError(404, "图书不存在: ID=" + id));
+        return BookDetailCache.render(head, stock);
+    }
+
+    /**
+     * 执行分面检索（关键词先经倒排索引转换为图书ID集合，再与分面位图求交）
+     */
+    private BookFacetResultDTO searchFacets(
+            BookFilterRequest filter,
+            String sort,
+            Integer page,
+            Integer limit,
+            boolean withCounts) {
+
+        validatePageParams(page, limit);
+        validateFilter(filter);
+        int offset = calculateOffset(page, limit);
+        BookSortOrder sortOrder = BookSortOrder.fromParam(Objects.requireNonNullElse(sort, DEFAULT_SORT));
+
+        long[] keywordBookIds = null;
+        if (StringUtils.hasText(filter.getKeyword())) {
+            long[] termMatches = bookSearchIndex.matchBookIds(filter.getKeyword()).orElse(new long[0]);
+            keywordBookIds = bookPinyinIndex.matchBookIds(filter.getKeyword())
+                    .map(pinyinMatches -> union(termMatches, pinyinMatches))
+                    .orElse(termMatches);
+        }
+        FacetHits hits = bookFacetIndex.search(filter, keywordBookIds, sortOrder, offset, limit, withCounts)
+                .orElseThrow(() -> new ApiError(503, "图书筛选索引正在加载，请稍后重试"));
+
+        List<BookListItemDTO> bookList = loadBookListItems(hits.getBookIds());
+        PagedResultDTO<BookListItemDTO> books = new PagedResultDTO<>(bookList, hits.getTotal(), page, limit);
+        return new BookFacetResultDTO(books, hits.getFacets());
+    }
+
+    /**
+     * 拼音检索：输入为拼音且有命中时，合并拼音命中与倒排索引命中，交给分面索引按分类过滤、排序分页
+     * @return 不是拼音输入、没有拼音命中或索引未就绪时返回empty
+     */
+    private Optional<SearchHits> searchPinyin(
+            String keyword,
+            Long categoryId,
+            BookSortOrder sortOrder,
+            int offset,
+            int limit) {
+
+        Optional<long[]> pinyinMatches = bookPinyinIndex.matchBookIds(keyword);
+        if (pinyinMatches.isEmpty() || pinyinMatches.get().length == 0) {
+            return Optional.empty();
+        }
+        long[] bookIds = union(pinyinMatches.get(), bookSearchIndex.matchBookIds(keyword).orElse(new long[0]));
+        BookFilterRequest filter = new BookFilterRequest();
+        filter.setCategoryId(categoryId);
+        return bookFacetIndex.search(filter, bookIds, sortOrder, offset, limit, false)
+                .map(hits -> new SearchHits(hits.getBookIds(), hits.getTotal(), null));
+    }
+
+    /**
+     * 合并两组图书ID（去重）
+     */
+    private long[] union(long[] first, long[] second) {
+        return LongStream.concat(LongStream.of(first), LongStream.of(second)).distinct().toArray();
+    }
+
+    /**
+     * 验证分面筛选参数
+     */
+    private void validateFilter(BookFilterRequest filter) {
+        if (filter.getPriceBand() != null && !BookFacetIndex.isValidPriceBand(filter.getPriceBand())) {
+            throw new ApiError(400, "无效的价格区间: " + filter.getPriceBand());
+        }
+        if (filter.getMinRating() != null && (filter.getMinRating() < 1 || filter.getMinRating() > 4)) {
+            throw new ApiError(400, "最低评分必须在1-4之间");
+        }
+    }
+
+    /**
+     * 构建列表查询条件（空白关键词视为无关键词）
+     */
+    private BookListingQuery buildListingQuery(String keyword, Long categoryId, BookSortOrder sortOrder) {
+        BookListingQuery query = new BookListingQuery();
+        query.setKeyword(StringUtils.hasText(keyword) ? keyword : null);
+        query.setCategoryId(categoryId);
+        query.setSort(sortOrder);
+        return query;
+    }
+
+    /**
+     * 按给定ID顺序批量加载图书列表项
+     * 优先从目录快照读取，快照中没有的图书再用一次主键IN查询补齐（已删除的图书会被跳过）
+     */
+    private List<BookListItemDTO> loadBookListItems(List<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, BookListItemDTO> itemsById = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        CatalogSnapshot snapshot = catalogSnapshotStore.current().orElse(CatalogSnapshot.EMPTY);
+        for (Long bookId : bookIds) {
+            int pos = snapshot.positionOf(bookId);
+            if (pos >= 0) {
+                itemsById.put(bookId, snapshot.toListItem(pos));
+            } else {
+                missing.add(bookId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Map<String, Object> book : bookRepository.findListItemsByIds(missing)) {
+                BookListItemDTO item = convertToBookListItem(book);
+                itemsById.put(item.getId(), item);
+            }
+        }
+        List<BookListItemDTO> items = new ArrayList<>(bookIds.size());
+        for (Long bookId : bookIds) {
+            BookListItemDTO item = itemsById.get(bookId);
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
     /**
      * 转换数据库结果列表为图书列表项DTO列表
      */
@@ -189,9 +746,9 @@ public class BookServiceImpl implements BookService {
         item.setTitle((String) bookMap.get("title"));
         item.setAuthor((String) bookMap.get("author"));
         item.setCoverImage((String) bookMap.get("cover_image"));
-        item.setPrice(parseBigDecimal(bookMap.get("selling_price")));
-        item.setOriginalPrice(parseBigDecimal(bookMap.get("original_price")));
-        item.setRating(parseBigDecimal(bookMap.get("rating")));
+        item.setPrice(RowValues.parseBigDecimal(bookMap.get("selling_price")));
+        item.setOriginalPrice(RowValues.parseBigDecimal(bookMap.get("original_price")));
+        item.setRating(RowValues.parseBigDecimal(bookMap.get("rating")));
         return item;
     }
 
@@ -199,9 +756,9 @@ public class BookServiceImpl implements BookService {
      * 计算图书最终售价、原价及折扣率
      */
     private PriceCalculationResult calculatePrice(Map<String, Object> book) {
-        BigDecimal sellingPrice = parseBigDecimal(book.get("selling_price"));
-        BigDecimal originalPrice = parseBigDecimal(book.get("original_price"));
-        BigDecimal basePrice = parseBigDecimal(book.get("price"));
+        BigDecimal sellingPrice = RowValues.parseBigDecimal(book.get("selling_price"));
+        BigDecimal originalPrice = RowValues.parseBigDecimal(book.get("original_price"));
+        BigDecimal basePrice = RowValues.parseBigDecimal(book.get("price"));
 
         BigDecimal price = sellingPrice != null ? sellingPrice :
                 (basePrice != null ? basePrice : BigDecimal.ZERO);
@@ -247,7 +804,7 @@ public class BookServiceImpl implements BookService {
         detail.setPrice(priceResult.getPrice());
         detail.setOriginalPrice(priceResult.getOriginalPrice());
         detail.setDiscount(priceResult.getDiscount());
-        detail.setRating(Objects.requireNonNullElse(parseBigDecimal(book.get("rating")), BigDecimal.ZERO));
+        detail.setRating(Objects.requireNonNullElse(RowValues.parseBigDecimal(book.get("rating")), BigDecimal.ZERO));
         detail.setReviews(book.get("review_count") != null ? ((Number) book.get("review_count")).intValue() : 0);
         detail.setDescription(Objects.requireNonNullElse((String) book.get("description"), DEFAULT_DESCRIPTION));
         detail.setCategory((String) book.get("category_name"));
@@ -258,6 +815,21 @@ public class BookServiceImpl implements BookService {
         return detail;
     }
 
+    /**
+     * 序列化详情响应的静态部分：去掉库存相关字段，并截掉结尾的"}}"以便拼接实时库存
+     */
+    private byte[] serializeDetailHead(BookDetailDTO detail) {
+        ObjectNode data = objectMapper.valueToTree(detail);
+        data.remove("stock");
+        data.remove("isAvailable");
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(new ApiResponse<>(true, DETAIL_SUCCESS_MESSAGE, data));
+            return Arrays.copyOf(body, body.length - 2);
+        } catch (JsonProcessingException e) {
+            throw new ApiError(500, "图书详情序列化失败: ID=" + detail.getId());
+        }
+    }
+
     /**
      * 计算分页偏移量（(页码-1)*每页条数）
      */
@@ -274,6 +846,15 @@ public class BookServiceImpl implements BookService {
         }
     }
 
+    /**
+     * 验证分类ID有效性
+     */
+    private void validateCategoryId(Long categoryId) {
+        if (categoryId == null || categoryId <= 0) {
+            throw new ApiError(400, "无效的分类ID: " + categoryId);
+        }
+    }
+
     /**
      * 验证分页参数有效性
      */
@@ -293,27 +874,4 @@ public class BookServiceImpl implements BookService {
         validateId(categoryId);
         validatePageParams(page, limit);
     }
-
-    /**
-     * 安全解析BigDecimal
-     */
-    private BigDecimal parseBigDecimal(Object value) {
-        if (value == null) {
-            return BigDecimal.ZERO;
-        }
-        if (value instanceof BigDecimal) {
-            return (BigDecimal) value;
-        }
-        if (value instanceof Number) {
-            return new BigDecimal(((Number) value).toString());
-        }
-        if (value instanceof String) {
-            try {
-                return new BigDecimal((String) value);
-            } catch (NumberFormatException e) {
-                return BigDecimal.ZERO;
-            }
-        }
-        return BigDecimal.ZERO;
-    }
 }
\ No newline at end of file
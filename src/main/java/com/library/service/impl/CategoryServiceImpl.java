@@ -1,88 +1,97 @@
 package com.library.service.impl;
 
+import com.library.category.CategorySnapshot;
+import com.library.category.CategorySnapshotStore;
 import com.library.exception.ApiError;
 import com.library.model.dto.CategoryDTO;
-import com.library.model.entity.Category;
-import com.library.repository.CategoryRepository;
+import com.library.model.dto.response.SerializedResponse;
 import com.library.service.CategoryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
+/**
+ * 分类服务：全部从内存中的分类快照读取（按ID、slug哈希查找，树形结构与响应体预先构建），不访问数据库
+ */
 @Service
 @RequiredArgsConstructor
 public class CategoryServiceImpl implements CategoryService {
 
-    private final CategoryRepository categoryRepository;
+    private static final String NOT_FOUND_MESSAGE = "分类不存在或已停用";
+
+    private final CategorySnapshotStore categorySnapshotStore;
 
     /**
      * 获取所有激活的分类
      */
     @Override
-    @Transactional(readOnly = true)
     public List<CategoryDTO> getAllActiveCategories() {
-        // 修复：接收类型改为List<Category>，与Repository返回类型匹配
-        List<Category> categories = categoryRepository.findAllActive();
-        return categories.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return categorySnapshotStore.current().getCategories();
     }
 
     /**
      * 根据slug获取分类
      */
     @Override
-    @Transactional(readOnly = true)
     public Optional<CategoryDTO> getCategoryBySlug(String slug) {
-        if (slug == null || slug.trim().isEmpty()) {
-            throw new ApiError(400, "分类标识不能为空");
-        }
-        // 修复：调用正确的Repository方法findBySlugAndActive
-        return categoryRepository.findBySlugAndActive(slug)
-                .map(this::convertToDTO);
+        validateSlug(slug);
+        return Optional.ofNullable(categorySnapshotStore.current().findBySlug(slug));
     }
 
     /**
      * 根据ID获取激活的分类
      */
     @Override
-    @Transactional(readOnly = true)
     public Optional<CategoryDTO> getCategoryById(Long id) {
         validateId(id);
-        // 修复：调用正确的Repository方法findByIdAndActive
-        return categoryRepository.findByIdAndActive(id)
-                .map(this::convertToDTO);
+        return Optional.ofNullable(categorySnapshotStore.current().findById(id));
     }
 
     /**
-     * 获取分类树形结构（包含父子关系）
+     * 获取分类树形结构：顶级分类及其children嵌套的子分类
      */
     @Override
-    @Transactional(readOnly = true)
     public List<CategoryDTO> getCategoryTree() {
-        // 修复：接收类型改为List<Category>，调用正确的Repository方法
-        List<Category> categoryTree = categoryRepository.findAllActiveForTree();
-        return categoryTree.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return categorySnapshotStore.current().getTree();
     }
 
-    /**
-     * 转换实体到DTO（替换原有的Map转换方法）
-     */
-    private CategoryDTO convertToDTO(Category category) {
-        CategoryDTO dto = new CategoryDTO();
-        dto.setId(category.getId());
-        dto.setName(category.getName());
-        dto.setSlug(category.getSlug());
-        dto.setDescription(category.getDescription());
-        dto.setParentId(category.getParentId());
-        // 如需父分类名称，可在此处通过额外查询补充
-        return dto;
+    @Override
+    public SerializedResponse getCategoryListResponse() {
+        return categorySnapshotStore.current().getListResponse();
+    }
+
+    @Override
+    public SerializedResponse getCategoryTreeResponse() {
+        return categorySnapshotStore.current().getTreeResponse();
+    }
+
+    @Override
+    public SerializedResponse getCategoryResponseBySlug(String slug) {
+        validateSlug(slug);
+        CategorySnapshot snapshot = categorySnapshotStore.current();
+        CategoryDTO category = snapshot.findBySlug(slug);
+        if (category == null) {
+            throw new ApiError(404, NOT_FOUND_MESSAGE);
+        }
+        return snapshot.detailResponse(category.getId());
+    }
+
+    @Override
+    public SerializedResponse getCategoryResponseById(Long id) {
+        validateId(id);
+        SerializedResponse response = categorySnapshotStore.current().detailResponse(id);
+        if (response == null) {
+            throw new ApiError(404, NOT_FOUND_MESSAGE);
+        }
+        return response;
+    }
+
+    private void validateSlug(String slug) {
+        if (slug == null || slug.trim().isEmpty()) {
+            throw new ApiError(400, "分类标识不能为空");
+        }
     }
 
     /**
@@ -93,4 +102,4 @@ public class CategoryServiceImpl implements CategoryService {
             throw new ApiError(400, "无效的分类ID: " + id);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.library.service.impl;
 
+import com.library.catalog.RowValues;
 import com.library.model.dto.PagedResultDTO;
 import com.library.model.dto.WishlistItemDTO;
 import com.library.model.entity.Wishlist;
@@ -98,7 +99,7 @@ public class WishlistServiceImpl implements WishlistService {
         dto.setTitle((String) item[1]); // 图书标题
         dto.setAuthor((String) item[2]); // 作者
         dto.setCoverImage((String) item[3]); // 封面图
-        dto.setPrice(parseBigDecimal(item[4])); // 价格
+        dto.setPrice(RowValues.parseBigDecimal(item[4])); // 价格
         dto.setAddedAt(((LocalDateTime) item[5]).toString()); // 收藏时间
         return dto;
     }
@@ -115,23 +116,10 @@ public class WishlistServiceImpl implements WishlistService {
                     dto.setTitle((String) bookMap.get("title"));
                     dto.setAuthor((String) bookMap.get("author"));
                     dto.setCoverImage((String) bookMap.get("cover_image"));
-                    dto.setPrice(parseBigDecimal(bookMap.get("selling_price")));
+                    dto.setPrice(RowValues.parseBigDecimal(bookMap.get("selling_price")));
                     dto.setAddedAt(wishlist.getCreatedAt().toString());
                     return dto;
                 })
                 .orElseThrow(() -> new ResourceNotFoundException("图书信息不存在"));
     }
-
-    /**
-     * 安全解析BigDecimal
-     */
-    private BigDecimal parseBigDecimal(Object value) {
-        if (value == null) {
-            return BigDecimal.ZERO;
-        }
-        if (value instanceof Number) {
-            return new BigDecimal(value.toString());
-        }
-        return BigDecimal.ZERO;
-    }
 }
\ No newline at end of file
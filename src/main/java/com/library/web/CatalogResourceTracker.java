@@ -0,0 +1,30 @@
+package com.library.web;
+
+import com.library.catalog.CatalogBook;
+import com.library.catalog.CatalogListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 图书目录每次全量加载或推送增量变更时递增图书资源版本
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogResourceTracker implements CatalogListener {
+
+    private final ResourceVersions resourceVersions;
+
+    @Override
+    public void onCatalogReload(List<CatalogBook> books) {
+        resourceVersions.bump(ResourceVersions.BOOKS);
+    }
+
+    @Override
+    public void onBooksChanged(List<CatalogBook> books) {
+        if (!books.isEmpty()) {
+            resourceVersions.bump(ResourceVersions.BOOKS);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.library.web;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 条件GET：标注在只依赖公共数据（与当前用户无关）的查询接口上
+ * 拦截器按所依赖资源的版本号生成ETag、Last-Modified，请求头If-None-Match/If-Modified-Since匹配时
+ * 在调用接口方法之前直接返回304；2xx响应按maxAge写出Cache-Control，错误响应为no-store
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface ConditionalGet {
+
+    /**
+     * 响应所依赖的资源（见ResourceVersions中的常量）；为空时只写出Cache-Control，不做条件判断
+     */
+    String[] resources() default {};
+
+    /**
+     * 浏览器与代理可直接复用响应的秒数，支持${...}占位符；为0时每次使用前都需重新验证
+     */
+    String maxAge() default "0";
+}
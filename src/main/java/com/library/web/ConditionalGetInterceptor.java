@@ -0,0 +1,120 @@
+package com.library.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.env.Environment;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 条件GET拦截器
+ * 对标注@ConditionalGet的接口：由资源版本生成ETag、取最后修改时间，请求未变化时直接返回304（不调用接口方法、不访问数据库）；
+ * 否则把校验值和Cache-Control存入请求属性，由ConditionalGetResponseAdvice只在2xx响应上写出，错误响应不可缓存。
+ * 单一资源登记了内容摘要（分类、轮播图）时使用强ETag，否则由实例标识和各资源版本号拼出弱ETag。
+ * 任一资源尚未加载时不生成校验值
+ */
+@Component
+@RequiredArgsConstructor
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    static final String VALIDATORS_ATTRIBUTE = ConditionalGetInterceptor.class.getName() + ".validators";
+
+    private final ResourceVersions resourceVersions;
+    private final Environment environment;
+
+    // 接口方法 -> 解析后的Cache-Control
+    private final Map<HandlerMethod, String> cacheControls = new ConcurrentHashMap<>();
+
+    /**
+     * 本次请求的Cache-Control及校验值（etag为null表示不做条件判断）
+     */
+    static final class Validators {
+        final String cacheControl;
+        final String etag;
+        final long lastModified;
+
+        Validators(String cacheControl, String etag, long lastModified) {
+            this.cacheControl = cacheControl;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        void writeTo(HttpHeaders headers) {
+            headers.setCacheControl(cacheControl);
+            if (etag != null) {
+                headers.setETag(etag);
+                headers.setLastModified(lastModified);
+            }
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        ConditionalGet conditionalGet = handlerMethod.getMethodAnnotation(ConditionalGet.class);
+        if (conditionalGet == null) {
+            conditionalGet = handlerMethod.getBeanType().getAnnotation(ConditionalGet.class);
+        }
+        if (conditionalGet == null) {
+            return true;
+        }
+        ConditionalGet annotation = conditionalGet;
+        String cacheControl = cacheControls.computeIfAbsent(handlerMethod, key -> cacheControl(annotation));
+        Validators validators = validators(annotation.resources(), cacheControl);
+
+        // 只判断请求头，不向响应写入任何内容；未变化时按304写出校验值
+        if (validators.etag != null
+                && new ServletWebRequest(request).checkNotModified(validators.etag, validators.lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            HttpHeaders headers = new HttpHeaders();
+            validators.writeTo(headers);
+            headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+            return false;
+        }
+        request.setAttribute(VALIDATORS_ATTRIBUTE, validators);
+        return true;
+    }
+
+    private Validators validators(String[] resources, String cacheControl) {
+        if (resources.length == 0) {
+            return new Validators(cacheControl, null, 0L);
+        }
+        if (resources.length == 1) {
+            ResourceVersions.Version version = resourceVersions.current(resources[0]);
+            if (version != null && version.getDigest() != null) {
+                return new Validators(cacheControl, '"' + version.getDigest() + '"', version.getLastModified());
+            }
+        }
+        StringBuilder etag = new StringBuilder("W/\"").append(resourceVersions.getInstanceTag());
+        long lastModified = 0L;
+        for (String resource : resources) {
+            ResourceVersions.Version version = resourceVersions.current(resource);
+            if (version == null) {
+                return new Validators(cacheControl, null, 0L);
+            }
+            etag.append('-').append(version.getNumber());
+            lastModified = Math.max(lastModified, version.getLastModified());
+        }
+        etag.append('"');
+        return new Validators(cacheControl, etag.toString(), lastModified);
+    }
+
+    private String cacheControl(ConditionalGet annotation) {
+        long maxAge = Long.parseLong(environment.resolveRequiredPlaceholders(annotation.maxAge()).trim());
+        CacheControl cacheControl = maxAge > 0
+                ? CacheControl.maxAge(maxAge, TimeUnit.SECONDS).cachePublic()
+                : CacheControl.noCache().cachePublic();
+        return cacheControl.getHeaderValue();
+    }
+}
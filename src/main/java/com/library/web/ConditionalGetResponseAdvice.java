@@ -0,0 +1,48 @@
+package com.library.web;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * 条件GET响应头
+ * 写出响应体之前（此时状态码已确定）：2xx响应写出拦截器算好的Cache-Control、ETag、Last-Modified；
+ * 参数校验失败、资源不存在、索引加载中等错误响应一律no-store，避免被浏览器或代理缓存
+ */
+@ControllerAdvice
+public class ConditionalGetResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)
+                || !(response instanceof ServletServerHttpResponse servletResponse)) {
+            return body;
+        }
+        Object validators = servletRequest.getServletRequest()
+                .getAttribute(ConditionalGetInterceptor.VALIDATORS_ATTRIBUTE);
+        if (!(validators instanceof ConditionalGetInterceptor.Validators)) {
+            return body;
+        }
+        int status = servletResponse.getServletResponse().getStatus();
+        if (status >= 200 && status < 300) {
+            ((ConditionalGetInterceptor.Validators) validators).writeTo(response.getHeaders());
+        } else {
+            response.getHeaders().setCacheControl(CacheControl.noStore());
+        }
+        return body;
+    }
+}
@@ -0,0 +1,90 @@
+package com.library.web;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 资源版本号
+ * 每种资源（图书目录、输入联想索引、分类、轮播图）一个单调递增的版本号，由各内存快照在检测到数据变化
+ * （updated_at水位推进、变更标记变化等）并重建后递增。
+ * 图书目录、输入联想只有计数版本，最后修改时间取变化被观察到的时间；版本号只在本实例内有意义，
+ * 由其拼出的ETag附带实例标识，避免多实例或重启后版本号相同而内容不同。
+ * 分类、轮播图的响应体在快照中预先序列化，重建时登记内容摘要（强ETag）和由updated_at得出的最后修改时间
+ */
+@Component
+public class ResourceVersions {
+
+    public static final String BOOKS = "books";
+    public static final String SUGGEST = "suggest";
+    public static final String CATEGORIES = "categories";
+    public static final String CAROUSELS = "carousels";
+
+    private final String instanceTag = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final ConcurrentHashMap<String, Version> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 版本号、内容摘要及最后修改时间（毫秒，截断到秒，与HTTP日期精度一致）
+     */
+    public static final class Version {
+        final long number;
+        final String digest;
+        final long lastModified;
+
+        Version(long number, String digest, long lastModified) {
+            this.number = number;
+            this.digest = digest;
+            this.lastModified = lastModified;
+        }
+
+        public long getNumber() {
+            return number;
+        }
+
+        /**
+         * 内容摘要（不含引号）；只有计数版本的资源为null
+         */
+        public String getDigest() {
+            return digest;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    /**
+     * 资源数据已变化
+     */
+    public void bump(String resource) {
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        versions.compute(resource, (key, current) -> current == null
+                ? new Version(1L, null, now)
+                : new Version(current.number + 1, null, Math.max(now, current.lastModified)));
+    }
+
+    /**
+     * 资源快照已重建：登记内容摘要和最后修改时间，摘要不变时保持原版本
+     */
+    public void update(String resource, String digest, long lastModified) {
+        long truncated = lastModified / 1000 * 1000;
+        versions.compute(resource, (key, current) -> {
+            if (current == null) {
+                return new Version(1L, digest, truncated);
+            }
+            return digest.equals(current.digest) ? current : new Version(current.number + 1, digest, truncated);
+        });
+    }
+
+    /**
+     * 当前版本；资源尚未加载时返回null
+     */
+    public Version current(String resource) {
+        return versions.get(resource);
+    }
+
+    public String getInstanceTag() {
+        return instanceTag;
+    }
+}
@@ -0,0 +1,85 @@
+package com.library.catalog;
+
+import com.library.exception.ApiError;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookCursorTest {
+
+    @Test
+    void roundTripKeepsKeyAndIdForEverySort() {
+        LocalDateTime publishDate = LocalDateTime.of(2021, 3, 4, 5, 6, 7, 123_456_000);
+        BigDecimal price = new BigDecimal("39.90");
+
+        for (BookSortOrder sort : BookSortOrder.values()) {
+            BookCursor cursor = BookCursor.of(sort, 42L, 17, publishDate, price);
+            BookCursor decoded = BookCursor.decode(cursor.encode(), sort);
+
+            assertThat(decoded.getSort()).isEqualTo(sort);
+            assertThat(decoded.getId()).isEqualTo(42L);
+            assertThat(decoded.getKey()).isEqualTo(cursor.getKey());
+        }
+
+        assertThat(BookCursor.decode(BookCursor.of(BookSortOrder.RECOMMENDED, 1L, 17, null, null).encode(),
+                BookSortOrder.RECOMMENDED).getPopularity()).isEqualTo(17);
+        assertThat(BookCursor.decode(BookCursor.of(BookSortOrder.NEWEST, 1L, null, publishDate, null).encode(),
+                BookSortOrder.NEWEST).getPublishDate()).isEqualTo(publishDate);
+        assertThat(BookCursor.decode(BookCursor.of(BookSortOrder.PRICE_DESC, 1L, null, null, price).encode(),
+                BookSortOrder.PRICE_DESC).getSellingPrice()).isEqualByComparingTo(price);
+    }
+
+    @Test
+    void publishDatesBeforeEpochSurviveRoundTrip() {
+        LocalDateTime publishDate = LocalDateTime.of(1965, 12, 31, 23, 59, 59, 999_999_000);
+
+        BookCursor decoded = BookCursor.decode(
+                BookCursor.of(BookSortOrder.NEWEST, 7L, null, publishDate, null).encode(), BookSortOrder.NEWEST);
+
+        assertThat(decoded.getPublishDate()).isEqualTo(publishDate);
+    }
+
+    @Test
+    void nullKeyIsOnlyAcceptedForNewest() {
+        BookCursor cursor = BookCursor.of(BookSortOrder.NEWEST, 9L, null, null, null);
+        BookCursor decoded = BookCursor.decode(cursor.encode(), BookSortOrder.NEWEST);
+
+        assertThat(decoded.getKey()).isNull();
+        assertThat(decoded.getPublishDate()).isNull();
+        assertThat(decoded.getId()).isEqualTo(9L);
+
+        assertThatThrownBy(() -> BookCursor.decode(encodeRaw("price_asc:n:9"), BookSortOrder.PRICE_ASC))
+                .isInstanceOf(ApiError.class)
+                .hasFieldOrPropertyWithValue("status", 400);
+    }
+
+    @Test
+    void rejectsCursorOfAnotherSort() {
+        String cursor = BookCursor.of(BookSortOrder.PRICE_ASC, 3L, null, null, new BigDecimal("1.00")).encode();
+
+        assertThatThrownBy(() -> BookCursor.decode(cursor, BookSortOrder.PRICE_DESC))
+                .isInstanceOf(ApiError.class)
+                .hasMessage("分页游标与排序方式不匹配");
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        for (String cursor : new String[]{"!!!", encodeRaw("newest:1"), encodeRaw("newest:x:1"),
+                encodeRaw("newest:1:y"), encodeRaw("bogus:1:1")}) {
+            assertThatThrownBy(() -> BookCursor.decode(cursor, BookSortOrder.NEWEST))
+                    .as(cursor)
+                    .isInstanceOf(ApiError.class)
+                    .hasFieldOrPropertyWithValue("status", 400);
+        }
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
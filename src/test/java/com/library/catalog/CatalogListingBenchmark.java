@@ -0,0 +1,170 @@
+package com.library.catalog;
+
+import com.library.model.dto.BookListItemDTO;
+import com.library.repository.BookListingQuery;
+import com.library.repository.BookListingRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图书列表读取基准：内存目录快照 vs 原生SQL（BookQueryBuilder生成的语句）
+ * 两边使用同一份随机数据：SQL侧为H2内存库（MySQL兼容模式），列表用到的列、排序索引和分类闭包同benchmark/find_books_plans.sql；
+ * H2与MySQL的执行计划不同，SQL侧的绝对数值只作参考，主要用来对比快照取页与“查询+计数”往返的量级差距。
+ * 不以Test结尾，surefire不会执行；需要时在测试类路径下运行main方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogListingBenchmark {
+
+    private static final int BOOKS = 20_000;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"recommended", "newest", "price_asc"})
+    public String sort;
+
+    @Param({"0", "1000"})
+    public int offset;
+
+    @Param({"all", "3"})
+    public String category;
+
+    private SingleConnectionDataSource dataSource;
+    private BookListingRepository repository;
+    private CatalogSnapshot snapshot;
+    private BookListingQuery query;
+    private BookSortOrder sortOrder;
+    private Long categoryId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:catalog_bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "", true);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        createSchema(jdbc);
+        snapshot = CatalogSnapshot.build(populate(jdbc), 1L);
+        repository = new BookListingRepository(new NamedParameterJdbcTemplate(dataSource));
+
+        sortOrder = BookSortOrder.fromParam(sort);
+        categoryId = "all".equals(category) ? null : Long.valueOf(category);
+        query = new BookListingQuery();
+        query.setCategoryId(categoryId);
+        query.setSort(sortOrder);
+        query.setOffset(offset);
+        query.setLimit(PAGE_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public void snapshotPage(Blackhole blackhole) {
+        List<BookListItemDTO> page = snapshot.page(categoryId, sortOrder, offset, PAGE_SIZE);
+        blackhole.consume(page);
+        blackhole.consume(snapshot.count(categoryId));
+    }
+
+    @Benchmark
+    public void nativeQueryPage(Blackhole blackhole) {
+        List<Map<String, Object>> rows = repository.findBooks(query);
+        blackhole.consume(rows);
+        blackhole.consume(repository.countBooks(query));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CatalogListingBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static void createSchema(JdbcTemplate jdbc) {
+        jdbc.execute("DROP ALL OBJECTS");
+        jdbc.execute("CREATE TABLE books (id BIGINT PRIMARY KEY, title VARCHAR(200) NOT NULL, " +
+                "author VARCHAR(100) NOT NULL, cover_image VARCHAR(255), selling_price DECIMAL(10,2) NOT NULL, " +
+                "original_price DECIMAL(10,2), rating DECIMAL(3,2), popularity INT NOT NULL DEFAULT 0, " +
+                "publish_date DATETIME(6))");
+        jdbc.execute("CREATE INDEX idx_books_popularity_id ON books (popularity DESC, id)");
+        jdbc.execute("CREATE INDEX idx_books_publish_date_id ON books (publish_date DESC, id)");
+        jdbc.execute("CREATE INDEX idx_books_selling_price_id ON books (selling_price, id)");
+        jdbc.execute("CREATE TABLE book_categories (book_id BIGINT NOT NULL, category_id BIGINT NOT NULL, " +
+                "PRIMARY KEY (book_id, category_id))");
+        jdbc.execute("CREATE INDEX idx_book_categories_category ON book_categories (category_id, book_id)");
+        jdbc.execute("CREATE TABLE category_closure (ancestor_id BIGINT NOT NULL, descendant_id BIGINT NOT NULL, " +
+                "depth INT NOT NULL, PRIMARY KEY (ancestor_id, descendant_id))");
+        jdbc.execute("CREATE INDEX idx_category_closure_descendant ON category_closure (descendant_id)");
+        // 与find_books_plans.sql相同的分类树：1..10为顶级分类，11..50挂在(1 + n % 10)下
+        for (long id = 1; id <= 50; id++) {
+            jdbc.update("INSERT INTO category_closure VALUES (?, ?, 0)", id, id);
+            if (id > 10) {
+                jdbc.update("INSERT INTO category_closure VALUES (?, ?, 1)", parent(id), id);
+            }
+        }
+    }
+
+    /**
+     * 写入随机图书并返回对应的目录快照项（分类含祖先分类，升序）
+     */
+    private static List<CatalogBook> populate(JdbcTemplate jdbc) {
+        Random random = new Random(42);
+        List<CatalogBook> books = new ArrayList<>(BOOKS);
+        List<Object[]> bookRows = new ArrayList<>(BOOKS);
+        List<Object[]> categoryRows = new ArrayList<>(BOOKS);
+        LocalDateTime epoch = LocalDateTime.of(2000, 1, 1, 0, 0);
+        for (long id = 1; id <= BOOKS; id++) {
+            long leaf = 11 + random.nextInt(40);
+            CatalogBook book = new CatalogBook();
+            book.setId(id);
+            book.setTitle("Book " + id);
+            book.setAuthor("Author " + random.nextInt(2000));
+            book.setCoverImage("/covers/" + id + ".jpg");
+            book.setSellingPrice(BigDecimal.valueOf(100 + random.nextInt(20_000), 2));
+            book.setOriginalPrice(book.getSellingPrice().add(BigDecimal.TEN));
+            book.setRating(BigDecimal.valueOf(random.nextInt(501), 2));
+            book.setPopularity(random.nextInt(100_000));
+            book.setPublishDate(random.nextInt(20) == 0 ? null : epoch.plusMinutes(random.nextInt(10_000_000)));
+            book.setCategoryIds(new long[]{parent(leaf), leaf});
+            books.add(book);
+            bookRows.add(new Object[]{id, book.getTitle(), book.getAuthor(), book.getCoverImage(),
+                    book.getSellingPrice(), book.getOriginalPrice(), book.getRating(), book.getPopularity(),
+                    book.getPublishDate()});
+            categoryRows.add(new Object[]{id, leaf});
+        }
+        jdbc.batchUpdate("INSERT INTO books VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", bookRows);
+        jdbc.batchUpdate("INSERT INTO book_categories VALUES (?, ?)", categoryRows);
+        jdbc.execute("ANALYZE");
+        return books;
+    }
+
+    private static long parent(long categoryId) {
+        return 1 + categoryId % 10;
+    }
+}
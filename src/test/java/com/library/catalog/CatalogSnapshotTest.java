@@ -0,0 +1,214 @@
+package com.library.catalog;
+
+import com.library.model.dto.BookListItemDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogSnapshotTest {
+
+    private static final Long[] VIEWS = {null, 1L, 2L, 3L};
+
+    @Test
+    void pagesFollowSortOrderWithIdAsTieBreaker() {
+        Random random = new Random(7);
+        List<CatalogBook> books = new ArrayList<>();
+        for (long id = 1; id <= 300; id++) {
+            books.add(randomBook(id, random));
+        }
+        CatalogSnapshot snapshot = CatalogSnapshot.build(books, 1L);
+
+        for (BookSortOrder sort : BookSortOrder.values()) {
+            for (Long categoryId : VIEWS) {
+                List<Long> expected = books.stream()
+                        .filter(book -> categoryId == null || contains(book.getCategoryIds(), categoryId))
+                        .sorted(order(sort))
+                        .map(CatalogBook::getId)
+                        .collect(Collectors.toList());
+                assertThat(ids(snapshot.page(categoryId, sort, 0, Integer.MAX_VALUE)))
+                        .as("%s / %s", sort, categoryId)
+                        .isEqualTo(expected);
+                assertThat(snapshot.count(categoryId)).isEqualTo(expected.size());
+            }
+        }
+    }
+
+    @Test
+    void pageIsASliceOfTheFullOrder() {
+        Random random = new Random(3);
+        List<CatalogBook> books = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            books.add(randomBook(id, random));
+        }
+        CatalogSnapshot snapshot = CatalogSnapshot.build(books, 1L);
+        List<Long> all = ids(snapshot.page(null, BookSortOrder.NEWEST, 0, 50));
+
+        assertThat(ids(snapshot.page(null, BookSortOrder.NEWEST, 20, 10))).isEqualTo(all.subList(20, 30));
+        assertThat(snapshot.page(null, BookSortOrder.NEWEST, 50, 10)).isEmpty();
+        assertThat(snapshot.page(99L, BookSortOrder.NEWEST, 0, 10)).isEmpty();
+    }
+
+    @Test
+    void patchMatchesFullRebuild() {
+        Random random = new Random(11);
+        Map<Long, CatalogBook> current = new TreeMap<>();
+        for (long id = 2; id <= 400; id += 2) {
+            current.put(id, randomBook(id, random));
+        }
+        CatalogSnapshot snapshot = CatalogSnapshot.build(new ArrayList<>(current.values()), 1L);
+
+        for (int round = 0; round < 500; round++) {
+            List<CatalogBook> changed = new ArrayList<>();
+            int batch = random.nextInt(6);
+            for (int i = 0; i < batch; i++) {
+                // 既有更新，也有插在中间和末尾的新书
+                long id = random.nextInt(4) == 0 ? 1 + random.nextInt(600) : 2 * (1 + random.nextInt(200));
+                CatalogBook book = randomBook(id, random);
+                current.put(id, book);
+                changed.add(book);
+            }
+            snapshot = snapshot.patch(changed, round + 2L);
+            if (round % 50 == 0) {
+                assertSameListings(snapshot, CatalogSnapshot.build(new ArrayList<>(current.values()), 0L));
+            }
+        }
+        assertSameListings(snapshot, CatalogSnapshot.build(new ArrayList<>(current.values()), 0L));
+    }
+
+    @Test
+    void patchLeavesPreviousSnapshotUntouched() {
+        Random random = new Random(5);
+        List<CatalogBook> books = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            books.add(randomBook(id, random));
+        }
+        CatalogSnapshot original = CatalogSnapshot.build(books, 1L);
+        String before = render(original);
+
+        CatalogSnapshot next = original;
+        for (int round = 0; round < 200; round++) {
+            long id = 1 + random.nextInt(150);
+            next = next.patch(List.of(randomBook(id, random)), round + 2L);
+        }
+
+        assertThat(render(original)).isEqualTo(before);
+        assertThat(original.size()).isEqualTo(100);
+        assertThat(original.positionOf(140L)).isEqualTo(-1);
+        assertThat(next.size()).isGreaterThan(100);
+    }
+
+    @Test
+    void renamedTitlesAreServedAfterStringTableCompaction() {
+        List<CatalogBook> books = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            books.add(book(id, "title " + id, 10, "10.00", null, 1L));
+        }
+        CatalogSnapshot snapshot = CatalogSnapshot.build(books, 1L);
+        // 反复改名，累积的无用字符串远超压缩阈值
+        for (int round = 0; round < 3000; round++) {
+            long id = 1 + round % 10;
+            snapshot = snapshot.patch(List.of(book(id, "renamed " + round, 10, "10.00", null, 1L)), round + 2L);
+        }
+
+        BookListItemDTO item = snapshot.toListItem(snapshot.positionOf(10L));
+        assertThat(item.getTitle()).isEqualTo("renamed 2999");
+        assertThat(snapshot.toListItem(snapshot.positionOf(1L)).getTitle()).isEqualTo("renamed 2990");
+    }
+
+    @Test
+    void categoryMembershipFollowsPatches() {
+        CatalogSnapshot snapshot = CatalogSnapshot.build(List.of(
+                book(1L, "a", 5, "1.00", null, 1L),
+                book(2L, "b", 6, "2.00", null, 1L, 2L)), 1L);
+
+        snapshot = snapshot.patch(List.of(book(2L, "b", 6, "2.00", null, 1L)), 2L);
+
+        assertThat(snapshot.count(2L)).isZero();
+        assertThat(snapshot.inCategory(snapshot.positionOf(2L), 2L)).isFalse();
+        assertThat(ids(snapshot.page(1L, BookSortOrder.RECOMMENDED, 0, 10))).containsExactly(2L, 1L);
+        assertThat(snapshot.positionOf(3L)).isEqualTo(-1);
+    }
+
+    private static void assertSameListings(CatalogSnapshot actual, CatalogSnapshot expected) {
+        assertThat(actual.size()).isEqualTo(expected.size());
+        assertThat(render(actual)).isEqualTo(render(expected));
+    }
+
+    private static String render(CatalogSnapshot snapshot) {
+        StringBuilder sb = new StringBuilder();
+        for (BookSortOrder sort : BookSortOrder.values()) {
+            for (Long categoryId : VIEWS) {
+                sb.append(sort).append('/').append(categoryId).append(':');
+                for (BookListItemDTO item : snapshot.page(categoryId, sort, 0, Integer.MAX_VALUE)) {
+                    sb.append(item.getId()).append('|').append(item.getTitle()).append('|')
+                            .append(item.getAuthor()).append('|').append(item.getPrice()).append(',');
+                }
+                sb.append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static Comparator<CatalogBook> order(BookSortOrder sort) {
+        Comparator<CatalogBook> primary;
+        switch (sort) {
+            case NEWEST:
+                primary = Comparator.comparing(CatalogBook::getPublishDate,
+                        Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder())).reversed();
+                break;
+            case PRICE_ASC:
+                primary = Comparator.comparing(CatalogBook::getSellingPrice);
+                break;
+            case PRICE_DESC:
+                primary = Comparator.comparing(CatalogBook::getSellingPrice).reversed();
+                break;
+            default:
+                primary = Comparator.comparing(CatalogBook::getPopularity).reversed();
+        }
+        return primary.thenComparing(CatalogBook::getId);
+    }
+
+    private static CatalogBook randomBook(long id, Random random) {
+        LocalDateTime publishDate = random.nextInt(5) == 0 ? null
+                : LocalDateTime.of(2000, 1, 1, 0, 0).plusDays(random.nextInt(40));
+        long[] categories = random.nextBoolean() ? new long[]{1L} : new long[]{1L, 2L + random.nextInt(2)};
+        return book(id, "title " + random.nextInt(80), random.nextInt(20),
+                BigDecimal.valueOf(random.nextInt(3000), 2).toPlainString(), publishDate, categories);
+    }
+
+    private static CatalogBook book(long id, String title, int popularity, String price,
+                                    LocalDateTime publishDate, long... categoryIds) {
+        CatalogBook book = new CatalogBook();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor("author " + id % 7);
+        book.setPopularity(popularity);
+        book.setSellingPrice(new BigDecimal(price));
+        book.setPublishDate(publishDate);
+        book.setCategoryIds(categoryIds);
+        return book;
+    }
+
+    private static boolean contains(long[] values, long value) {
+        for (long v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Long> ids(List<BookListItemDTO> items) {
+        return items.stream().map(BookListItemDTO::getId).collect(Collectors.toList());
+    }
+}
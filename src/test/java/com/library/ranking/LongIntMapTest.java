@@ -0,0 +1,74 @@
+package com.library.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongIntMapTest {
+
+    @Test
+    void randomAddsAndRemovalsMatchHashMap() {
+        Random random = new Random(4);
+        LongIntMap map = new LongIntMap();
+        Map<Long, Integer> expected = new HashMap<>();
+
+        for (int step = 0; step < 200_000; step++) {
+            // 键空间小且频繁归零，探测链上的删除与回移会反复发生
+            long key = random.nextInt(300) * 1_000_003L;
+            int delta = random.nextInt(3) == 0 ? -expected.getOrDefault(key, 0) : random.nextInt(5) - 2;
+
+            int value = map.add(key, delta);
+            expected.merge(key, delta, Integer::sum);
+            expected.remove(key, 0);
+
+            assertThat(value).isEqualTo(expected.getOrDefault(key, 0));
+            if (step % 1000 == 0) {
+                assertSameContents(map, expected);
+            }
+        }
+        assertSameContents(map, expected);
+    }
+
+    @Test
+    void removingHeadOfProbeChainKeepsFollowersReachable() {
+        LongIntMap map = new LongIntMap();
+        for (long key = 1; key <= 12; key++) {
+            map.add(key, 1);
+        }
+        for (long key = 1; key <= 12; key += 2) {
+            map.add(key, -1);
+        }
+
+        for (long key = 1; key <= 12; key++) {
+            assertThat(map.get(key)).as("key %d", key).isEqualTo(key % 2 == 0 ? 1 : 0);
+        }
+        assertThat(map.size()).isEqualTo(6);
+    }
+
+    @Test
+    void clearEmptiesTheMap() {
+        LongIntMap map = new LongIntMap();
+        for (long key = 0; key < 100; key++) {
+            map.add(key, 3);
+        }
+        map.clear();
+
+        assertThat(map.size()).isZero();
+        assertThat(map.get(5L)).isZero();
+        assertThat(map.add(5L, 2)).isEqualTo(2);
+    }
+
+    private static void assertSameContents(LongIntMap map, Map<Long, Integer> expected) {
+        Map<Long, Integer> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertThat(actual).isEqualTo(expected);
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertThat(map.get(entry.getKey())).isEqualTo(entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.library.ranking;
+
+import com.library.catalog.CatalogBook;
+import com.library.catalog.CatalogSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrendingCountersTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long START = 1_000_000L * MINUTE + 30_000L; // 分钟中间，检验取整
+
+    private final long[] now = {START};
+    private TrendingCounters counters;
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        // 刷新间隔为0：每次查询都重新计算榜单
+        counters = new TrendingCounters(0L, 50, 16, () -> now[0]);
+        snapshot = CatalogSnapshot.build(List.of(book(1L, 10L), book(2L, 10L), book(3L, 20L)), 1L);
+    }
+
+    @Test
+    void salesLeaveHourWindowAfterSixtyMinutesAndDayWindowAfterOneDay() {
+        counters.record(1L, 2, now[0]);
+
+        now[0] = START + 59 * MINUTE;
+        assertThat(sales(TrendingWindow.HOUR, null)).containsExactly(1L, 2);
+
+        now[0] = START + 60 * MINUTE;
+        assertThat(sales(TrendingWindow.HOUR, null)).isEmpty();
+        assertThat(sales(TrendingWindow.DAY, null)).containsExactly(1L, 2);
+
+        now[0] = START + 1439 * MINUTE;
+        assertThat(sales(TrendingWindow.DAY, null)).containsExactly(1L, 2);
+
+        now[0] = START + 1440 * MINUTE;
+        assertThat(sales(TrendingWindow.DAY, null)).isEmpty();
+    }
+
+    @Test
+    void clockJumpLongerThanADayClearsEverything() {
+        counters.record(1L, 3, now[0]);
+        now[0] = START + 10 * MINUTE;
+        counters.record(2L, 1, now[0]);
+
+        now[0] = START + 5000 * MINUTE;
+        assertThat(sales(TrendingWindow.DAY, null)).isEmpty();
+
+        counters.record(3L, 4, now[0]);
+        assertThat(sales(TrendingWindow.HOUR, null)).containsExactly(3L, 4);
+    }
+
+    @Test
+    void cancellationIsDeductedFromTheOrdersBucketOnly() {
+        long orderTime = now[0];
+        counters.record(1L, 5, orderTime);
+        now[0] = START + 30 * MINUTE;
+        counters.record(1L, 1, now[0]);
+
+        counters.record(1L, -7, orderTime); // 不能扣掉其他桶里的销量
+        assertThat(sales(TrendingWindow.HOUR, null)).containsExactly(1L, 1);
+
+        now[0] = START + 61 * MINUTE;
+        counters.record(1L, -1, orderTime); // 订单所在的桶已滑出小时窗口，仍从日累计中扣除
+        assertThat(sales(TrendingWindow.HOUR, null)).containsExactly(1L, 1);
+        assertThat(sales(TrendingWindow.DAY, null)).containsExactly(1L, 1);
+    }
+
+    @Test
+    void ordersBeforeStartupAreIgnored() {
+        counters.record(1L, 3, START - 2 * MINUTE);
+        counters.record(1L, -3, START - 2 * MINUTE);
+
+        assertThat(sales(TrendingWindow.DAY, null)).isEmpty();
+    }
+
+    @Test
+    void rankingIsFilteredByCategoryAndOrderedBySalesThenId() {
+        counters.record(3L, 4, now[0]);
+        counters.record(2L, 2, now[0]);
+        counters.record(1L, 2, now[0]);
+
+        assertThat(sales(TrendingWindow.HOUR, null)).containsExactly(3L, 4, 1L, 2, 2L, 2);
+        assertThat(sales(TrendingWindow.HOUR, 10L)).containsExactly(1L, 2, 2L, 2);
+        assertThat(sales(TrendingWindow.HOUR, 99L)).isEmpty();
+        assertThat(counters.top(TrendingWindow.HOUR, null, 1, snapshot).getBookIds()).containsExactly(3L);
+    }
+
+    /**
+     * 榜单展开为 图书ID, 销量, 图书ID, 销量...
+     */
+    private List<Object> sales(TrendingWindow window, Long categoryId) {
+        TrendingHits hits = counters.top(window, categoryId, 50, snapshot);
+        List<Object> flat = new ArrayList<>();
+        for (int i = 0; i < hits.getBookIds().size(); i++) {
+            flat.add(hits.getBookIds().get(i));
+            flat.add(hits.getSales().get(i));
+        }
+        return flat;
+    }
+
+    private static CatalogBook book(long id, long categoryId) {
+        CatalogBook book = new CatalogBook();
+        book.setId(id);
+        book.setTitle("book " + id);
+        book.setPopularity(0);
+        book.setCategoryIds(new long[]{categoryId});
+        return book;
+    }
+}
@@ -0,0 +1,58 @@
+package com.library.relation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PairCountMapTest {
+
+    @Test
+    void pairKeyIsOrderIndependentAndReversible() {
+        long key = PairCountMap.key(70_000L, 12L);
+
+        assertThat(PairCountMap.key(12L, 70_000L)).isEqualTo(key);
+        assertThat(PairCountMap.first(key)).isEqualTo(12L);
+        assertThat(PairCountMap.second(key)).isEqualTo(70_000L);
+        assertThat(PairCountMap.second(PairCountMap.key(1L, 0xFFFFFFFFL))).isEqualTo(0xFFFFFFFFL);
+    }
+
+    @Test
+    void countsMatchHashMapAcrossRehashes() {
+        Random random = new Random(6);
+        PairCountMap map = new PairCountMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = PairCountMap.key(1 + random.nextInt(200), 1 + random.nextInt(200));
+            int delta = 1 + random.nextInt(3);
+            map.add(key, delta);
+            expected.merge(key, delta, Integer::sum);
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        assertThat(map.keys()).hasSize(expected.size())
+                .containsExactlyInAnyOrder(expected.keySet().stream().mapToLong(Long::longValue).toArray());
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertThat(map.get(entry.getKey())).isEqualTo(entry.getValue());
+        }
+        assertThat(map.get(PairCountMap.key(500L, 501L))).isZero();
+    }
+
+    @Test
+    void clearKeepsMapUsable() {
+        PairCountMap map = new PairCountMap(16);
+        map.add(PairCountMap.key(1L, 2L), 5);
+        map.clear();
+
+        assertThat(map.size()).isZero();
+        assertThat(map.keys()).isEmpty();
+        assertThat(map.get(PairCountMap.key(1L, 2L))).isZero();
+
+        map.add(PairCountMap.key(1L, 2L), 1);
+        assertThat(map.get(PairCountMap.key(2L, 1L))).isEqualTo(1);
+    }
+}
@@ -0,0 +1,112 @@
+package com.library.search;
+
+import com.library.catalog.CatalogBook;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookFuzzyIndexTest {
+
+    @Test
+    void boundedLevenshteinAgreesWithFullDistanceUpToBound() {
+        Random random = new Random(2);
+        for (int round = 0; round < 20_000; round++) {
+            int[] a = randomWord(random);
+            int[] b = random.nextBoolean() ? mutate(a, random) : randomWord(random);
+            int max = random.nextInt(4);
+
+            int expected = Math.min(levenshtein(a, b), max + 1);
+
+            assertThat(BookFuzzyIndex.boundedLevenshtein(a, b, max))
+                    .as("%s / %s / %d", new String(a, 0, a.length), new String(b, 0, b.length), max)
+                    .isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void comparesCodePointsNotChars() {
+        int[] a = "三体".codePoints().toArray();
+        int[] b = "三休".codePoints().toArray();
+
+        assertThat(BookFuzzyIndex.boundedLevenshtein(a, b, 1)).isEqualTo(1);
+        assertThat(BookFuzzyIndex.boundedLevenshtein(a, a, 0)).isZero();
+        assertThat(BookFuzzyIndex.boundedLevenshtein(a, "三体人".codePoints().toArray(), 0)).isEqualTo(1);
+    }
+
+    @Test
+    void wordsRemovedFromTitleAreNoLongerCorrectionTargets() {
+        BookFuzzyIndex index = new BookFuzzyIndex();
+        index.onCatalogReload(List.of(book(1L, "Gradle Guide")));
+
+        assertThat(index.correct("gradel")).contains("gradle");
+
+        index.onBooksChanged(List.of(book(1L, "Maven Guide")));
+
+        assertThat(index.correct("gradel")).isEmpty();
+        assertThat(index.correct("mavan")).contains("maven");
+        assertThat(index.correct("guide")).isEmpty();
+    }
+
+    @Test
+    void repeatedUpsertsDoNotInflateTermFrequency() {
+        BookFuzzyIndex index = new BookFuzzyIndex();
+        index.onCatalogReload(List.of(book(1L, "kotlin"), book(2L, "kotlen"), book(3L, "kotlin")));
+        for (int i = 0; i < 5; i++) {
+            index.onBooksChanged(List.of(book(2L, "kotlen")));
+        }
+
+        // 两个候选距离相同，按包含该词的图书数取kotlin（2本）而不是kotlen（1本）
+        assertThat(index.correct("kotlon")).contains("kotlin");
+    }
+
+    private static CatalogBook book(long id, String title) {
+        CatalogBook book = new CatalogBook();
+        book.setId(id);
+        book.setTitle(title);
+        return book;
+    }
+
+    private static int[] randomWord(Random random) {
+        int[] word = new int[random.nextInt(9)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = 'a' + random.nextInt(4);
+        }
+        return word;
+    }
+
+    private static int[] mutate(int[] word, Random random) {
+        StringBuilder sb = new StringBuilder(new String(word, 0, word.length));
+        int edits = random.nextInt(4);
+        for (int i = 0; i < edits; i++) {
+            int op = random.nextInt(3);
+            if (op == 0 || sb.length() == 0) {
+                sb.insert(random.nextInt(sb.length() + 1), (char) ('a' + random.nextInt(4)));
+            } else if (op == 1) {
+                sb.deleteCharAt(random.nextInt(sb.length()));
+            } else {
+                sb.setCharAt(random.nextInt(sb.length()), (char) ('a' + random.nextInt(4)));
+            }
+        }
+        return sb.codePoints().toArray();
+    }
+
+    private static int levenshtein(int[] a, int[] b) {
+        int[][] d = new int[a.length + 1][b.length + 1];
+        for (int i = 0; i <= a.length; i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length; j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length; i++) {
+            for (int j = 1; j <= b.length; j++) {
+                int cost = a[i - 1] == b[j - 1] ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+            }
+        }
+        return d[a.length][b.length];
+    }
+}
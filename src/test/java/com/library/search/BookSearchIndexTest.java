@@ -0,0 +1,59 @@
+package com.library.search;
+
+import com.library.catalog.BookCursor;
+import com.library.catalog.BookSortOrder;
+import com.library.catalog.CatalogBook;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookSearchIndexTest {
+
+    @Test
+    void cursorPagesIncludeExtraMatchesInSortOrder() {
+        BookSearchIndex index = new BookSearchIndex();
+        List<CatalogBook> books = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            books.add(book(id, id % 2 == 0 ? "java " + id : "三体 " + id, (int) (100 - id)));
+        }
+        index.onCatalogReload(books);
+
+        // 奇数ID的书只能通过额外命中（如拼音）找到
+        long[] extra = {1L, 3L, 5L, 7L, 9L, 404L};
+        List<Long> seen = new ArrayList<>();
+        BookCursor after = null;
+        for (int page = 0; page < 10; page++) {
+            SearchHits hits = index.searchAfter("java", extra, null, BookSortOrder.RECOMMENDED, after, 3).orElseThrow();
+            assertThat(hits.getTotal()).isEqualTo(10);
+            seen.addAll(hits.getBookIds());
+            if (hits.getNextCursor() == null) {
+                break;
+            }
+            after = BookCursor.decode(hits.getNextCursor(), BookSortOrder.RECOMMENDED);
+        }
+
+        assertThat(seen).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+    }
+
+    @Test
+    void withoutExtraMatchesOnlyTermMatchesAreReturned() {
+        BookSearchIndex index = new BookSearchIndex();
+        index.onCatalogReload(List.of(book(1L, "java", 1), book(2L, "三体", 2)));
+
+        SearchHits hits = index.searchAfter("java", null, null, BookSortOrder.RECOMMENDED, null, 10).orElseThrow();
+
+        assertThat(hits.getBookIds()).containsExactly(1L);
+        assertThat(hits.getNextCursor()).isNull();
+    }
+
+    private static CatalogBook book(long id, String title, int popularity) {
+        CatalogBook book = new CatalogBook();
+        book.setId(id);
+        book.setTitle(title);
+        book.setPopularity(popularity);
+        return book;
+    }
+}
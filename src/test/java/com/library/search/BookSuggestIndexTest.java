@@ -0,0 +1,145 @@
+package com.library.search;
+
+import com.library.catalog.CatalogBook;
+import com.library.web.ResourceVersions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookSuggestIndexTest {
+
+    private static final String[] WORDS = {"java", "jazz", "joy", "spring", "sprint", "data", "三体", "三国", "a"};
+    private static final String[] QUERIES = {"j", "ja", "jav", "java ", "s", "spr", "sprint", "d", "三", "三体",
+            "a", "author 1", "author", "978", "9787", "978-7", "978-7-1", "joy spring", "zzz", "  Java", "-"};
+
+    @Test
+    void suggestMatchesBruteForceRanking() {
+        Random random = new Random(8);
+        Map<Long, CatalogBook> books = new TreeMap<>();
+        for (long id = 1; id <= 300; id++) {
+            books.put(id, randomBook(id, random));
+        }
+        BookSuggestIndex index = new BookSuggestIndex(new ResourceVersions());
+        index.onCatalogReload(new ArrayList<>(books.values()));
+
+        assertSuggestionsMatch(index, books);
+    }
+
+    @Test
+    void mergedChangesMatchBruteForceRanking() {
+        Random random = new Random(9);
+        Map<Long, CatalogBook> books = new TreeMap<>();
+        for (long id = 1; id <= 200; id++) {
+            books.put(id, randomBook(id, random));
+        }
+        BookSuggestIndex index = new BookSuggestIndex(new ResourceVersions());
+        index.onCatalogReload(new ArrayList<>(books.values()));
+
+        for (int round = 0; round < 30; round++) {
+            List<CatalogBook> changed = new ArrayList<>();
+            for (int i = 0; i < 1 + random.nextInt(10); i++) {
+                CatalogBook book = randomBook(1 + random.nextInt(260), random);
+                books.put(book.getId(), book);
+                changed.add(book);
+            }
+            index.onBooksChanged(changed);
+            index.rebuildPending();
+            assertSuggestionsMatch(index, books);
+        }
+    }
+
+    @Test
+    void hyphenatedIsbnQueryMatchesStrippedKey() {
+        CatalogBook book = new CatalogBook();
+        book.setId(1L);
+        book.setTitle("三体");
+        book.setIsbn("978-7-5366-9293-0");
+        book.setPopularity(1);
+        BookSuggestIndex index = new BookSuggestIndex(new ResourceVersions());
+        index.onCatalogReload(List.of(book));
+
+        assertThat(index.suggest("978-7-5366", 5)).contains(List.of(1L));
+        assertThat(index.suggest("9787536692930", 5)).contains(List.of(1L));
+        assertThat(index.suggest("978-7-5366-9293-0", 5)).contains(List.of(1L));
+    }
+
+    @Test
+    void notReadyBeforeFirstLoad() {
+        BookSuggestIndex index = new BookSuggestIndex(new ResourceVersions());
+
+        assertThat(index.suggest("java", 5)).isEmpty();
+        index.onCatalogReload(List.of());
+        assertThat(index.suggest("java", 5)).contains(List.of());
+    }
+
+    private static void assertSuggestionsMatch(BookSuggestIndex index, Map<Long, CatalogBook> books) {
+        for (String query : QUERIES) {
+            for (int limit : new int[]{1, 5, 1000}) {
+                assertThat(index.suggest(query, limit))
+                        .as("%s / %d", query, limit)
+                        .contains(expected(books, query, limit));
+            }
+        }
+    }
+
+    /**
+     * 逐本检查所有联想键，按人气值降序、ID升序
+     */
+    private static List<Long> expected(Map<Long, CatalogBook> books, String query, int limit) {
+        String prefix = BookTokenizer.normalize(query).trim();
+        if (prefix.matches("[0-9][0-9-]*x?")) {
+            prefix = prefix.replace("-", "");
+        }
+        String normalized = prefix;
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        return books.values().stream()
+                .filter(book -> keys(book).stream().anyMatch(key -> key.startsWith(normalized)))
+                .sorted(Comparator.comparing(CatalogBook::getPopularity).reversed().thenComparing(CatalogBook::getId))
+                .limit(limit)
+                .map(CatalogBook::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> keys(CatalogBook book) {
+        List<String> keys = new ArrayList<>();
+        String title = BookTokenizer.normalize(book.getTitle()).trim();
+        keys.add(title);
+        for (int i = 1; i < title.length(); i++) {
+            if (title.charAt(i - 1) == ' ' && title.charAt(i) != ' ') {
+                keys.add(title.substring(i));
+            }
+        }
+        keys.add(BookTokenizer.normalize(book.getAuthor()).trim());
+        keys.add(BookTokenizer.normalize(book.getIsbn()).replace("-", "").trim());
+        return keys.stream().filter(key -> !key.isEmpty()).collect(Collectors.toList());
+    }
+
+    private static CatalogBook randomBook(long id, Random random) {
+        StringBuilder title = new StringBuilder();
+        int words = 1 + random.nextInt(3);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                title.append(' ');
+            }
+            String word = WORDS[random.nextInt(WORDS.length)];
+            title.append(random.nextBoolean() ? word.toUpperCase() : word);
+        }
+        CatalogBook book = new CatalogBook();
+        book.setId(id);
+        book.setTitle(title.toString());
+        book.setAuthor("Author " + random.nextInt(20));
+        book.setIsbn(random.nextInt(4) == 0 ? null : "978-7-" + (100 + random.nextInt(900)) + "-" + id);
+        book.setPopularity(random.nextInt(10));
+        return book;
+    }
+}
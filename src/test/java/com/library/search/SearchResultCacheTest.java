@@ -0,0 +1,100 @@
+package com.library.search;
+
+import com.library.catalog.CatalogBook;
+import com.library.model.dto.BookListItemDTO;
+import com.library.model.dto.PagedResultDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchResultCacheTest {
+
+    private SearchResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new SearchResultCache(100, 60_000L);
+    }
+
+    @Test
+    void changedBookInvalidatesPagesContainingIt() {
+        String key = SearchResultCache.key("java", null, "recommended", 1, 10);
+        cache.put(key, page(null, 1L, 2L));
+
+        cache.onBooksChanged(List.of(book(2L, "Unrelated", "Someone")));
+
+        assertThat(cache.get(key)).isEmpty();
+    }
+
+    @Test
+    void bookNewlyMatchingKeywordInvalidatesEveryPageOfThatKeyword() {
+        String first = SearchResultCache.key("Java", null, "recommended", 1, 10);
+        String second = SearchResultCache.key("java", 5L, "price_asc", 2, 10);
+        String prefix = SearchResultCache.key("jav", null, "recommended", 1, 10);
+        String other = SearchResultCache.key("python", null, "recommended", 1, 10);
+        cache.put(first, page(null, 1L));
+        cache.put(second, page(null, 2L));
+        cache.put(prefix, page(null, 1L));
+        cache.put(other, page(null, 3L));
+
+        cache.onBooksChanged(List.of(book(9L, "Effective Java", "Bloch")));
+
+        assertThat(cache.get(first)).isEmpty();
+        assertThat(cache.get(second)).isEmpty();
+        assertThat(cache.get(prefix)).isEmpty();
+        assertThat(cache.get(other)).isPresent();
+    }
+
+    @Test
+    void pinyinAndCorrectedKeywordsAreMatched() {
+        String pinyin = SearchResultCache.key("santi", null, "recommended", 1, 10);
+        String corrected = SearchResultCache.key("gradel", null, "recommended", 1, 10);
+        cache.put(pinyin, page(null, 1L));
+        cache.put(corrected, page("gradle", 2L));
+
+        cache.onBooksChanged(List.of(book(9L, "三体", "刘慈欣")));
+        assertThat(cache.get(pinyin)).isEmpty();
+        assertThat(cache.get(corrected)).isPresent();
+
+        cache.onBooksChanged(List.of(book(10L, "Gradle in Action", "Muschko")));
+        assertThat(cache.get(corrected)).isEmpty();
+    }
+
+    @Test
+    void evictedEntriesAreNoLongerTrackedByKeyword() {
+        SearchResultCache small = new SearchResultCache(1, 60_000L);
+        String evicted = SearchResultCache.key("java", null, "recommended", 1, 10);
+        String kept = SearchResultCache.key("python", null, "recommended", 1, 10);
+        small.put(evicted, page(null, 1L));
+        small.put(kept, page(null, 2L));
+
+        small.onBooksChanged(List.of(book(9L, "Java", "Someone")));
+
+        assertThat(small.get(kept)).isPresent();
+        assertThat(small.stats().getInvalidations()).isZero();
+    }
+
+    private static PagedResultDTO<BookListItemDTO> page(String didYouMean, long... bookIds) {
+        List<BookListItemDTO> items = new ArrayList<>();
+        for (long bookId : bookIds) {
+            BookListItemDTO item = new BookListItemDTO();
+            item.setId(bookId);
+            items.add(item);
+        }
+        PagedResultDTO<BookListItemDTO> result = new PagedResultDTO<>(items, (long) items.size(), 1, 10);
+        result.setDidYouMean(didYouMean);
+        return result;
+    }
+
+    private static CatalogBook book(long id, String title, String author) {
+        CatalogBook book = new CatalogBook();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        return book;
+    }
+}
@@ -0,0 +1,47 @@
+package com.library.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntBinaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopKTest {
+
+    @Test
+    void matchesPrefixOfFullSort() {
+        Random random = new Random(1);
+        for (int round = 0; round < 500; round++) {
+            int count = random.nextInt(200);
+            int[] scores = new int[1000];
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = random.nextInt(20); // 大量并列，检验次序键
+            }
+            int[] candidates = random.ints(count + random.nextInt(5), 0, scores.length).distinct().toArray();
+            int valid = Math.min(count, candidates.length);
+            int k = random.nextInt(30);
+            // 分数降序，分数相同按编号升序
+            IntBinaryOperator comparator = (a, b) -> scores[a] != scores[b]
+                    ? Integer.compare(scores[b], scores[a]) : Integer.compare(a, b);
+
+            int[] expected = Arrays.stream(candidates, 0, valid).boxed()
+                    .sorted(comparator::applyAsInt)
+                    .limit(k)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+
+            assertThat(TopK.select(candidates, valid, k, comparator)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void emptyInputsYieldEmptyResult() {
+        IntBinaryOperator comparator = Integer::compare;
+
+        assertThat(TopK.select(new int[]{3, 1, 2}, 3, 0, comparator)).isEmpty();
+        assertThat(TopK.select(new int[]{3, 1, 2}, 0, 5, comparator)).isEmpty();
+        assertThat(TopK.select(new int[]{3, 1, 2}, 3, 10, comparator)).containsExactly(1, 2, 3);
+    }
+}